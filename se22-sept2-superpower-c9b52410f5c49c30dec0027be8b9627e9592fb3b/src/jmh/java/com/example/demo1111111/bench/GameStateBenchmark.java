@@ -0,0 +1,78 @@
+package com.example.demo1111111.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.world.ItemCatalog;
+
+/** 背包查找：名称经共享物品索引解析为ID，再查背包数量 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int inventorySize;
+
+  private final ItemCatalog catalog = new ItemCatalog(null, false);
+  private GameState state;
+  private Item hitItem;
+  private String hitName;
+
+  @Setup
+  public void setUp() {
+    Inventory inventory = new Inventory();
+    for (int i = 0; i < inventorySize; i++) {
+      Item item = new Item();
+      item.setId(i + 1);
+      item.setName("item-" + (i + 1));
+      item.setWeight(1.0);
+      catalog.register(item);
+      inventory.add(item, 2);
+      hitItem = item;
+    }
+    RoomEntity room = new RoomEntity();
+    room.setId(1);
+    state = new GameState("bench", room, inventory, false);
+    hitName = "ITEM-" + inventorySize;
+  }
+
+  @Benchmark
+  public int findHit() {
+    Item item = catalog.findByName(hitName);
+    return item != null ? state.getInventory().quantityOf(item.getId()) : 0;
+  }
+
+  @Benchmark
+  public int findMiss() {
+    Item item = catalog.findByName("nothing");
+    return item != null ? state.getInventory().quantityOf(item.getId()) : 0;
+  }
+
+  /** 拾取再丢弃一个物品，负重随之更新 */
+  @Benchmark
+  public double addRemove() {
+    Inventory inventory = state.getInventory();
+    inventory.add(hitItem);
+    inventory.remove(hitItem);
+    return inventory.getTotalWeight();
+  }
+}
@@ -0,0 +1,135 @@
+package com.example.demo1111111.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.service.GameStateCodec;
+import com.example.demo1111111.world.ItemCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 游戏状态快照：GameStateCodec 对比 Java 序列化和 Jackson JSON。
+ *
+ * <p>Jackson 序列化的是同样内容的简单对象（GameState 本身不适合直接转 JSON）。各格式的快照大小在 Setup 时打印。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateCodecBenchmark {
+
+  /** 背包物品种数和历史长度 */
+  @Param({"5", "50"})
+  public int size;
+
+  private final ItemCatalog catalog = new ItemCatalog(null, false);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private GameState state;
+  private Snapshot snapshot;
+  private byte[] codecBytes;
+  private byte[] javaBytes;
+  private byte[] jsonBytes;
+
+  /** 与 GameState 内容相同的 JSON 对象 */
+  public static class Snapshot {
+    public Integer roomId;
+    public boolean gameOver;
+    public int[] itemIds;
+    public int[] quantities;
+    public int[] history;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    Inventory inventory = new Inventory();
+    List<Integer> history = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Item item = new Item();
+      item.setId(100 + i);
+      item.setName("item-" + i);
+      item.setWeight(1.0);
+      catalog.register(item);
+      inventory.add(item, 1 + i % 3);
+      history.add(1000 + i * 3);
+    }
+    state = new GameState("bench", null, inventory, false);
+    state.setCurrentRoomId(4242);
+    history.forEach(state::pushRoomToHistory);
+
+    snapshot = new Snapshot();
+    snapshot.roomId = state.getCurrentRoomId();
+    snapshot.itemIds = new int[inventory.size()];
+    snapshot.quantities = new int[inventory.size()];
+    for (int i = 0; i < inventory.size(); i++) {
+      snapshot.itemIds[i] = inventory.itemIdAt(i);
+      snapshot.quantities[i] = inventory.quantityAt(i);
+    }
+    snapshot.history = state.getRoomHistoryIds();
+
+    codecBytes = codecEncode();
+    javaBytes = javaEncode();
+    jsonBytes = jacksonEncode();
+    System.out.printf(
+        "%n快照大小(size=%d): codec=%d, java=%d, json=%d 字节%n",
+        size, codecBytes.length, javaBytes.length, jsonBytes.length);
+  }
+
+  @Benchmark
+  public byte[] codecEncode() {
+    return GameStateCodec.encode(state);
+  }
+
+  @Benchmark
+  public GameState codecDecode() {
+    return GameStateCodec.decode("bench", codecBytes, catalog);
+  }
+
+  @Benchmark
+  public byte[] javaEncode() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(state);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public Object javaDecode() throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+      return in.readObject();
+    }
+  }
+
+  @Benchmark
+  public byte[] jacksonEncode() throws IOException {
+    return objectMapper.writeValueAsBytes(snapshot);
+  }
+
+  @Benchmark
+  public Snapshot jacksonDecode() throws IOException {
+    return objectMapper.readValue(jsonBytes, Snapshot.class);
+  }
+}
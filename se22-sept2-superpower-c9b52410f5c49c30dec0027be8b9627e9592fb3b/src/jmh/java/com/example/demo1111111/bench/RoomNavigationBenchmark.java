@@ -0,0 +1,63 @@
+package com.example.demo1111111.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.world.BenchmarkWorlds;
+import com.example.demo1111111.world.WorldGraph;
+
+/** 房间出口查找和描述：JPA 实体与内存地图对比。每次调用换一个房间，避免只测到同一个对象。 */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomNavigationBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int rooms;
+
+  private RoomEntity[] entityWorld;
+  private WorldGraph.Room[] graphWorld;
+  private int cursor;
+
+  @Setup
+  public void setUp() {
+    entityWorld = BenchmarkWorlds.entityWorld(rooms);
+    graphWorld = BenchmarkWorlds.graphWorld(rooms);
+  }
+
+  private int next() {
+    int index = cursor;
+    cursor = index + 1 == rooms ? 0 : index + 1;
+    return index;
+  }
+
+  @Benchmark
+  public RoomEntity entityExitForDirection() {
+    return entityWorld[next()].getExitForDirection("east");
+  }
+
+  @Benchmark
+  public WorldGraph.Room graphExitForDirection() {
+    return graphWorld[next()].getExitForDirection("east");
+  }
+
+  @Benchmark
+  public String entityFullDescription() {
+    return entityWorld[next()].getFullDescription();
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.demo1111111.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.PlayerInventory;
+import com.example.demo1111111.world.BenchmarkWorlds;
+import com.example.demo1111111.world.RoomDescriptionCache;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** 房间描述渲染和响应 JSON 序列化（look / take / drop 每次都会走一遍） */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseRenderBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int rooms;
+
+  private WorldGraph.Room[] world;
+  private RoomItemLedger ledger;
+  private RoomDescriptionCache descriptions;
+  private List<PlayerInventory> inventory;
+  private ObjectMapper objectMapper;
+  private int cursor;
+
+  @Setup
+  public void setUp() {
+    world = BenchmarkWorlds.graphWorld(rooms);
+    ledger = BenchmarkWorlds.ledger(rooms);
+    descriptions = new RoomDescriptionCache();
+    objectMapper = new ObjectMapper();
+
+    inventory = new ArrayList<>();
+    for (Item item : BenchmarkWorlds.items()) {
+      PlayerInventory entry = new PlayerInventory();
+      entry.setUserId(1L);
+      entry.setItem(item);
+      entry.setQuantity(2);
+      inventory.add(entry);
+    }
+  }
+
+  private WorldGraph.Room next() {
+    WorldGraph.Room room = world[cursor];
+    cursor = cursor + 1 == rooms ? 0 : cursor + 1;
+    return room;
+  }
+
+  @Benchmark
+  public String buildRoomDescription() {
+    WorldGraph.Room room = next();
+    return GameService.buildRoomDescription(room, ledger.getItems(room.getId()));
+  }
+
+  @Benchmark
+  public String cachedRoomDescription() {
+    WorldGraph.Room room = next();
+    return descriptions.describe(room, ledger.getStock(room.getId()));
+  }
+
+  @Benchmark
+  public byte[] inventoryUpdateJson() throws JsonProcessingException {
+    WorldGraph.Room room = next();
+    GameResponse response =
+        GameResponse.inventoryUpdate(
+            "bench-session",
+            GameResponse.RoomDetail.fromWorld(room, ledger.getItems(room.getId())),
+            inventory,
+            "获得物品: key",
+            12.5,
+            50.0);
+    return objectMapper.writeValueAsBytes(response);
+  }
+}
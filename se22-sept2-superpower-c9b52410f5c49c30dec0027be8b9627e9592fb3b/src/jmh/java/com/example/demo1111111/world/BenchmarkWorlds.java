@@ -0,0 +1,202 @@
+package com.example.demo1111111.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.entity.RoomItem;
+import com.example.demo1111111.repository.RoomRepository;
+import com.example.demo1111111.repository.TeleportDestinationRepository;
+
+/**
+ * 基准测试用的生成世界：size 个房间排成近似正方形的网格。
+ *
+ * <p>同一个 size 生成的 JPA 实体世界、内存地图和房间物品账本结构完全一致，便于对比新旧热路径。
+ */
+public final class BenchmarkWorlds {
+
+  /** 物品名称，id 依次为 1..n */
+  public static final String[] ITEM_NAMES = {"key", "lamp", "sword", "bread", "magic cake"};
+
+  // 每隔多少个房间放一个传送门
+  private static final int TELEPORT_EVERY = 50;
+
+  private BenchmarkWorlds() {}
+
+  /** 物品表 */
+  public static List<Item> items() {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < ITEM_NAMES.length; i++) {
+      Item item = new Item();
+      item.setId(i + 1);
+      item.setName(ITEM_NAMES[i]);
+      item.setDescription("一件普通的" + ITEM_NAMES[i]);
+      item.setWeight(0.5 + i);
+      item.setEdible(i >= 3);
+      items.add(item);
+    }
+    return items;
+  }
+
+  /** JPA 实体形式的世界（出口、物品、传送目的地都已关联） */
+  public static RoomEntity[] entityWorld(int size) {
+    List<Item> items = items();
+    RoomEntity[] rooms = new RoomEntity[size];
+    for (int i = 0; i < size; i++) {
+      RoomEntity room = new RoomEntity();
+      room.setId(i + 1);
+      room.setName("room-" + (i + 1));
+      room.setDescription("这是第 " + (i + 1) + " 个房间");
+      room.setTeleportRoom(isTeleport(i));
+      rooms[i] = room;
+    }
+
+    int width = width(size);
+    for (int i = 0; i < size; i++) {
+      RoomEntity room = rooms[i];
+      int[] exits = exits(i, size, width);
+      room.setExitEast(exits[0] >= 0 ? rooms[exits[0]] : null);
+      room.setExitWest(exits[1] >= 0 ? rooms[exits[1]] : null);
+      room.setExitNorth(exits[2] >= 0 ? rooms[exits[2]] : null);
+      room.setExitSouth(exits[3] >= 0 ? rooms[exits[3]] : null);
+      for (int[] stack : itemsOf(i)) {
+        room.getRoomItems().add(new RoomItem(room, items.get(stack[0]), stack[1]));
+      }
+      if (isTeleport(i)) {
+        List<RoomEntity> destinations = new ArrayList<>();
+        for (int target : teleportTargets(i, size)) {
+          destinations.add(rooms[target]);
+        }
+        room.setTeleportDestinations(destinations);
+      }
+    }
+    return rooms;
+  }
+
+  /** 内存地图形式的同一个世界，按下标返回房间 */
+  public static WorldGraph.Room[] graphWorld(int size) {
+    int width = width(size);
+    List<RoomRepository.RoomTopology> rows = new ArrayList<>(size);
+    List<TeleportDestinationRepository.TeleportLink> links = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      rows.add(topologyRow(i, exits(i, size, width), isTeleport(i)));
+      if (isTeleport(i)) {
+        for (int target : teleportTargets(i, size)) {
+          links.add(link(i + 1, target + 1));
+        }
+      }
+    }
+    return WorldGraph.build(rows, links).rooms;
+  }
+
+  /** 与上面的世界对应的房间物品账本（不连接数据库，只用于读写内存） */
+  public static RoomItemLedger ledger(int size) {
+    List<Item> items = items();
+    List<RoomItem> rows = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      RoomEntity room = new RoomEntity();
+      room.setId(i + 1);
+      for (int[] stack : itemsOf(i)) {
+        rows.add(new RoomItem(room, items.get(stack[0]), stack[1]));
+      }
+    }
+    RoomItemLedger ledger = new RoomItemLedger(null, null, null);
+    ledger.load(rows);
+    return ledger;
+  }
+
+  private static int width(int size) {
+    return Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+  }
+
+  private static boolean isTeleport(int index) {
+    return index % TELEPORT_EVERY == TELEPORT_EVERY - 1;
+  }
+
+  // east, west, north, south 的房间下标，没有出口为 -1
+  private static int[] exits(int index, int size, int width) {
+    int column = index % width;
+    return new int[] {
+      column + 1 < width && index + 1 < size ? index + 1 : -1,
+      column > 0 ? index - 1 : -1,
+      index - width >= 0 ? index - width : -1,
+      index + width < size ? index + width : -1
+    };
+  }
+
+  // 每个房间 0~2 堆物品：{物品下标, 数量}
+  private static List<int[]> itemsOf(int index) {
+    List<int[]> stacks = new ArrayList<>(2);
+    if (index % 2 == 0) {
+      stacks.add(new int[] {index % ITEM_NAMES.length, 1 + index % 3});
+    }
+    if (index % 6 == 0) {
+      stacks.add(new int[] {(index + 2) % ITEM_NAMES.length, 1});
+    }
+    return stacks;
+  }
+
+  private static int[] teleportTargets(int index, int size) {
+    return new int[] {(index * 7 + 3) % size, (index * 13 + 5) % size};
+  }
+
+  private static RoomRepository.RoomTopology topologyRow(
+      int index, int[] exits, boolean teleport) {
+    return new RoomRepository.RoomTopology() {
+      @Override
+      public Integer getId() {
+        return index + 1;
+      }
+
+      @Override
+      public String getName() {
+        return "room-" + (index + 1);
+      }
+
+      @Override
+      public String getDescription() {
+        return "这是第 " + (index + 1) + " 个房间";
+      }
+
+      @Override
+      public Integer getExitEastId() {
+        return exits[0] >= 0 ? exits[0] + 1 : null;
+      }
+
+      @Override
+      public Integer getExitWestId() {
+        return exits[1] >= 0 ? exits[1] + 1 : null;
+      }
+
+      @Override
+      public Integer getExitNorthId() {
+        return exits[2] >= 0 ? exits[2] + 1 : null;
+      }
+
+      @Override
+      public Integer getExitSouthId() {
+        return exits[3] >= 0 ? exits[3] + 1 : null;
+      }
+
+      @Override
+      public Boolean getTeleportRoom() {
+        return teleport;
+      }
+    };
+  }
+
+  private static TeleportDestinationRepository.TeleportLink link(int from, int to) {
+    return new TeleportDestinationRepository.TeleportLink() {
+      @Override
+      public Integer getTeleportRoomId() {
+        return from;
+      }
+
+      @Override
+      public Integer getDestinationRoomId() {
+        return to;
+      }
+    };
+  }
+}
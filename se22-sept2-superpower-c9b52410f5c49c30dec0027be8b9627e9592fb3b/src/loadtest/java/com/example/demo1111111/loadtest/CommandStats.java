@@ -0,0 +1,140 @@
+package com.example.demo1111111.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/** 按命令类型统计延迟（微秒，HdrHistogram）、成功数、被游戏拒绝数和错误数 */
+final class CommandStats {
+
+  /** 单次请求结果 */
+  enum Outcome {
+    // 正常返回
+    OK,
+    // 游戏逻辑拒绝（如房间里没有该物品、超重）
+    REJECTED,
+    // HTTP 错误、超时或连接失败
+    ERROR
+  }
+
+  // 可记录的最大延迟：60 秒
+  private static final long MAX_MICROS = 60_000_000L;
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  void record(String command, long micros, Outcome outcome) {
+    Entry entry = entries.computeIfAbsent(command, c -> new Entry());
+    entry.histogram.recordValue(Math.min(Math.max(micros, 0), MAX_MICROS));
+    switch (outcome) {
+      case OK:
+        entry.ok.increment();
+        break;
+      case REJECTED:
+        entry.rejected.increment();
+        break;
+      default:
+        entry.errors.increment();
+        break;
+    }
+  }
+
+  long totalRequests() {
+    return entries.values().stream().mapToLong(Entry::count).sum();
+  }
+
+  long totalErrors() {
+    return entries.values().stream().mapToLong(e -> e.errors.sum()).sum();
+  }
+
+  /** 输出每个命令的吞吐量和延迟分位数 */
+  void report(PrintStream out, double elapsedSeconds) {
+    out.printf(
+        "%-8s %10s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+        "command",
+        "count",
+        "ok",
+        "rejected",
+        "errors",
+        "req/s",
+        "p50(ms)",
+        "p90(ms)",
+        "p99(ms)",
+        "p99.9(ms)",
+        "max(ms)");
+
+    Histogram all = new Histogram(MAX_MICROS, 3);
+    long ok = 0;
+    long rejected = 0;
+    long errors = 0;
+    for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+      Entry entry = e.getValue();
+      Histogram snapshot = entry.histogram.copy();
+      all.add(snapshot);
+      ok += entry.ok.sum();
+      rejected += entry.rejected.sum();
+      errors += entry.errors.sum();
+      printRow(
+          out,
+          e.getKey(),
+          snapshot,
+          entry.ok.sum(),
+          entry.rejected.sum(),
+          entry.errors.sum(),
+          elapsedSeconds);
+    }
+    printRow(out, "TOTAL", all, ok, rejected, errors, elapsedSeconds);
+
+    long total = ok + rejected + errors;
+    out.printf(
+        "错误率 %.3f%%, 拒绝率 %.3f%%%n",
+        total == 0 ? 0.0 : errors * 100.0 / total,
+        total == 0 ? 0.0 : rejected * 100.0 / total);
+  }
+
+  private static void printRow(
+      PrintStream out,
+      String name,
+      Histogram histogram,
+      long ok,
+      long rejected,
+      long errors,
+      double elapsedSeconds) {
+    long count = ok + rejected + errors;
+    out.printf(
+        "%-8s %10d %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+        name,
+        count,
+        ok,
+        rejected,
+        errors,
+        elapsedSeconds > 0 ? count / elapsedSeconds : 0.0,
+        millis(histogram, 50.0),
+        millis(histogram, 90.0),
+        millis(histogram, 99.0),
+        millis(histogram, 99.9),
+        histogram.getTotalCount() == 0 ? 0.0 : histogram.getMaxValue() / 1000.0);
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getTotalCount() == 0
+        ? 0.0
+        : histogram.getValueAtPercentile(percentile) / 1000.0;
+  }
+
+  private static final class Entry {
+    private final ConcurrentHistogram histogram = new ConcurrentHistogram(MAX_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    long count() {
+      return ok.sum() + rejected.sum() + errors.sum();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.example.demo1111111.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.demo1111111.service.DbAdmissionGate;
+import com.example.demo1111111.service.SessionCommandExecutor;
+
+/**
+ * 平台线程与虚拟线程执行会话命令的对比：不启动应用，直接驱动 {@link SessionCommandExecutor} 和 {@link DbAdmissionGate}。
+ *
+ * <p>每个会话是一个闭环客户端：上一条命令完成后立即提交下一条。访问数据库的命令（db）在闸门内阻塞 --db-ms 毫秒模拟一次查询，
+ * 只读内存的命令（memory）不阻塞也不经过闸门。依次在 --sessions 列出的会话数下运行两种模式，输出吞吐量和延迟分位数。
+ *
+ * <pre>
+ * mvn -P loadtest,java21 test-compile exec:exec -Dloadtest.main=com.example.demo1111111.loadtest.ExecutorComparison \
+ *     -Dloadtest.args="--sessions=1000,5000,10000 --commands=20"
+ * </pre>
+ *
+ * <p>虚拟线程模式需要 JDK 21+（java21 配置）；在更低版本的 JDK 上只运行平台线程模式。
+ *
+ * <p>参数：--sessions（逗号分隔）、--commands（每个会话的命令数）、--db-ms、--memory-percent（只读命令的比例）、
+ * --db-permits（闸门许可数，即连接池大小）、--worker-threads（平台线程数）。
+ */
+public final class ExecutorComparison {
+
+  public static void main(String[] args) throws Exception {
+    int[] sessionCounts = {1000, 5000, 10000};
+    int commands = 20;
+    int dbMillis = 5;
+    int memoryPercent = 50;
+    int dbPermits = 10;
+    int workerThreads = 16;
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (!arg.startsWith("--") || eq < 0) {
+        throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+      }
+      String value = arg.substring(eq + 1);
+      switch (arg.substring(2, eq)) {
+        case "sessions" -> {
+          String[] parts = value.split(",");
+          sessionCounts = new int[parts.length];
+          for (int i = 0; i < parts.length; i++) {
+            sessionCounts[i] = Integer.parseInt(parts[i].trim());
+          }
+        }
+        case "commands" -> commands = Integer.parseInt(value);
+        case "db-ms" -> dbMillis = Integer.parseInt(value);
+        case "memory-percent" -> memoryPercent = Integer.parseInt(value);
+        case "db-permits" -> dbPermits = Integer.parseInt(value);
+        case "worker-threads" -> workerThreads = Integer.parseInt(value);
+        default -> throw new IllegalArgumentException("未知参数: " + arg);
+      }
+    }
+
+    boolean virtualSupported = Runtime.version().feature() >= 21;
+    System.out.printf(
+        "JDK %s, 每会话 %d 条命令, 数据库命令阻塞 %d ms, 只读命令 %d%%, 闸门许可 %d, 平台线程 %d%n",
+        Runtime.version(), commands, dbMillis, memoryPercent, dbPermits, workerThreads);
+    if (!virtualSupported) {
+      System.out.println("当前 JDK 不支持虚拟线程，只运行平台线程模式（用 -P java21 在 JDK 21+ 上运行）");
+    }
+
+    for (int sessions : sessionCounts) {
+      run("platform", false, sessions, commands, dbMillis, memoryPercent, dbPermits, workerThreads);
+      if (virtualSupported) {
+        run("virtual", true, sessions, commands, dbMillis, memoryPercent, dbPermits, workerThreads);
+      }
+    }
+  }
+
+  private static void run(
+      String mode,
+      boolean virtualThreads,
+      int sessions,
+      int commands,
+      int dbMillis,
+      int memoryPercent,
+      int dbPermits,
+      int workerThreads)
+      throws Exception {
+    DbAdmissionGate gate = new DbAdmissionGate(dbPermits, TimeUnit.MINUTES.toMillis(5));
+    SessionCommandExecutor executor =
+        new SessionCommandExecutor(gate, workerThreads, virtualThreads);
+    CommandStats stats = new CommandStats();
+    try {
+      long start = System.nanoTime();
+      List<CompletableFuture<Void>> clients = new ArrayList<>(sessions);
+      for (int i = 0; i < sessions; i++) {
+        clients.add(
+            runSession(executor, stats, "session-" + i, commands, dbMillis, memoryPercent));
+      }
+      CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).join();
+      double elapsed = (System.nanoTime() - start) / 1e9;
+
+      System.out.println();
+      System.out.printf("== %s, %d 个会话, 用时 %.2f s ==%n", mode, sessions, elapsed);
+      stats.report(System.out, elapsed);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  // 一个闭环客户端：依次提交 commands 条命令，每条完成后再提交下一条
+  private static CompletableFuture<Void> runSession(
+      SessionCommandExecutor executor,
+      CommandStats stats,
+      String sessionId,
+      int remaining,
+      int dbMillis,
+      int memoryPercent) {
+    if (remaining == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    boolean usesDatabase = ThreadLocalRandom.current().nextInt(100) >= memoryPercent;
+    long submitted = System.nanoTime();
+    return executor
+        .submit(sessionId, () -> usesDatabase ? simulateQuery(dbMillis) : null, usesDatabase)
+        .handle(
+            (value, error) -> {
+              long micros = (System.nanoTime() - submitted) / 1000;
+              stats.record(
+                  usesDatabase ? "db" : "memory",
+                  micros,
+                  error == null ? CommandStats.Outcome.OK : CommandStats.Outcome.ERROR);
+              return null;
+            })
+        .thenCompose(
+            ignored ->
+                runSession(executor, stats, sessionId, remaining - 1, dbMillis, memoryPercent));
+  }
+
+  private static Void simulateQuery(int dbMillis) {
+    try {
+      Thread.sleep(dbMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,363 @@
+package com.example.demo1111111.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo1111111.Demo1111111Application;
+import com.example.demo1111111.world.ItemCatalog;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 端到端压测工具：登录 N 个模拟玩家，按命令比例持续调用 /api/command，输出吞吐量、各命令的延迟分布（HdrHistogram）和错误率。
+ *
+ * <p>默认在本进程内启动应用（H2 内存库，或用 --jdbc-url 指向本地 MySQL），写入指定规模的世界后开始压测；
+ * 指定 --target 时直接压测已经运行的服务（需要先用内嵌模式对同一个库生成过世界和玩家）。
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:exec -Dloadtest.args="--users=1000 --rooms=1000 --duration=60"
+ * </pre>
+ *
+ * <p>参数：--users、--rooms、--duration（秒）、--warmup（秒）、--think-ms（两条命令间的平均间隔）、--login-concurrency、
+ * --target、--jdbc-url、--jdbc-user、--jdbc-password、--seed=false。以 --spring.、--server.、--game.、--logging.
+ * 开头的参数原样传给内嵌应用，例如 --spring.threads.virtual.enabled=true。
+ */
+public final class LoadGenerator {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  private static final String[] PASSTHROUGH = {"--spring.", "--server.", "--game.", "--logging."};
+
+  private final Options options;
+  private final String baseUrl;
+  private final HttpClient client;
+  private final ScheduledExecutorService scheduler;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  // 预热结束时换成新的实例：不与仍在记录的请求线程并发清空同一个实例
+  private volatile CommandStats stats = new CommandStats();
+  private final CommandStats loginStats = new CommandStats();
+  private volatile boolean running;
+
+  private LoadGenerator(Options options, String baseUrl) {
+    this.options = options;
+    this.baseUrl = baseUrl;
+    ExecutorService httpExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()), daemon("loadtest-http"));
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(httpExecutor)
+            .build();
+    this.scheduler = Executors.newScheduledThreadPool(2, daemon("loadtest-think"));
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    ConfigurableApplicationContext app = null;
+    String target = options.target;
+    if (target == null) {
+      app = startEmbedded(options);
+      target = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+    }
+    try {
+      new LoadGenerator(options, target).run();
+    } finally {
+      if (app != null) app.close();
+    }
+    System.exit(0);
+  }
+
+  private void run() throws InterruptedException {
+    System.out.printf(
+        "压测 %s: %d 个玩家, 思考时间 %d ms, 预热 %d s, 压测 %d s%n",
+        baseUrl, options.users, options.thinkMillis, options.warmupSeconds, options.durationSeconds);
+
+    List<VirtualPlayer> players = login();
+    if (players.isEmpty()) {
+      System.out.println("没有玩家登录成功，终止压测");
+      return;
+    }
+
+    running = true;
+    CountDownLatch stopped = new CountDownLatch(players.size());
+    for (VirtualPlayer player : players) {
+      // 错开起步时间，避免所有玩家同时发出第一条命令
+      scheduler.schedule(
+          () -> step(player, stopped),
+          player.nextThinkMillis(Math.max(options.thinkMillis, 100)),
+          TimeUnit.MILLISECONDS);
+    }
+
+    TimeUnit.SECONDS.sleep(options.warmupSeconds);
+    stats = new CommandStats();
+    long start = System.nanoTime();
+    TimeUnit.SECONDS.sleep(options.durationSeconds);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    running = false;
+    if (!stopped.await(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+      System.out.println("仍有请求未返回: " + stopped.getCount());
+    }
+
+    System.out.println();
+    System.out.println("登录:");
+    loginStats.report(System.out, 0);
+    System.out.println();
+    System.out.printf("命令（%.1f s）:%n", elapsed);
+    stats.report(System.out, elapsed);
+  }
+
+  // 以有限并发登录所有玩家，返回登录成功的玩家
+  private List<VirtualPlayer> login() throws InterruptedException {
+    List<VirtualPlayer> players = new ArrayList<>();
+    Semaphore inFlight = new Semaphore(options.loginConcurrency);
+    CountDownLatch done = new CountDownLatch(options.users);
+    AtomicInteger failed = new AtomicInteger();
+    for (int i = 1; i <= options.users; i++) {
+      VirtualPlayer player = new VirtualPlayer(LoadWorldSeeder.USER_PREFIX + i, i);
+      players.add(player);
+      inFlight.acquire();
+      String body =
+          form("username", player.getUsername()) + "&" + form("password", LoadWorldSeeder.PASSWORD);
+      long start = System.nanoTime();
+      send(post("/api/login", body).build())
+          .whenComplete(
+              (response, error) -> {
+                CommandStats.Outcome outcome = CommandStats.Outcome.ERROR;
+                JsonNode json = error == null ? parse(response) : null;
+                if (json != null && json.path("success").asBoolean(false)) {
+                  player.setSessionId(json.path("sessionId").asText());
+                  player.observe(new VirtualPlayer.Command("login", null), json);
+                  outcome = CommandStats.Outcome.OK;
+                } else {
+                  failed.incrementAndGet();
+                }
+                loginStats.record("login", (System.nanoTime() - start) / 1000, outcome);
+                inFlight.release();
+                done.countDown();
+              });
+    }
+    done.await();
+    if (failed.get() > 0) {
+      System.out.println("登录失败: " + failed.get() + " 个玩家");
+    }
+    players.removeIf(p -> p.getSessionId() == null);
+    return players;
+  }
+
+  // 发送玩家的下一条命令，返回后按思考时间安排下一次
+  private void step(VirtualPlayer player, CountDownLatch stopped) {
+    if (!running) {
+      stopped.countDown();
+      return;
+    }
+    VirtualPlayer.Command command = player.next();
+    StringBuilder body = new StringBuilder(form("command", command.name()));
+    if (command.parameter() != null) {
+      body.append('&').append(form("parameter", command.parameter()));
+    }
+    HttpRequest request =
+        post("/api/command", body.toString()).header("X-Session-Id", player.getSessionId()).build();
+
+    long start = System.nanoTime();
+    send(request)
+        .whenComplete(
+            (response, error) -> {
+              long micros = (System.nanoTime() - start) / 1000;
+              JsonNode json = error == null ? parse(response) : null;
+              CommandStats.Outcome outcome;
+              if (json == null) {
+                outcome = CommandStats.Outcome.ERROR;
+              } else {
+                player.observe(command, json);
+                // 部分成功响应（如 eat）没有设置 success，失败响应则一定不带房间信息
+                boolean rejected =
+                    !json.path("success").asBoolean(false) && !json.path("currentRoom").isObject();
+                outcome = rejected ? CommandStats.Outcome.REJECTED : CommandStats.Outcome.OK;
+              }
+              stats.record(command.name(), micros, outcome);
+
+              long think = player.nextThinkMillis(options.thinkMillis);
+              if (think > 0) {
+                scheduler.schedule(() -> step(player, stopped), think, TimeUnit.MILLISECONDS);
+              } else {
+                scheduler.execute(() -> step(player, stopped));
+              }
+            });
+  }
+
+  private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpRequest.Builder post(String path, String body) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(body));
+  }
+
+  // 非 200 或无法解析时返回 null
+  private JsonNode parse(HttpResponse<String> response) {
+    if (response.statusCode() != 200) return null;
+    try {
+      return objectMapper.readTree(response.body());
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static String form(String name, String value) {
+    return name + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static ThreadFactory daemon(String prefix) {
+    AtomicInteger index = new AtomicInteger();
+    return r -> {
+      Thread thread = new Thread(r, prefix + "-" + index.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  // ==================== 内嵌应用 ====================
+
+  private static ConfigurableApplicationContext startEmbedded(Options options) {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("server.port", "0");
+    properties.put("spring.datasource.url", options.jdbcUrl);
+    properties.put("spring.datasource.username", options.jdbcUser);
+    properties.put("spring.datasource.password", options.jdbcPassword);
+    if (options.jdbcUrl.startsWith("jdbc:h2:")) {
+      properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+    }
+    properties.put("spring.jpa.hibernate.ddl-auto", "update");
+    // 关闭 SQL 和事务的 TRACE/DEBUG 日志，否则测到的主要是日志开销
+    properties.put("logging.level.org.springframework.transaction", "WARN");
+    properties.put("logging.level.org.hibernate.engine.transaction", "WARN");
+    properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+    properties.put("logging.level.org.hibernate.SQL", "WARN");
+    properties.put("logging.level.org.hibernate.orm.jdbc.bind", "WARN");
+    properties.put("logging.level.com.example.demo1111111.service.GameService", "INFO");
+    properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+    properties.put("spring.jpa.properties.hibernate.use_sql_comments", "false");
+
+    List<String> args = new ArrayList<>();
+    properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+    args.addAll(options.passthrough);
+
+    ConfigurableApplicationContext context =
+        SpringApplication.run(Demo1111111Application.class, args.toArray(new String[0]));
+    if (options.seed) {
+      new LoadWorldSeeder(context.getBean(JdbcTemplate.class)).seed(options.rooms, options.users);
+      // 世界地图、物品目录和房间物品账本在启动时已加载，生成数据后重新加载
+      context.getBean(WorldGraph.class).reload();
+      context.getBean(ItemCatalog.class).refresh();
+      context.getBean(RoomItemLedger.class).load();
+    }
+    return context;
+  }
+
+  // ==================== 参数 ====================
+
+  private static final class Options {
+    private int users = 1000;
+    private int rooms = 1000;
+    private int durationSeconds = 60;
+    private int warmupSeconds = 10;
+    private long thinkMillis = 200;
+    private int loginConcurrency = 16;
+    private boolean seed = true;
+    private String target;
+    private String jdbcUrl = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=MYSQL";
+    private String jdbcUser = "sa";
+    private String jdbcPassword = "";
+    private final List<String> passthrough = new ArrayList<>();
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (String arg : args) {
+        if (isPassthrough(arg)) {
+          options.passthrough.add(arg);
+          continue;
+        }
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+          throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+        }
+        String name = arg.substring(2, eq);
+        String value = arg.substring(eq + 1);
+        switch (name) {
+          case "users":
+            options.users = Integer.parseInt(value);
+            break;
+          case "rooms":
+            options.rooms = Integer.parseInt(value);
+            break;
+          case "duration":
+            options.durationSeconds = Integer.parseInt(value);
+            break;
+          case "warmup":
+            options.warmupSeconds = Integer.parseInt(value);
+            break;
+          case "think-ms":
+            options.thinkMillis = Long.parseLong(value);
+            break;
+          case "login-concurrency":
+            options.loginConcurrency = Integer.parseInt(value);
+            break;
+          case "seed":
+            options.seed = Boolean.parseBoolean(value);
+            break;
+          case "target":
+            options.target = value;
+            break;
+          case "jdbc-url":
+            options.jdbcUrl = value;
+            break;
+          case "jdbc-user":
+            options.jdbcUser = value;
+            break;
+          case "jdbc-password":
+            options.jdbcPassword = value;
+            break;
+          default:
+            throw new IllegalArgumentException("未知参数: " + arg);
+        }
+      }
+      return options;
+    }
+
+    private static boolean isPassthrough(String arg) {
+      for (String prefix : PASSTHROUGH) {
+        if (arg.startsWith(prefix)) return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.example.demo1111111.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 向数据库写入压测用的世界和玩家。
+ *
+ * <p>房间排成近似正方形的网格，每 50 个房间一个传送门；玩家名为 lt-1..lt-N，密码都是 lt。 房间表非空时不再生成世界，已存在的玩家不会重复创建。
+ */
+final class LoadWorldSeeder {
+
+  static final String USER_PREFIX = "lt-";
+  static final String PASSWORD = "lt";
+
+  private static final String[] ITEM_NAMES = {"key", "lamp", "sword", "bread", "apple"};
+  private static final boolean[] ITEM_EDIBLE = {false, false, false, true, true};
+  private static final int TELEPORT_EVERY = 50;
+  private static final int BATCH = 1000;
+
+  private final JdbcTemplate jdbc;
+
+  LoadWorldSeeder(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  static boolean isEdible(String itemName) {
+    for (int i = 0; i < ITEM_NAMES.length; i++) {
+      if (ITEM_NAMES[i].equals(itemName)) return ITEM_EDIBLE[i];
+    }
+    return false;
+  }
+
+  /** 写入世界（房间表为空时）和缺少的玩家，返回世界中的房间数 */
+  int seed(int rooms, int users) {
+    Integer existing = jdbc.queryForObject("SELECT COUNT(*) FROM room", Integer.class);
+    int roomCount = existing != null ? existing : 0;
+    if (roomCount == 0) {
+      seedWorld(rooms);
+      roomCount = rooms;
+    } else {
+      System.out.println("数据库中已有 " + roomCount + " 个房间，跳过世界生成");
+    }
+    seedUsers(users, roomCount);
+    return roomCount;
+  }
+
+  private void seedWorld(int size) {
+    List<Object[]> items = new ArrayList<>();
+    for (int i = 0; i < ITEM_NAMES.length; i++) {
+      items.add(new Object[] {i + 1, ITEM_NAMES[i], "一件普通的" + ITEM_NAMES[i], 0.5 + i, ITEM_EDIBLE[i]});
+    }
+    jdbc.batchUpdate(
+        "INSERT INTO item (id, name, description, weight, edible) VALUES (?, ?, ?, ?, ?)", items);
+
+    // 先插入房间，再补出口（出口是指向房间表的外键）
+    int width = Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+    List<Object[]> rooms = new ArrayList<>();
+    List<Object[]> exits = new ArrayList<>();
+    List<Object[]> roomItems = new ArrayList<>();
+    List<Object[]> teleports = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      int id = i + 1;
+      boolean teleport = i % TELEPORT_EVERY == TELEPORT_EVERY - 1;
+      rooms.add(new Object[] {id, "room-" + id, "这是第 " + id + " 个房间", teleport});
+
+      int column = i % width;
+      exits.add(
+          new Object[] {
+            column + 1 < width && i + 1 < size ? id + 1 : null,
+            column > 0 ? id - 1 : null,
+            i - width >= 0 ? id - width : null,
+            i + width < size ? id + width : null,
+            id
+          });
+
+      if (i % 2 == 0) {
+        roomItems.add(new Object[] {id, i % ITEM_NAMES.length + 1, 1 + i % 3});
+      }
+      if (i % 6 == 0) {
+        roomItems.add(new Object[] {id, (i + 2) % ITEM_NAMES.length + 1, 1});
+      }
+      if (teleport) {
+        int first = (i * 7 + 3) % size + 1;
+        int second = (i * 13 + 5) % size + 1;
+        teleports.add(new Object[] {id, first});
+        if (second != first) teleports.add(new Object[] {id, second});
+      }
+    }
+    batch("INSERT INTO room (id, name, description, is_teleport) VALUES (?, ?, ?, ?)", rooms);
+    batch(
+        "UPDATE room SET exit_east = ?, exit_west = ?, exit_north = ?, exit_south = ? WHERE id = ?",
+        exits);
+    batch("INSERT INTO room_item (room_id, item_id, quantity) VALUES (?, ?, ?)", roomItems);
+    batch(
+        "INSERT INTO teleport_destinations (teleport_room_id, destination_room_id) VALUES (?, ?)",
+        teleports);
+    System.out.println("已生成世界: " + size + " 个房间, " + roomItems.size() + " 堆物品");
+  }
+
+  private void seedUsers(int users, int roomCount) {
+    Set<String> existing =
+        new HashSet<>(
+            jdbc.queryForList(
+                "SELECT username FROM users WHERE username LIKE ?", String.class, USER_PREFIX + "%"));
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 1; i <= users; i++) {
+      String username = USER_PREFIX + i;
+      if (!existing.contains(username)) {
+        rows.add(new Object[] {username, PASSWORD, 1 + (i - 1) % roomCount, 50.0});
+      }
+    }
+    batch(
+        "INSERT INTO users (username, password, current_roomid, max_carry_weight)"
+            + " VALUES (?, ?, ?, ?)",
+        rows);
+    System.out.println("已创建压测玩家: " + rows.size() + " 个（已有 " + existing.size() + " 个）");
+  }
+
+  private void batch(String sql, List<Object[]> rows) {
+    for (int from = 0; from < rows.size(); from += BATCH) {
+      jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH, rows.size())));
+    }
+  }
+}
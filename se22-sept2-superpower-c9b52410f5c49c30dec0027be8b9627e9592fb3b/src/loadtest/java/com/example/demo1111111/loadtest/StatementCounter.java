@@ -0,0 +1,158 @@
+package com.example.demo1111111.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 统计应用发出的 JDBC 语句：包装应用的 DataSource，按当前线程所在的分组（通常是命令名）累计。
+ *
+ * <p>execute / executeQuery / executeUpdate 各算一条语句、一次调用；executeBatch 算一次调用，批次中的每一行算一条语句。 开启
+ * rewriteBatchedStatements 时 MySQL 驱动把一个批次合并为一次往返，否则逐行发送，所以两种配置下的往返次数分别接近"调用数"和"语句数"。
+ */
+final class StatementCounter implements BeanPostProcessor {
+
+  /** 不在任何分组中的线程（定时写回等）计入该分组 */
+  static final String BACKGROUND = "(后台)";
+
+  private final ConcurrentMap<String, Counts> groups = new ConcurrentHashMap<>();
+  private final ThreadLocal<String> current = new ThreadLocal<>();
+
+  /** 当前线程之后的语句计入 group，直到 {@link #end()} */
+  void begin(String group) {
+    current.set(group);
+  }
+
+  void end() {
+    current.remove();
+  }
+
+  /** 记录分组的一次操作（没有产生语句也要记，用于计算平均值） */
+  void operation(String group) {
+    groups.computeIfAbsent(group, g -> new Counts()).operations.increment();
+  }
+
+  /** 分组名 -> 统计（按名称排序的快照） */
+  Map<String, Counts> snapshot() {
+    return new TreeMap<>(groups);
+  }
+
+  void reset() {
+    groups.clear();
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+      return new CountingDataSource(dataSource);
+    }
+    return bean;
+  }
+
+  private Counts counts() {
+    String group = current.get();
+    return groups.computeIfAbsent(group != null ? group : BACKGROUND, g -> new Counts());
+  }
+
+  /** 一个分组的累计值 */
+  static final class Counts {
+    final LongAdder operations = new LongAdder();
+    final LongAdder calls = new LongAdder();
+    final LongAdder statements = new LongAdder();
+  }
+
+  private final class CountingDataSource extends DelegatingDataSource {
+    CountingDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+      return (Connection)
+          Proxy.newProxyInstance(
+              Connection.class.getClassLoader(),
+              new Class<?>[] {Connection.class},
+              (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof CallableStatement) {
+                  return wrapStatement(result, CallableStatement.class);
+                }
+                if (result instanceof PreparedStatement) {
+                  return wrapStatement(result, PreparedStatement.class);
+                }
+                if (result instanceof Statement) {
+                  return wrapStatement(result, Statement.class);
+                }
+                return result;
+              });
+    }
+
+    private Object wrapStatement(Object statement, Class<?> type) {
+      return Proxy.newProxyInstance(
+          type.getClassLoader(), new Class<?>[] {type}, new StatementHandler(statement));
+    }
+  }
+
+  private final class StatementHandler implements InvocationHandler {
+    private final Object target;
+    private int pendingRows;
+
+    StatementHandler(Object target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "addBatch" -> pendingRows++;
+        case "clearBatch" -> pendingRows = 0;
+        case "executeBatch", "executeLargeBatch" -> {
+          Counts counts = counts();
+          counts.calls.increment();
+          counts.statements.add(pendingRows);
+          pendingRows = 0;
+        }
+        case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate" -> {
+          Counts counts = counts();
+          counts.calls.increment();
+          counts.statements.increment();
+        }
+        default -> {}
+      }
+      return StatementCounter.invoke(target, method, args);
+    }
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.example.demo1111111.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo1111111.Demo1111111Application;
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.service.CommandDispatcher;
+import com.example.demo1111111.service.GameService;
+import com.example.demo1111111.service.UserWriteBehindQueue;
+import com.example.demo1111111.world.ItemCatalog;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 每条命令发出的 JDBC 语句数：在本进程内启动应用（不启动 Web 服务），模拟玩家按压测的命令比例顺序执行命令， 统计每种命令的平均调用数和语句数，最后手动触发一次异步写回，把写回的语句分摊到全部命令上。
+ *
+ * <p>对比生产持久化配置前后的差别时，分别不带和带 --spring.profiles.active=prod 运行（H2 也能运行，但 MySQL 驱动参数只有连 MySQL 时生效）：
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:exec -Dloadtest.main=com.example.demo1111111.loadtest.StatementsPerCommand \
+ *     -Dloadtest.args="--jdbc-url=jdbc:mysql://localhost:3306/xds_bench --jdbc-user=root --jdbc-password=... --spring.profiles.active=prod"
+ * </pre>
+ *
+ * <p>参数：--users、--rooms、--commands（每个玩家的命令数）、--jdbc-url、--jdbc-user、--jdbc-password；以 --spring.、--game.、--logging.
+ * 开头的参数原样传给应用。
+ */
+public final class StatementsPerCommand {
+
+  private static final String LOGIN = "(登录)";
+  private static final String FLUSH = "(异步写回)";
+
+  public static void main(String[] args) {
+    int users = 50;
+    int rooms = 400;
+    int commands = 200;
+    String jdbcUrl = "jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1;MODE=MYSQL";
+    String jdbcUser = "sa";
+    String jdbcPassword = "";
+    List<String> passthrough = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--spring.") || arg.startsWith("--game.") || arg.startsWith("--logging.")) {
+        passthrough.add(arg);
+        continue;
+      }
+      int eq = arg.indexOf('=');
+      if (!arg.startsWith("--") || eq < 0) {
+        throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+      }
+      String value = arg.substring(eq + 1);
+      switch (arg.substring(2, eq)) {
+        case "users" -> users = Integer.parseInt(value);
+        case "rooms" -> rooms = Integer.parseInt(value);
+        case "commands" -> commands = Integer.parseInt(value);
+        case "jdbc-url" -> jdbcUrl = value;
+        case "jdbc-user" -> jdbcUser = value;
+        case "jdbc-password" -> jdbcPassword = value;
+        default -> throw new IllegalArgumentException("未知参数: " + arg);
+      }
+    }
+
+    StatementCounter counter = new StatementCounter();
+    ConfigurableApplicationContext context =
+        start(counter, jdbcUrl, jdbcUser, jdbcPassword, passthrough);
+    try {
+      new LoadWorldSeeder(context.getBean(JdbcTemplate.class)).seed(rooms, users);
+      context.getBean(WorldGraph.class).reload();
+      context.getBean(ItemCatalog.class).refresh();
+      context.getBean(RoomItemLedger.class).load();
+      counter.reset();
+
+      run(context, counter, users, commands);
+      report(counter, context.getEnvironment().getActiveProfiles());
+    } finally {
+      context.close();
+    }
+  }
+
+  private static void run(
+      ConfigurableApplicationContext context, StatementCounter counter, int users, int commands) {
+    GameService gameService = context.getBean(GameService.class);
+    CommandDispatcher dispatcher = context.getBean(CommandDispatcher.class);
+    ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+    List<VirtualPlayer> players = new ArrayList<>();
+    for (int i = 1; i <= users; i++) {
+      VirtualPlayer player = new VirtualPlayer(LoadWorldSeeder.USER_PREFIX + i, i);
+      counter.begin(LOGIN);
+      try {
+        GameResponse response =
+            gameService.loginUser(player.getUsername(), LoadWorldSeeder.PASSWORD);
+        counter.operation(LOGIN);
+        player.setSessionId(response.getSessionId());
+        player.observe(new VirtualPlayer.Command("login", null), objectMapper.valueToTree(response));
+      } finally {
+        counter.end();
+      }
+      players.add(player);
+    }
+
+    // 所有玩家轮流执行命令，和多人同时在线时的写回积压相近
+    for (int round = 0; round < commands; round++) {
+      for (VirtualPlayer player : players) {
+        VirtualPlayer.Command command = player.next();
+        counter.begin(command.name());
+        try {
+          GameResponse response =
+              dispatcher.processCommand(player.getSessionId(), command.name(), command.parameter());
+          counter.operation(command.name());
+          player.observe(command, objectMapper.valueToTree(response));
+        } finally {
+          counter.end();
+        }
+      }
+    }
+
+    counter.begin(FLUSH);
+    try {
+      context.getBean(UserWriteBehindQueue.class).flush();
+      context.getBean(RoomItemLedger.class).flush();
+      counter.operation(FLUSH);
+    } finally {
+      counter.end();
+    }
+  }
+
+  private static void report(StatementCounter counter, String[] profiles) {
+    Map<String, StatementCounter.Counts> groups = counter.snapshot();
+    System.out.println();
+    System.out.println("配置: " + (profiles.length == 0 ? "默认" : String.join(",", profiles)));
+    System.out.printf("%-12s %8s %12s %12s%n", "命令", "次数", "调用/次", "语句/次");
+
+    long totalCommands = 0;
+    long totalCalls = 0;
+    long totalStatements = 0;
+    for (Map.Entry<String, StatementCounter.Counts> entry : groups.entrySet()) {
+      StatementCounter.Counts counts = entry.getValue();
+      long operations = counts.operations.sum();
+      long calls = counts.calls.sum();
+      long statements = counts.statements.sum();
+      System.out.printf(
+          "%-12s %8d %12.2f %12.2f%n",
+          entry.getKey(),
+          operations,
+          operations > 0 ? (double) calls / operations : 0.0,
+          operations > 0 ? (double) statements / operations : 0.0);
+      if (!entry.getKey().startsWith("(")) {
+        totalCommands += operations;
+      }
+      if (!entry.getKey().equals(LOGIN)) {
+        totalCalls += calls;
+        totalStatements += statements;
+      }
+    }
+    if (totalCommands > 0) {
+      System.out.printf(
+          "全部命令（含异步写回和后台语句的分摊）: 调用 %.2f / 次, 语句 %.2f / 次%n",
+          (double) totalCalls / totalCommands, (double) totalStatements / totalCommands);
+    }
+  }
+
+  private static ConfigurableApplicationContext start(
+      StatementCounter counter,
+      String jdbcUrl,
+      String jdbcUser,
+      String jdbcPassword,
+      List<String> passthrough) {
+    List<String> args = new ArrayList<>();
+    args.add("--spring.main.web-application-type=none");
+    args.add("--spring.datasource.url=" + jdbcUrl);
+    args.add("--spring.datasource.username=" + jdbcUser);
+    args.add("--spring.datasource.password=" + jdbcPassword);
+    if (jdbcUrl.startsWith("jdbc:h2:")) {
+      args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+    }
+    args.add("--spring.jpa.hibernate.ddl-auto=update");
+    // 定时写回由本工具在最后手动触发，避免写回语句落在某条命令上
+    args.add("--game.write-behind.flush-interval-ms=3600000");
+    args.add("--game.room-items.flush-interval-ms=3600000");
+    // 关闭 SQL 和事务的 TRACE/DEBUG 日志（同 LoadGenerator）
+    args.add("--logging.level.org.springframework.transaction=WARN");
+    args.add("--logging.level.org.hibernate.engine.transaction=WARN");
+    args.add("--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    args.add("--logging.level.org.hibernate.SQL=WARN");
+    args.add("--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+    args.add("--logging.level.com.example.demo1111111.service.GameService=INFO");
+    args.addAll(passthrough);
+
+    SpringApplication application = new SpringApplication(Demo1111111Application.class);
+    application.addInitializers(
+        applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(counter));
+    return application.run(args.toArray(new String[0]));
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.demo1111111.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/** 一个模拟玩家：记住最近一次响应里的出口、房间物品和背包，据此按比例选择下一条命令 */
+final class VirtualPlayer {
+
+  /** 一条待发送的命令 */
+  record Command(String name, String parameter) {}
+
+  // 命令比例（合计 100）
+  private static final int LOOK = 30;
+  private static final int GO = 30;
+  private static final int TAKE = 12;
+  private static final int DROP = 10;
+  private static final int ITEMS = 8;
+  private static final int BACK = 7;
+
+  private final String username;
+  private final Random random;
+  private String sessionId;
+  private List<String> exits = Collections.emptyList();
+  private List<String> roomItems = Collections.emptyList();
+  private List<String> inventory = Collections.emptyList();
+  private int moves;
+
+  VirtualPlayer(String username, long seed) {
+    this.username = username;
+    this.random = new Random(seed);
+  }
+
+  String getUsername() {
+    return username;
+  }
+
+  String getSessionId() {
+    return sessionId;
+  }
+
+  void setSessionId(String sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  long nextThinkMillis(long meanMillis) {
+    return meanMillis <= 0 ? 0 : (long) (meanMillis * (0.5 + random.nextDouble()));
+  }
+
+  /** 选择下一条命令；选中的命令当前无法执行时退化为 look */
+  Command next() {
+    int roll = random.nextInt(100);
+    if ((roll -= LOOK) < 0) {
+      return new Command("look", null);
+    }
+    if ((roll -= GO) < 0) {
+      return exits.isEmpty() ? look() : new Command("go", pick(exits));
+    }
+    if ((roll -= TAKE) < 0) {
+      return roomItems.isEmpty() ? look() : new Command("take", pick(roomItems));
+    }
+    if ((roll -= DROP) < 0) {
+      return inventory.isEmpty() ? look() : new Command("drop", pick(inventory));
+    }
+    if ((roll -= ITEMS) < 0) {
+      return new Command("items", null);
+    }
+    if ((roll -= BACK) < 0) {
+      return moves == 0 ? look() : new Command("back", null);
+    }
+    String food = firstEdible();
+    return food == null ? look() : new Command("eat", food);
+  }
+
+  /** 根据响应更新玩家所知的房间和背包 */
+  void observe(Command command, JsonNode response) {
+    if ("go".equals(command.name())) moves++;
+    if ("back".equals(command.name()) && moves > 0) moves--;
+
+    JsonNode room = response.path("currentRoom");
+    if (room.isObject()) {
+      List<String> directions = new ArrayList<>();
+      room.path("exits").fieldNames().forEachRemaining(directions::add);
+      exits = directions;
+      roomItems = names(room.path("items"));
+    }
+    if (response.path("roomItems").isArray()) {
+      roomItems = names(response.path("roomItems"));
+    }
+    if (response.path("inventory").isArray()) {
+      inventory = names(response.path("inventory"));
+    } else if (response.path("playerItems").isArray()) {
+      inventory = names(response.path("playerItems"));
+    }
+  }
+
+  private Command look() {
+    return new Command("look", null);
+  }
+
+  private String pick(List<String> options) {
+    return options.get(random.nextInt(options.size()));
+  }
+
+  private String firstEdible() {
+    for (String name : inventory) {
+      if (LoadWorldSeeder.isEdible(name)) return name;
+    }
+    return null;
+  }
+
+  private static List<String> names(JsonNode array) {
+    List<String> names = new ArrayList<>();
+    for (JsonNode node : array) {
+      String name = node.path("name").asText(null);
+      if (name != null) names.add(name);
+    }
+    return names;
+  }
+}
@@ -2,8 +2,10 @@ package com.example.demo1111111;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Demo1111111Application {
 
   public static void main(String[] args) {
@@ -22,13 +22,8 @@ public class BackCommandHandler implements CommandHandler {
   }
 
   @Override
-  public GameResponse handleCommand(String sessionId, String[] commandParts) {
-    // 参数校验
-    if (commandParts.length > 1) {
-      return GameResponse.failure("back 命令不需要额外参数");
-    }
-
-    // 调用服务层方法，保持原有功能
-    return gameService.processBackCommand(sessionId);
+  public GameResponse handleCommand(String sessionId, String steps) {
+    // 可选的返回步数，由服务层校验
+    return gameService.processBackCommand(sessionId, steps);
   }
 }
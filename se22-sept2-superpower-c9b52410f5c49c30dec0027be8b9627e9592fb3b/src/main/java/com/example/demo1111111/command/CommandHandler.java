@@ -1,11 +1,35 @@
 package com.example.demo1111111.command;
 
+import java.util.List;
+
 import com.example.demo1111111.dto.GameResponse;
 
 public interface CommandHandler {
   // 获取命令名称（如 "go", "take", "drop"）
   String getCommandName();
 
-  // 处理命令的核心方法
-  GameResponse handleCommand(String sessionId, String[] commandParts);
+  // 命令别名，可以带固定参数（如 "n" 即 "go north"）
+  default List<Alias> getAliases() {
+    return List.of();
+  }
+
+  // 只读命令不修改游戏状态，执行后不需要写回状态存储
+  default boolean isReadOnly() {
+    return false;
+  }
+
+  // 成功后背包可能有变化（增量计算时需要重新读取背包）
+  default boolean changesInventory() {
+    return false;
+  }
+
+  // 处理命令的核心方法（parameter 为空时是 null）
+  GameResponse handleCommand(String sessionId, String parameter);
+
+  /** 命令别名：parameter 不为 null 时忽略玩家输入的参数 */
+  record Alias(String name, String parameter) {
+    public static Alias of(String name) {
+      return new Alias(name, null);
+    }
+  }
 }
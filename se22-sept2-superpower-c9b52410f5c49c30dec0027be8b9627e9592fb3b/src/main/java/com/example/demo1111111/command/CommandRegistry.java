@@ -0,0 +1,124 @@
+package com.example.demo1111111.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 命令表：启动时由全部 CommandHandler 构建，命令名和别名 -> 处理器。
+ *
+ * <p>查找表是无冲突的散列数组：构建时换种子直到所有名称落在不同的槽位，查找时按原字符串忽略大小写计算一次散列、比较一次，不创建新字符串。
+ */
+@Component
+public class CommandRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(CommandRegistry.class);
+
+  // 每个表大小最多尝试的种子数，都有冲突时表大小加倍
+  private static final int SEEDS_PER_SIZE = 64;
+
+  private final Command[] table;
+  private final int seed;
+  private final int mask;
+
+  @Autowired
+  public CommandRegistry(List<CommandHandler> handlers) {
+    List<Command> commands = new ArrayList<>();
+    for (CommandHandler handler : handlers) {
+      commands.add(new Command(handler.getCommandName(), handler, null));
+      for (CommandHandler.Alias alias : handler.getAliases()) {
+        commands.add(new Command(alias.name(), handler, alias.parameter()));
+      }
+    }
+    for (int i = 0; i < commands.size(); i++) {
+      for (int j = 0; j < i; j++) {
+        if (commands.get(i).name.equals(commands.get(j).name)) {
+          throw new IllegalStateException("命令名重复: " + commands.get(i).name);
+        }
+      }
+    }
+
+    int size = Integer.highestOneBit(Math.max(4, commands.size() * 2) - 1) << 1;
+    int candidate = 0;
+    Command[] slots;
+    while ((slots = place(commands, size, candidate)) == null) {
+      if (++candidate == SEEDS_PER_SIZE) {
+        candidate = 0;
+        size <<= 1;
+      }
+    }
+    this.table = slots;
+    this.seed = candidate;
+    this.mask = size - 1;
+    logger.info("命令表已构建: {} 个命令名, 表大小 {}", commands.size(), size);
+  }
+
+  /** 按命令名或别名查找（忽略大小写和首尾空格），未知命令返回 null */
+  public Command find(String name) {
+    if (name == null) return null;
+    int start = 0;
+    int end = name.length();
+    while (start < end && name.charAt(start) <= ' ') start++;
+    while (end > start && name.charAt(end - 1) <= ' ') end--;
+    Command command = table[hash(name, start, end, seed) & mask];
+    return command != null && command.matches(name, start, end) ? command : null;
+  }
+
+  // 全部名称放入 size 大小的表，有冲突时返回 null
+  private static Command[] place(List<Command> commands, int size, int seed) {
+    Command[] slots = new Command[size];
+    for (Command command : commands) {
+      int slot = hash(command.name, 0, command.name.length(), seed) & (size - 1);
+      if (slots[slot] != null) return null;
+      slots[slot] = command;
+    }
+    return slots;
+  }
+
+  private static int hash(String name, int start, int end, int seed) {
+    int h = seed * 0x9E3779B9;
+    for (int i = start; i < end; i++) {
+      h = (h ^ Character.toLowerCase(name.charAt(i))) * 0x01000193;
+    }
+    return h ^ (h >>> 16);
+  }
+
+  /** 命令表中的一项：命令名或别名，以及别名带的固定参数 */
+  public static final class Command {
+    private final String name;
+    private final CommandHandler handler;
+    private final String parameter;
+
+    Command(String name, CommandHandler handler, String parameter) {
+      this.name = name.toLowerCase();
+      this.handler = handler;
+      this.parameter = parameter;
+    }
+
+    /** 处理器的命令名（别名也返回原命令名） */
+    public String getCommandName() {
+      return handler.getCommandName();
+    }
+
+    public CommandHandler getHandler() {
+      return handler;
+    }
+
+    /** 本次执行的参数：别名带固定参数时用固定参数，否则用玩家输入的参数（空白视为没有） */
+    public String parameterFor(String input) {
+      if (parameter != null) return parameter;
+      return input == null || input.isBlank() ? null : input.trim();
+    }
+
+    private boolean matches(String input, int start, int end) {
+      if (end - start != name.length()) return false;
+      for (int i = start; i < end; i++) {
+        if (Character.toLowerCase(input.charAt(i)) != name.charAt(i - start)) return false;
+      }
+      return true;
+    }
+  }
+}
@@ -22,11 +22,15 @@ public class DropCommandHandler implements CommandHandler {
   }
 
   @Override
-  public GameResponse handleCommand(String sessionId, String[] commandParts) {
-    if (commandParts.length < 2) {
-      return GameResponse.failure("请指定要丢弃的物品名称");
+  public boolean changesInventory() {
+    return true;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String itemName) {
+    if (itemName == null) {
+      return GameResponse.failure("必须指定要丢弃的物品名称");
     }
-    String itemName = commandParts[1];
     return gameService.processDropCommand(sessionId, itemName);
   }
 }
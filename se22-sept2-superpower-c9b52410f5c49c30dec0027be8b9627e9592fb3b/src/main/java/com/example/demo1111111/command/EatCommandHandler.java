@@ -0,0 +1,36 @@
+package com.example.demo1111111.command;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.service.GameService;
+
+@Component
+public class EatCommandHandler implements CommandHandler {
+
+  private final GameService gameService;
+
+  @Autowired
+  public EatCommandHandler(GameService gameService) {
+    this.gameService = gameService;
+  }
+
+  @Override
+  public String getCommandName() {
+    return "eat";
+  }
+
+  @Override
+  public boolean changesInventory() {
+    return true;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String itemName) {
+    if (itemName == null) {
+      return GameResponse.failure("必须指定要食用的物品名称");
+    }
+    return gameService.processEatCommand(sessionId, itemName);
+  }
+}
@@ -1,5 +1,7 @@
 package com.example.demo1111111.command;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -9,6 +11,13 @@ import com.example.demo1111111.service.GameService;
 @Component
 public class GoCommandHandler implements CommandHandler {
 
+  private static final List<Alias> ALIASES =
+      List.of(
+          new Alias("e", "east"),
+          new Alias("w", "west"),
+          new Alias("n", "north"),
+          new Alias("s", "south"));
+
   private final GameService gameService;
 
   @Autowired
@@ -22,15 +31,17 @@ public class GoCommandHandler implements CommandHandler {
   }
 
   @Override
-  public GameResponse handleCommand(String sessionId, String[] commandParts) {
+  public List<Alias> getAliases() {
+    return ALIASES;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String direction) {
     // 参数校验 - 保持原有逻辑
-    if (commandParts.length < 2) {
+    if (direction == null) {
       return GameResponse.failure("必须指定移动方向");
     }
 
-    // 获取方向参数 - 保持原有逻辑
-    String direction = commandParts[1];
-
     // 调用服务层方法，保持原有功能
     return gameService.processGoCommand(sessionId, direction);
   }
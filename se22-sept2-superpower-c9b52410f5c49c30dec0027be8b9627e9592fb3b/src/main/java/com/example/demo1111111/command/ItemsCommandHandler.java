@@ -0,0 +1,40 @@
+package com.example.demo1111111.command;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.service.GameService;
+
+@Component
+public class ItemsCommandHandler implements CommandHandler {
+
+  private final GameService gameService;
+
+  @Autowired
+  public ItemsCommandHandler(GameService gameService) {
+    this.gameService = gameService;
+  }
+
+  @Override
+  public String getCommandName() {
+    return "items";
+  }
+
+  @Override
+  public List<Alias> getAliases() {
+    return List.of(Alias.of("i"));
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String parameter) {
+    return gameService.processItemsCommand(sessionId);
+  }
+}
@@ -1,5 +1,7 @@
 package com.example.demo1111111.command;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -22,13 +24,18 @@ public class LookCommandHandler implements CommandHandler {
   }
 
   @Override
-  public GameResponse handleCommand(String sessionId, String[] commandParts) {
-    // 参数校验
-    if (commandParts.length > 1) {
-      return GameResponse.failure("look 命令不需要额外参数");
-    }
+  public List<Alias> getAliases() {
+    return List.of(Alias.of("l"));
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
 
-    // 调用服务层方法，保持原有功能
+  @Override
+  public GameResponse handleCommand(String sessionId, String parameter) {
+    // 参数忽略（与原有行为一致）
     return gameService.processLookCommand(sessionId);
   }
 }
@@ -0,0 +1,33 @@
+package com.example.demo1111111.command;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.service.GameService;
+
+@Component
+public class PathCommandHandler implements CommandHandler {
+
+  private final GameService gameService;
+
+  @Autowired
+  public PathCommandHandler(GameService gameService) {
+    this.gameService = gameService;
+  }
+
+  @Override
+  public String getCommandName() {
+    return "path";
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String parameter) {
+    return gameService.processPathCommand(sessionId);
+  }
+}
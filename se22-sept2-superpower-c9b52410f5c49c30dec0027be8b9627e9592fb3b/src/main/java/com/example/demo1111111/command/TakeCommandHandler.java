@@ -1,14 +1,12 @@
 package com.example.demo1111111.command;
 
-// 添加此行
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.example.demo1111111.dto.GameResponse;
 import com.example.demo1111111.service.GameService;
 
-@Component("take")
+@Component
 public class TakeCommandHandler implements CommandHandler {
 
   private final GameService gameService;
@@ -24,11 +22,15 @@ public class TakeCommandHandler implements CommandHandler {
   }
 
   @Override
-  public GameResponse handleCommand(String sessionId, String[] commandParts) {
-    if (commandParts.length < 2) {
-      return GameResponse.failure("请指定要拾取的物品名称");
+  public boolean changesInventory() {
+    return true;
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String itemName) {
+    if (itemName == null) {
+      return GameResponse.failure("必须指定要拾取的物品名称");
     }
-    String itemName = commandParts[1];
     return gameService.processTakeCommand(sessionId, itemName);
   }
 }
@@ -0,0 +1,28 @@
+package com.example.demo1111111.command;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.service.GameService;
+
+@Component
+public class TravelCommandHandler implements CommandHandler {
+
+  private final GameService gameService;
+
+  @Autowired
+  public TravelCommandHandler(GameService gameService) {
+    this.gameService = gameService;
+  }
+
+  @Override
+  public String getCommandName() {
+    return "travel";
+  }
+
+  @Override
+  public GameResponse handleCommand(String sessionId, String destination) {
+    return gameService.processTravelCommand(sessionId, destination);
+  }
+}
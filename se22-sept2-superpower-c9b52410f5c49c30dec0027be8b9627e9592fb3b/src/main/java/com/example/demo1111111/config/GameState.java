@@ -1,59 +1,43 @@
 package com.example.demo1111111.config;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Stack;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
-import org.hibernate.Hibernate;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.example.demo1111111.entity.Item;
 import com.example.demo1111111.entity.RoomEntity;
 
 import lombok.Data;
 
 @Data
 public class GameState implements Serializable {
+  // 每条命令都会调用这里的方法，调试日志先判断级别，关闭时不装箱参数
   private static final Logger logger = LoggerFactory.getLogger(GameState.class);
 
   private String sessionId;
-  private RoomEntity currentRoom;
+  // 当前房间ID（房间数据由 WorldGraph 提供，这里不再持有实体）
+  private Integer currentRoomId;
   private boolean gameOver = false;
-  private List<Item> inventory = new ArrayList<>();
-
-  // 物品名称到ID的映射
-  private final ConcurrentMap<String, Integer> itemNameToIdMap = new ConcurrentHashMap<>();
-
-  // 完整物品缓存
-  private final ConcurrentMap<Integer, Item> itemCache = new ConcurrentHashMap<>();
+  // 背包：物品ID -> 数量，物品详情见 ItemCatalog
+  private Inventory inventory = new Inventory();
 
-  // 最后房间ID（用于状态恢复）
-  private Integer lastRoomId;
-
-  // 房间历史栈
-  private Stack<RoomEntity> roomHistory = new Stack<>();
+  // 房间历史（房间ID，定长环形缓冲区）
+  private RoomHistory roomHistory = new RoomHistory();
 
   // 全参数构造方法
   public GameState(
-      String sessionId, RoomEntity currentRoom, List<Item> inventory, boolean gameOver) {
+      String sessionId, RoomEntity currentRoom, Inventory inventory, boolean gameOver) {
     this.sessionId = sessionId;
-    this.currentRoom = currentRoom;
-    this.lastRoomId = currentRoom != null ? currentRoom.getId() : null;
-    this.inventory = inventory != null ? new ArrayList<>(inventory) : new ArrayList<>();
+    this.currentRoomId = currentRoom != null ? currentRoom.getId() : null;
+    this.inventory = inventory != null ? inventory : new Inventory();
     this.gameOver = gameOver;
 
-    // 初始化物品映射和缓存
-    rebuildItemMappings();
-
-    logger.debug(
-        "创建GameState: sessionId={}, room={}",
-        sessionId,
-        currentRoom != null ? currentRoom.getName() : "null");
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "创建GameState: sessionId={}, room={}",
+          sessionId,
+          currentRoom != null ? currentRoom.getName() : "null");
+    }
   }
 
   // 简化构造方法
@@ -66,82 +50,39 @@ public class GameState implements Serializable {
   // ======================
 
   /**
-   * 移动到新房间（记录历史）
+   * 移动到新房间（历史由调用方通过 pushRoomToHistory 记录）
    *
-   * @param newRoom 要移动到的房间
+   * @param roomId 要移动到的房间ID
    */
-  public void moveToNewRoom(RoomEntity newRoom) {
-    if (newRoom == null) {
-      logger.warn("试图移动到null房间");
-      return;
-    }
-
-    // 记录当前房间到历史（如果有）
-    if (currentRoom != null) {
-      RoomEntity currentSnapshot = createRoomSnapshot(currentRoom);
-      // roomHistory.push(currentSnapshot);
-      logger.debug("记录历史房间: {} -> {}", currentSnapshot.getName(), getHistoryStackAsString());
-    }
-
-    // 设置新房间
-    this.currentRoom = newRoom;
-    this.lastRoomId = newRoom.getId();
-    logger.debug("移动到新房间: {}", newRoom.getName());
+  public void moveToNewRoom(int roomId) {
+    this.currentRoomId = roomId;
+    if (logger.isDebugEnabled()) logger.debug("移动到新房间: {}", roomId);
   }
 
   /**
    * 返回到历史房间（不记录历史）
    *
-   * @param room 要返回到的历史房间
+   * @param roomId 要返回到的历史房间ID
    */
-  public void moveBackToRoom(RoomEntity room) {
-    if (room == null) {
-      logger.warn("试图返回到null房间");
-      return;
-    }
-
-    this.currentRoom = room;
-    this.lastRoomId = room.getId();
-    logger.debug("返回到历史房间: {}", room.getName());
+  public void moveBackToRoom(int roomId) {
+    this.currentRoomId = roomId;
+    if (logger.isDebugEnabled()) logger.debug("返回到历史房间: {}", roomId);
   }
 
   /**
    * 设置当前房间（不记录历史）
    *
-   * @param room 要设置的房间
+   * @param roomId 要设置的房间ID
    */
-  public void setCurrentRoomWithoutHistory(RoomEntity room) {
-    if (room == null) {
-      logger.warn("试图设置null房间");
-      return;
-    }
-
-    this.currentRoom = room;
-    this.lastRoomId = room.getId();
-    logger.debug("设置当前房间: {} 不记录历史", room.getName());
+  public void setCurrentRoomWithoutHistory(int roomId) {
+    this.currentRoomId = roomId;
+    if (logger.isDebugEnabled()) logger.debug("设置当前房间: {} 不记录历史", roomId);
   }
 
   // ======================
   // 历史管理方法
   // ======================
 
-  /**
-   * 创建房间的快照副本
-   *
-   * @param room 要创建快照的房间
-   * @return 房间快照
-   */
-  private RoomEntity createRoomSnapshot(RoomEntity room) {
-    if (room == null) return null;
-
-    RoomEntity snapshot = new RoomEntity();
-    snapshot.setId(room.getId());
-    snapshot.setName(room.getName());
-    snapshot.setDescription(room.getDescription());
-
-    return snapshot;
-  }
-
   /**
    * 获取历史栈状态字符串
    *
@@ -149,68 +90,42 @@ public class GameState implements Serializable {
    */
   public String getHistoryStackAsString() {
     if (roomHistory.isEmpty()) return "空";
-
-    List<String> names = new ArrayList<>();
-    for (int i = 0; i < roomHistory.size(); i++) {
-      names.add(roomHistory.get(i).getName());
-    }
-    return "[" + String.join(", ", names) + "]";
+    return roomHistory.toString();
   }
 
   /**
    * 从历史栈中弹出上一个房间
    *
-   * @return 上一个房间
+   * @return 上一个房间ID，历史为空时返回 null
    */
-  public RoomEntity popRoomFromHistory() {
-    if (!roomHistory.isEmpty()) {
-      RoomEntity room = roomHistory.pop();
-      logger.debug("弹出历史房间: {}", room.getName());
-      return room;
-    }
-    logger.debug("历史栈已空");
-    return null;
+  public Integer popRoomFromHistory() {
+    return rewindRoomHistory(1);
   }
 
   /**
-   * 添加房间到历史栈
+   * 一次返回多步：弹出最近的 steps 条历史
    *
-   * @param room 要添加到历史的房间
+   * @param steps 返回的步数
+   * @return 要返回到的房间ID，历史不足 steps 条时返回 null（历史不变）
    */
-  public void pushRoomToHistory(RoomEntity room) {
-    if (room != null) {
-      RoomEntity snapshot = createRoomSnapshot(room);
-      roomHistory.push(snapshot);
-      logger.debug("添加到历史栈: {}", room.getName());
+  public Integer rewindRoomHistory(int steps) {
+    int roomId = roomHistory.rewind(steps);
+    if (roomId == RoomHistory.NONE) {
+      if (logger.isDebugEnabled()) logger.debug("历史不足 {} 步", steps);
+      return null;
     }
+    if (logger.isDebugEnabled()) logger.debug("返回 {} 步到历史房间: {}", steps, roomId);
+    return roomId;
   }
 
   /**
-   * 初始化房间关联
+   * 添加房间到历史栈（超出深度时丢弃最早的记录）
    *
-   * @param room 要初始化的房间
+   * @param roomId 要添加到历史的房间ID
    */
-  public void initializeRoomAssociations(RoomEntity room) {
-    if (room == null) return;
-
-    try {
-      // 初始化方向关联
-      if (room.getExitEast() != null) Hibernate.initialize(room.getExitEast());
-      if (room.getExitWest() != null) Hibernate.initialize(room.getExitWest());
-      if (room.getExitNorth() != null) Hibernate.initialize(room.getExitNorth());
-      if (room.getExitSouth() != null) Hibernate.initialize(room.getExitSouth());
-
-      // 初始化房间物品
-      if (room.getRoomItems() != null) {
-        for (var roomItem : room.getRoomItems()) {
-          if (roomItem.getItem() != null) {
-            Hibernate.initialize(roomItem.getItem());
-          }
-        }
-      }
-    } catch (Exception e) {
-      logger.error("初始化房间关联失败", e);
-    }
+  public void pushRoomToHistory(int roomId) {
+    roomHistory.push(roomId);
+    if (logger.isDebugEnabled()) logger.debug("添加到历史栈: {}", roomId);
   }
 
   /**
@@ -223,122 +138,30 @@ public class GameState implements Serializable {
   }
 
   /**
-   * 获取房间历史栈大小
-   *
-   * @return 历史栈大小
-   */
-  public int getRoomHistorySize() {
-    return roomHistory.size();
-  }
-
-  // ======================
-  // 物品管理方法
-  // ======================
-
-  /** 重建物品映射关系 */
-  public void rebuildItemMappings() {
-    itemNameToIdMap.clear();
-    itemCache.clear();
-
-    if (inventory != null) {
-      for (Item item : inventory) {
-        if (item.getName() != null) {
-          itemNameToIdMap.put(item.getName().toLowerCase(), item.getId());
-          itemCache.put(item.getId(), item);
-        }
-      }
-    }
-
-    logger.debug("重建物品映射: {} 件物品", inventory.size());
-  }
-
-  /**
-   * 在库存中查找物品
+   * 房间历史（从最早到最近）
    *
-   * @param itemName 物品名称
-   * @return 找到的物品
+   * @return 历史房间ID数组
    */
-  public Optional<Item> findItemInInventory(String itemName) {
-    if (itemName == null || itemName.trim().isEmpty()) {
-      return Optional.empty();
-    }
-
-    String normalized = itemName.toLowerCase().trim();
-
-    // 首先检查名称->ID映射
-    Integer itemId = itemNameToIdMap.get(normalized);
-    if (itemId != null) {
-      return Optional.ofNullable(itemCache.get(itemId));
-    }
-
-    // 尝试直接匹配
-    return inventory.stream()
-        .filter(item -> item.getName() != null)
-        .filter(item -> item.getName().equalsIgnoreCase(normalized))
-        .findFirst();
+  public int[] getRoomHistoryIds() {
+    return roomHistory.toArray();
   }
 
   /**
-   * 通过ID查找物品
-   *
-   * @param itemId 物品ID
-   * @return 找到的物品
-   */
-  public Optional<Item> findItemById(Integer itemId) {
-    return Optional.ofNullable(itemCache.get(itemId));
-  }
-
-  /**
-   * 添加物品到库存
-   *
-   * @param item 要添加的物品
-   */
-  public void addToInventory(Item item) {
-    if (item == null) return;
-
-    // 确保物品不在库存中
-    if (findItemById(item.getId()).isPresent()) {
-      return;
-    }
-
-    inventory.add(item);
-
-    // 更新映射和缓存
-    if (item.getName() != null) {
-      itemNameToIdMap.put(item.getName().toLowerCase(), item.getId());
-    }
-    itemCache.put(item.getId(), item);
-
-    logger.debug("添加到库存: {}", item.getName());
-  }
-
-  /**
-   * 从库存中移除物品
+   * 获取房间历史栈大小
    *
-   * @param item 要移除的物品
+   * @return 历史栈大小
    */
-  public void removeFromInventory(Item item) {
-    if (item == null) return;
-
-    inventory.removeIf(i -> i.getId().equals(item.getId()));
-
-    // 更新映射和缓存
-    if (item.getName() != null) {
-      itemNameToIdMap.remove(item.getName().toLowerCase());
-    }
-    itemCache.remove(item.getId());
-
-    logger.debug("从库存移除: {}", item.getName());
+  public int getRoomHistorySize() {
+    return roomHistory.size();
   }
 
   /**
-   * 通过ID从库存中移除物品
+   * 修改最多记录的历史步数，保留最近的记录
    *
-   * @param itemId 物品ID
+   * @param depth 历史深度
    */
-  public void removeFromInventoryById(Integer itemId) {
-    Optional<Item> item = findItemById(itemId);
-    item.ifPresent(this::removeFromInventory);
+  public void setRoomHistoryDepth(int depth) {
+    this.roomHistory = roomHistory.withDepth(depth);
   }
 
   // ======================
@@ -353,13 +176,12 @@ public class GameState implements Serializable {
     this.sessionId = sessionId;
   }
 
-  public RoomEntity getCurrentRoom() {
-    return currentRoom;
+  public Integer getCurrentRoomId() {
+    return currentRoomId;
   }
 
-  public void setCurrentRoom(RoomEntity currentRoom) {
-    this.currentRoom = currentRoom;
-    this.lastRoomId = currentRoom != null ? currentRoom.getId() : null;
+  public void setCurrentRoomId(Integer currentRoomId) {
+    this.currentRoomId = currentRoomId;
   }
 
   public boolean isGameOver() {
@@ -370,22 +192,13 @@ public class GameState implements Serializable {
     this.gameOver = gameOver;
   }
 
-  public List<Item> getInventory() {
+  public Inventory getInventory() {
     return inventory;
   }
 
-  public void setInventory(List<Item> inventory) {
-    this.inventory = inventory != null ? new ArrayList<>(inventory) : new ArrayList<>();
-    rebuildItemMappings();
-
-    logger.debug("更新库存: {} 件物品", this.inventory.size());
-  }
-
-  public Integer getLastRoomId() {
-    return lastRoomId;
-  }
+  public void setInventory(Inventory inventory) {
+    this.inventory = inventory != null ? inventory : new Inventory();
 
-  public void setLastRoomId(Integer lastRoomId) {
-    this.lastRoomId = lastRoomId;
+    if (logger.isDebugEnabled()) logger.debug("更新库存: {} 种物品", this.inventory.size());
   }
 }
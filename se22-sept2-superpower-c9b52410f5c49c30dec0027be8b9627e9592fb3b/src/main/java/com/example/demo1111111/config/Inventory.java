@@ -0,0 +1,156 @@
+package com.example.demo1111111.config;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.example.demo1111111.entity.Item;
+
+/**
+ * 玩家背包：物品ID -> 数量，全部存放在原始 int 数组中，总重量随增减同步维护。
+ *
+ * <p>物品按放入顺序保存在紧凑数组里，另有一张开放寻址的散列表指向数组下标，查数量和增减都是 O(1)。物品详情不在这里保存，按 ID 到共享的物品目录中查找。
+ *
+ * <p>和 GameState 一样只由会话的命令队列线程修改，不做同步。
+ */
+public final class Inventory implements Serializable {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  // 按放入顺序排列的物品ID和数量
+  private int[] itemIds = new int[INITIAL_CAPACITY];
+  private int[] quantities = new int[INITIAL_CAPACITY];
+  private int size;
+
+  // 散列槽位，存放 (下标 + 1)，0 表示空槽；长度为 2 的幂且至少是容量的 2 倍
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+  private double totalWeight;
+
+  /** 物品数量，没有该物品返回 0 */
+  public int quantityOf(int itemId) {
+    int index = indexOf(itemId);
+    return index < 0 ? 0 : quantities[index];
+  }
+
+  public boolean contains(int itemId) {
+    return indexOf(itemId) >= 0;
+  }
+
+  /** 放入一个物品 */
+  public void add(Item item) {
+    add(item, 1);
+  }
+
+  /** 放入若干个同一物品 */
+  public void add(Item item, int quantity) {
+    if (item == null || quantity <= 0) return;
+    int itemId = item.getId();
+    int index = indexOf(itemId);
+    if (index >= 0) {
+      quantities[index] += quantity;
+    } else {
+      if (size == itemIds.length) grow();
+      itemIds[size] = itemId;
+      quantities[size] = quantity;
+      size++;
+      insertSlot(itemId, size - 1);
+    }
+    totalWeight += item.getWeight() * quantity;
+  }
+
+  /**
+   * 取出一个物品，数量减到 0 时移除该物品
+   *
+   * @return 背包里没有该物品时返回 false
+   */
+  public boolean remove(Item item) {
+    if (item == null) return false;
+    int index = indexOf(item.getId());
+    if (index < 0) return false;
+
+    if (quantities[index] > 1) {
+      quantities[index]--;
+      totalWeight -= item.getWeight();
+    } else {
+      // 保持放入顺序：后面的物品前移，再重建散列表（背包很小，代价可以忽略）
+      System.arraycopy(itemIds, index + 1, itemIds, index, size - index - 1);
+      System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+      size--;
+      rehash(slots.length);
+      totalWeight = size == 0 ? 0.0 : totalWeight - item.getWeight();
+    }
+    return true;
+  }
+
+  /** 当前总重量（每种物品的重量 × 数量之和） */
+  public double getTotalWeight() {
+    return totalWeight;
+  }
+
+  /** 物品种类数 */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** 第 index 种物品的ID（按放入顺序） */
+  public int itemIdAt(int index) {
+    return itemIds[index];
+  }
+
+  /** 第 index 种物品的数量（按放入顺序） */
+  public int quantityAt(int index) {
+    return quantities[index];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(itemIds[i]).append('x').append(quantities[i]);
+    }
+    return sb.append('}').toString();
+  }
+
+  private int indexOf(int itemId) {
+    int mask = slots.length - 1;
+    for (int slot = mix(itemId) & mask; ; slot = (slot + 1) & mask) {
+      int entry = slots[slot];
+      if (entry == 0) return -1;
+      if (itemIds[entry - 1] == itemId) return entry - 1;
+    }
+  }
+
+  private void insertSlot(int itemId, int index) {
+    int mask = slots.length - 1;
+    int slot = mix(itemId) & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = index + 1;
+  }
+
+  private void grow() {
+    int capacity = itemIds.length * 2;
+    itemIds = Arrays.copyOf(itemIds, capacity);
+    quantities = Arrays.copyOf(quantities, capacity);
+    rehash(capacity * 2);
+  }
+
+  private void rehash(int slotCount) {
+    slots = new int[slotCount];
+    for (int i = 0; i < size; i++) {
+      insertSlot(itemIds[i], i);
+    }
+  }
+
+  // 打散连续的自增ID
+  private static int mix(int value) {
+    int h = value * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
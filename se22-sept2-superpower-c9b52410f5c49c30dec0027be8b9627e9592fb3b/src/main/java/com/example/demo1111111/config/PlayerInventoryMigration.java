@@ -0,0 +1,87 @@
+package com.example.demo1111111.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 启动时合并 player_inventory 中重复的 (user_id, item_id) 记录。
+ *
+ * <p>唯一索引 uk_player_inventory_user_item 由 ddl-auto=update 补建，表中已有重复记录时建索引会失败并被跳过，拾取时的 upsert
+ * 就会继续插入新行。这里在 EntityManagerFactory 初始化（即 Hibernate 更新表结构）之前运行：同一玩家同一物品的记录合并到 ID
+ * 最小的一条，数量相加，其余删除。表还不存在（新库）时什么也不做。
+ */
+@Configuration
+public class PlayerInventoryMigration {
+  private static final Logger logger = LoggerFactory.getLogger(PlayerInventoryMigration.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public PlayerInventoryMigration(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  // Hibernate 更新表结构之前先完成合并
+  @Bean
+  static EntityManagerFactoryDependsOnPostProcessor playerInventoryMigrationDependency() {
+    return new EntityManagerFactoryDependsOnPostProcessor(PlayerInventoryMigration.class);
+  }
+
+  @PostConstruct
+  public void migrate() {
+    mergeDuplicates();
+  }
+
+  /** 合并重复记录，返回合并的 (user_id, item_id) 组数 */
+  public int mergeDuplicates() {
+    List<Duplicate> duplicates;
+    try {
+      duplicates =
+          jdbcTemplate.query(
+              "SELECT user_id, item_id, MIN(id), SUM(quantity) FROM player_inventory"
+                  + " WHERE user_id IS NOT NULL AND item_id IS NOT NULL"
+                  + " GROUP BY user_id, item_id HAVING COUNT(*) > 1",
+              (rs, row) -> new Duplicate(rs.getLong(1), rs.getInt(2), rs.getLong(3), rs.getInt(4)));
+    } catch (BadSqlGrammarException e) {
+      // 新库：表随后由 Hibernate 创建
+      return 0;
+    }
+    if (duplicates.isEmpty()) {
+      return 0;
+    }
+
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (Duplicate duplicate : duplicates) {
+            jdbcTemplate.update(
+                "UPDATE player_inventory SET quantity = ? WHERE id = ?",
+                duplicate.total(),
+                duplicate.keepId());
+            jdbcTemplate.update(
+                "DELETE FROM player_inventory WHERE user_id = ? AND item_id = ? AND id <> ?",
+                duplicate.userId(),
+                duplicate.itemId(),
+                duplicate.keepId());
+          }
+        });
+    logger.warn("合并了 {} 组重复的背包记录", duplicates.size());
+    return duplicates.size();
+  }
+
+  private record Duplicate(long userId, int itemId, long keepId, int total) {}
+}
@@ -0,0 +1,66 @@
+package com.example.demo1111111.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 只读副本：配置了 game.datasource.replica.url 时，只读事务（会话冷加载）的语句发往副本，其余仍发往主库。look、items 只读内存，不开启事务。
+ *
+ * <p>应用使用的数据源是 LazyConnectionDataSourceProxy：事务开始时只记下连接的只读标记，执行第一条语句时才按标记从主库或副本的连接池取连接。
+ */
+@Configuration
+@ConditionalOnProperty(name = "game.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+  // 主库连接池，沿用 spring.datasource.* 和 spring.datasource.hikari.*
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  // 副本连接池，连接池参数用 game.datasource.replica.hikari.*，账号未配置时与主库相同
+  @Bean
+  @ConfigurationProperties("game.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      DataSourceProperties properties,
+      @Value("${game.datasource.replica.url}") String url,
+      @Value("${game.datasource.replica.username:${spring.datasource.username:}}") String username,
+      @Value("${game.datasource.replica.password:${spring.datasource.password:}}")
+          String password) {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(url);
+    dataSource.setUsername(username);
+    dataSource.setPassword(password);
+    if (properties.getDriverClassName() != null) {
+      dataSource.setDriverClassName(properties.getDriverClassName());
+    }
+    dataSource.setReadOnly(true);
+    dataSource.setPoolName("replica");
+    return dataSource;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica) {
+    LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+    proxy.setReadOnlyDataSource(replica);
+    return proxy;
+  }
+}
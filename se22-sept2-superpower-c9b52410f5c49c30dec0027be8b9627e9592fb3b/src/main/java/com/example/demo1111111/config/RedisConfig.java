@@ -1,21 +1,25 @@
-// package com.example.demo.config;
-//
-// import org.springframework.context.annotation.Bean;
-// import org.springframework.context.annotation.Configuration;
-// import org.springframework.data.redis.connection.RedisConnectionFactory;
-// import org.springframework.data.redis.core.RedisTemplate;
-// import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-// import org.springframework.data.redis.serializer.StringRedisSerializer;
-//
-// @Configuration
-// public class RedisConfig {
-//    @Bean
-//    public RedisTemplate<String, GameState> redisTemplate(RedisConnectionFactory
-// connectionFactory) {
-//        RedisTemplate<String, GameState> template = new RedisTemplate<>();
-//        template.setConnectionFactory(connectionFactory);
-//        template.setKeySerializer(new StringRedisSerializer());
-//        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-//        return template;
-//    }
-// }
+package com.example.demo1111111.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/** 游戏状态存放在 Redis 时使用的模板：键为字符串，值为 GameStateCodec 编码后的字节 */
+@Configuration
+@ConditionalOnProperty(name = "game.state-store.type", havingValue = "redis")
+public class RedisConfig {
+
+  @Bean
+  public RedisTemplate<String, byte[]> gameStateRedisTemplate(
+      RedisConnectionFactory connectionFactory) {
+    RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(RedisSerializer.string());
+    template.setValueSerializer(RedisSerializer.byteArray());
+    template.setEnableDefaultSerializer(false);
+    return template;
+  }
+}
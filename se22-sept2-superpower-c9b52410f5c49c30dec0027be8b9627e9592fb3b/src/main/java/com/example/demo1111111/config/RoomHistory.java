@@ -0,0 +1,117 @@
+package com.example.demo1111111.config;
+
+import java.io.Serializable;
+
+/**
+ * 定长的房间历史：房间ID环形缓冲区，记满后覆盖最早的记录。
+ *
+ * <p>入栈、出栈和多步返回都是 O(1) 且不创建对象，长时间在线的会话占用的内存也不会增长。和 GameState 一样只由会话的命令队列线程修改，不做同步。
+ */
+public final class RoomHistory implements Serializable {
+
+  /** 默认最多记录的步数 */
+  public static final int DEFAULT_DEPTH = 64;
+
+  /** 历史不足时 pop / rewind 的返回值 */
+  public static final int NONE = -1;
+
+  private final int[] roomIds;
+  // 最早一条记录的下标
+  private int head;
+  private int size;
+
+  public RoomHistory() {
+    this(DEFAULT_DEPTH);
+  }
+
+  public RoomHistory(int depth) {
+    if (depth < 1) throw new IllegalArgumentException("历史深度必须大于 0: " + depth);
+    this.roomIds = new int[depth];
+  }
+
+  /** 记录一个房间，已满时丢弃最早的记录 */
+  public void push(int roomId) {
+    if (size == roomIds.length) {
+      roomIds[head] = roomId;
+      head = next(head);
+    } else {
+      roomIds[index(size)] = roomId;
+      size++;
+    }
+  }
+
+  /** 弹出最近的房间，历史为空时返回 NONE */
+  public int pop() {
+    return rewind(1);
+  }
+
+  /**
+   * 一次返回 steps 步：弹出最近的 steps 条记录
+   *
+   * @return 第 steps 条（即要返回到的）房间ID；历史不足 steps 条时不做修改，返回 NONE
+   */
+  public int rewind(int steps) {
+    if (steps < 1 || steps > size) return NONE;
+    size -= steps;
+    return roomIds[index(size)];
+  }
+
+  /** 往回第 steps 步的房间（1 为最近一条），不修改历史；超出范围返回 NONE */
+  public int peek(int steps) {
+    if (steps < 1 || steps > size) return NONE;
+    return roomIds[index(size - steps)];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** 最多记录的步数 */
+  public int depth() {
+    return roomIds.length;
+  }
+
+  /** 历史房间ID（从最早到最近） */
+  public int[] toArray() {
+    int[] ids = new int[size];
+    int first = Math.min(size, roomIds.length - head);
+    System.arraycopy(roomIds, head, ids, 0, first);
+    System.arraycopy(roomIds, 0, ids, first, size - first);
+    return ids;
+  }
+
+  /** 改为新的深度，保留最近的记录 */
+  public RoomHistory withDepth(int depth) {
+    if (depth == roomIds.length) return this;
+    RoomHistory resized = new RoomHistory(depth);
+    int keep = Math.min(size, depth);
+    for (int i = size - keep; i < size; i++) {
+      resized.push(roomIds[index(i)]);
+    }
+    return resized;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(roomIds[index(i)]);
+    }
+    return sb.append(']').toString();
+  }
+
+  // 第 i 条记录（从最早算起）在数组中的下标
+  private int index(int i) {
+    int index = head + i;
+    return index < roomIds.length ? index : index - roomIds.length;
+  }
+
+  private int next(int index) {
+    return index + 1 < roomIds.length ? index + 1 : 0;
+  }
+}
@@ -0,0 +1,54 @@
+package com.example.demo1111111.config;
+
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * 按会话抽样的调试日志（logback TurboFilter，在 logback-spring.xml 的 prod 配置中启用）。
+ *
+ * <p>命令线程的 MDC 中记有会话ID；按会话ID散列抽取 percent% 的会话，这些会话在本项目代码中的 DEBUG / TRACE 日志即使日志级别是 INFO
+ * 也会输出，其余会话不受影响。同一会话要么全部输出、要么都不输出，便于完整追踪一个玩家的命令。
+ */
+public class SessionDebugSampler extends TurboFilter {
+
+  /** MDC 中会话ID的键 */
+  public static final String SESSION_KEY = "sessionId";
+
+  private int percent;
+  private String loggerPrefix = "com.example.demo1111111";
+
+  public void setPercent(int percent) {
+    this.percent = percent;
+  }
+
+  public void setLoggerPrefix(String loggerPrefix) {
+    this.loggerPrefix = loggerPrefix;
+  }
+
+  @Override
+  public FilterReply decide(
+      Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+    // INFO 及以上、未开启抽样时直接交给日志级别判断，不读取 MDC
+    if (percent <= 0 || level == null || level.levelInt > Level.DEBUG_INT) {
+      return FilterReply.NEUTRAL;
+    }
+    if (!logger.getName().startsWith(loggerPrefix)) {
+      return FilterReply.NEUTRAL;
+    }
+    String sessionId = MDC.get(SESSION_KEY);
+    return sessionId != null && isSampled(sessionId, percent)
+        ? FilterReply.ACCEPT
+        : FilterReply.NEUTRAL;
+  }
+
+  /** 会话是否被抽中（只取决于会话ID，各节点结果一致） */
+  static boolean isSampled(String sessionId, int percent) {
+    int h = sessionId.hashCode() * 0x9E3779B9;
+    return Math.floorMod(h ^ (h >>> 16), 100) < percent;
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.demo1111111.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * 虚拟线程固定（pinning）诊断：用 JFR 监听 jdk.VirtualThreadPinned 事件，把在 synchronized 等位置阻塞过久的调用栈打到日志里。
+ *
+ * <p>只在开启 spring.threads.virtual.enabled 时启用；临时排查也可以直接加 JVM 参数 -Djdk.tracePinnedThreads=full。
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final int MAX_FRAMES = 12;
+
+  private final Duration threshold;
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+      @Value("${game.virtual-threads.pinned-threshold-ms:20}") long thresholdMillis) {
+    this.threshold = Duration.ofMillis(thresholdMillis);
+  }
+
+  @PostConstruct
+  public void start() {
+    try {
+      stream = new RecordingStream();
+      stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+      stream.onEvent(PINNED_EVENT, this::report);
+      stream.startAsync();
+      logger.info("虚拟线程固定监控已启动，阈值 {} ms", threshold.toMillis());
+    } catch (RuntimeException e) {
+      logger.warn("无法启动 JFR 虚拟线程固定监控", e);
+    }
+  }
+
+  private void report(RecordedEvent event) {
+    String frames = "";
+    if (event.getStackTrace() != null) {
+      List<RecordedFrame> stack = event.getStackTrace().getFrames();
+      frames =
+          stack.stream()
+              .limit(MAX_FRAMES)
+              .map(
+                  frame ->
+                      frame.getMethod().getType().getName()
+                          + "."
+                          + frame.getMethod().getName()
+                          + ":"
+                          + frame.getLineNumber())
+              .collect(Collectors.joining("\n    at ", "\n    at ", ""));
+    }
+    logger.warn("虚拟线程被固定 {} ms{}", event.getDuration().toMillis(), frames);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+}
@@ -13,6 +13,7 @@ public class WebConfig implements WebMvcConfigurer {
         .allowedOrigins("http://localhost:8081")
         .allowedMethods("*")
         .allowedHeaders("*")
+        .exposedHeaders("ETag")
         .allowCredentials(true);
   }
 }
@@ -0,0 +1,28 @@
+package com.example.demo1111111.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.example.demo1111111.controller.GameSocketHandler;
+
+/** WebSocket 游戏通道：ws://host/ws/game?sessionId=... */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+  private final GameSocketHandler gameSocketHandler;
+
+  @Autowired
+  public WebSocketConfig(GameSocketHandler gameSocketHandler) {
+    this.gameSocketHandler = gameSocketHandler;
+  }
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    // 与 WebConfig 的 CORS 设置保持一致
+    registry.addHandler(gameSocketHandler, "/ws/game").setAllowedOrigins("http://localhost:8081");
+  }
+}
@@ -1,41 +1,133 @@
 package com.example.demo1111111.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.demo1111111.dto.GameDelta;
 import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.dto.PathResponse;
+import com.example.demo1111111.metrics.CommandMetrics;
+import com.example.demo1111111.service.CommandDispatcher;
 import com.example.demo1111111.service.GameService;
+import com.example.demo1111111.service.SessionCommandExecutor;
 
 @RestController
 @RequestMapping("/api")
 public class GameController {
 
   private final GameService gameService;
+  private final CommandDispatcher commandDispatcher;
+  private final SessionCommandExecutor commandExecutor;
+  private final CommandMetrics commandMetrics;
 
   @Autowired
-  public GameController(GameService gameService) {
+  public GameController(
+      GameService gameService,
+      CommandDispatcher commandDispatcher,
+      SessionCommandExecutor commandExecutor,
+      CommandMetrics commandMetrics) {
     this.gameService = gameService;
+    this.commandDispatcher = commandDispatcher;
+    this.commandExecutor = commandExecutor;
+    this.commandMetrics = commandMetrics;
   }
 
   // 1. 用户登录接口
   @PostMapping("/login")
   public GameResponse loginUser(
       @RequestParam("username") String username, @RequestParam("password") String password) {
-    return gameService.loginUser(username, password);
+    GameResponse response =
+        commandMetrics.record("login", () -> gameService.loginUser(username, password));
+    return withStateVersion(response);
   }
 
   // 2. 会话恢复接口
   @PostMapping("/restore")
-  public GameResponse restoreSession(@RequestParam("sessionId") String sessionId) {
-    return gameService.restoreSession(sessionId);
+  public CompletableFuture<GameResponse> restoreSession(
+      @RequestParam("sessionId") String sessionId) {
+    return commandExecutor.submit(
+        sessionId,
+        () ->
+            withStateVersion(
+                commandMetrics.record("restore", () -> gameService.restoreSession(sessionId))));
   }
 
-  // 3. 命令处理接口
+  // 3. 命令处理接口（同一会话的命令按到达顺序串行执行）
   @PostMapping("/command")
-  public GameResponse handleCommand(
+  public CompletableFuture<GameResponse> handleCommand(
       @RequestHeader("X-Session-Id") String sessionId,
       @RequestParam("command") String command,
       @RequestParam(value = "parameter", required = false) String parameter) {
-    return gameService.processCommand(sessionId, command, parameter);
+    return commandExecutor.submit(
+        sessionId,
+        () ->
+            commandMetrics.record(
+                commandDispatcher.commandName(command),
+                () -> commandDispatcher.processCommand(sessionId, command, parameter)),
+        commandDispatcher.usesDatabase(sessionId, command));
+  }
+
+  // 3.1 增量命令接口：带上已知的状态版本 since，只返回之后变化的房间、背包和负重
+  @PostMapping(value = "/command", params = "since")
+  public CompletableFuture<GameDelta> handleCommandDelta(
+      @RequestHeader("X-Session-Id") String sessionId,
+      @RequestParam("command") String command,
+      @RequestParam(value = "parameter", required = false) String parameter,
+      @RequestParam("since") long since) {
+    return commandExecutor.submit(
+        sessionId,
+        () -> {
+          GameResponse response =
+              commandMetrics.record(
+                  commandDispatcher.commandName(command),
+                  () -> commandDispatcher.processCommand(sessionId, command, parameter));
+          return gameService.commandDelta(sessionId, since, response);
+        },
+        commandDispatcher.usesDatabase(sessionId, command));
+  }
+
+  // 4. 批量命令接口（命令用分号或换行分隔，一次请求按顺序执行）
+  @PostMapping("/commands")
+  public CompletableFuture<GameResponse> handleCommands(
+      @RequestHeader("X-Session-Id") String sessionId,
+      @RequestParam("script") String script,
+      @RequestParam(value = "steps", defaultValue = "false") boolean includeSteps) {
+    return commandExecutor.submit(
+        sessionId,
+        () ->
+            commandMetrics.record(
+                "script", () -> commandDispatcher.processScript(sessionId, script, includeSteps)));
+  }
+
+  // 4.1 路线查询接口：从当前房间（或 from）到 to 的最短路线，只查询不移动
+  //     与命令在同一会话队列中执行，读到的当前房间不会与正在执行的移动命令交错；只读内存，会话需要冷加载时才经过数据库闸门
+  @GetMapping("/path")
+  public CompletableFuture<PathResponse> findPath(
+      @RequestHeader("X-Session-Id") String sessionId,
+      @RequestParam("to") String to,
+      @RequestParam(value = "from", required = false) String from,
+      @RequestParam(value = "teleports", defaultValue = "false") boolean teleports) {
+    return commandExecutor.submit(
+        sessionId,
+        () -> gameService.findPath(sessionId, from, to, teleports),
+        !gameService.isSessionLoaded(sessionId));
+  }
+
+  // 5. 退出登录接口
+  @PostMapping("/logout")
+  public CompletableFuture<GameResponse> logoutUser(
+      @RequestHeader("X-Session-Id") String sessionId) {
+    return commandExecutor.submit(
+        sessionId, () -> commandMetrics.record("logout", () -> gameService.logoutUser(sessionId)));
+  }
+
+  // 登录/恢复成功时记录完整快照的版本号，客户端之后用它请求增量
+  private GameResponse withStateVersion(GameResponse response) {
+    if (response.isSuccess() && response.getSessionId() != null) {
+      response.setStateVersion(gameService.snapshotVersion(response.getSessionId()));
+    }
+    return response;
   }
 }
@@ -0,0 +1,182 @@
+package com.example.demo1111111.controller;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.example.demo1111111.dto.GameDelta;
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.dto.PlayerView;
+import com.example.demo1111111.metrics.CommandMetrics;
+import com.example.demo1111111.service.CommandDispatcher;
+import com.example.demo1111111.service.GameService;
+import com.example.demo1111111.service.SessionCommandExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * WebSocket 游戏通道：一个连接上收发所有命令，服务端只推送变化的状态。
+ *
+ * <p>连接建立后先推送一次完整快照。
+ *
+ * <p>客户端发送 {"id":1,"command":"go","parameter":"north"}，服务端回复带相同编号的增量（GameDelta），其中只有变化的房间、物品和负重。
+ *
+ * <p>命令和 REST 接口一样进入该会话的命令队列串行执行，所以上一次的状态只在队列任务里读写。
+ */
+@Component
+public class GameSocketHandler extends TextWebSocketHandler {
+  private static final Logger logger = LoggerFactory.getLogger(GameSocketHandler.class);
+
+  private static final String GAME_SESSION = "gameSessionId";
+  private static final String VIEW = "playerView";
+  private static final String SENDER = "sender";
+
+  private static final int SEND_TIME_LIMIT_MS = 10_000;
+  private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+  private final GameService gameService;
+  private final CommandDispatcher commandDispatcher;
+  private final SessionCommandExecutor commandExecutor;
+  private final CommandMetrics commandMetrics;
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public GameSocketHandler(
+      GameService gameService,
+      CommandDispatcher commandDispatcher,
+      SessionCommandExecutor commandExecutor,
+      CommandMetrics commandMetrics,
+      ObjectMapper objectMapper) {
+    this.gameService = gameService;
+    this.commandDispatcher = commandDispatcher;
+    this.commandExecutor = commandExecutor;
+    this.commandMetrics = commandMetrics;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) {
+    // 多个会话线程可能同时推送，发送需要串行化
+    session
+        .getAttributes()
+        .put(
+            SENDER,
+            new ConcurrentWebSocketSessionDecorator(
+                session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT));
+
+    String sessionId =
+        session.getUri() == null
+            ? null
+            : UriComponentsBuilder.fromUri(session.getUri())
+                .build()
+                .getQueryParams()
+                .getFirst("sessionId");
+    if (sessionId == null || sessionId.isBlank()) {
+      reject(session, "缺少 sessionId");
+      return;
+    }
+    session.getAttributes().put(GAME_SESSION, sessionId);
+
+    Map<String, Object> attributes = session.getAttributes();
+    commandExecutor
+        .submit(
+            sessionId,
+            () -> {
+              PlayerView view = gameService.buildPlayerView(sessionId, null);
+              if (view != null) attributes.put(VIEW, view);
+              return view;
+            })
+        .whenComplete(
+            (view, error) -> {
+              if (error != null) {
+                reject(session, messageOf(error));
+              } else if (view == null) {
+                reject(session, "会话已过期，请重新登录");
+              } else {
+                send(session, GameDelta.snapshot(null, view, "已连接"));
+              }
+            });
+  }
+
+  @Override
+  protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+    String sessionId = (String) session.getAttributes().get(GAME_SESSION);
+    if (sessionId == null) return;
+
+    JsonNode json;
+    try {
+      json = objectMapper.readTree(message.getPayload());
+    } catch (JsonProcessingException e) {
+      send(session, GameDelta.failure(null, "无法解析的消息"));
+      return;
+    }
+    Long id = json.hasNonNull("id") ? json.get("id").asLong() : null;
+    String command = json.path("command").asText("");
+    String parameter = json.hasNonNull("parameter") ? json.get("parameter").asText() : null;
+    if (command.isBlank()) {
+      send(session, GameDelta.failure(id, "缺少命令"));
+      return;
+    }
+
+    commandExecutor
+        .submit(
+            sessionId,
+            () -> execute(session, sessionId, id, command, parameter),
+            commandDispatcher.usesDatabase(sessionId, command))
+        .whenComplete(
+            (delta, error) ->
+                send(session, error == null ? delta : GameDelta.failure(id, messageOf(error))));
+  }
+
+  // 在会话命令队列中执行：执行命令，再和上一次的状态比较得到增量
+  private GameDelta execute(
+      WebSocketSession session, String sessionId, Long id, String command, String parameter) {
+    GameResponse response =
+        commandMetrics.record(
+            commandDispatcher.commandName(command),
+            () -> commandDispatcher.processCommand(sessionId, command, parameter));
+
+    PlayerView before = (PlayerView) session.getAttributes().get(VIEW);
+    PlayerView after = gameService.buildPlayerView(sessionId, before);
+    if (before == null || after == null) {
+      return GameDelta.failure(id, response.getMessage());
+    }
+    session.getAttributes().put(VIEW, after);
+    return GameDelta.between(id, before, after, response);
+  }
+
+  private void send(WebSocketSession session, GameDelta delta) {
+    WebSocketSession sender = (WebSocketSession) session.getAttributes().get(SENDER);
+    if (sender == null || !sender.isOpen()) return;
+    try {
+      sender.sendMessage(new TextMessage(objectMapper.writeValueAsString(delta)));
+    } catch (IOException | RuntimeException e) {
+      logger.warn("推送失败: wsSession={}, error={}", session.getId(), e.getMessage());
+    }
+  }
+
+  private void reject(WebSocketSession session, String message) {
+    send(session, GameDelta.failure(null, message));
+    try {
+      session.close(CloseStatus.POLICY_VIOLATION);
+    } catch (IOException e) {
+      logger.debug("关闭连接失败: wsSession={}", session.getId(), e);
+    }
+  }
+
+  private static String messageOf(Throwable error) {
+    Throwable cause = error.getCause() != null ? error.getCause() : error;
+    return cause.getMessage() != null ? cause.getMessage() : "服务器错误";
+  }
+}
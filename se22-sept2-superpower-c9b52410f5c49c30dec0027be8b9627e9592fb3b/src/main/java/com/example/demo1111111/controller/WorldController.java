@@ -0,0 +1,47 @@
+package com.example.demo1111111.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.demo1111111.world.WorldMapExport;
+
+@RestController
+@RequestMapping("/api/world")
+public class WorldController {
+
+  private final WorldMapExport worldMapExport;
+
+  @Autowired
+  public WorldController(WorldMapExport worldMapExport) {
+    this.worldMapExport = worldMapExport;
+  }
+
+  // 世界地图：预先生成的 JSON，客户端带 If-None-Match 时地图未变返回 304
+  @GetMapping("/map")
+  public ResponseEntity<byte[]> getWorldMap(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    WorldMapExport.Payload map = worldMapExport.current();
+    // 每次都重新验证，地图未变时只需一个 304
+    HttpStatus status = map.matches(ifNoneMatch) ? HttpStatus.NOT_MODIFIED : HttpStatus.OK;
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.status(status)
+            .eTag(map.getEtag())
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (status == HttpStatus.NOT_MODIFIED) {
+      return response.build();
+    }
+
+    response.contentType(MediaType.APPLICATION_JSON);
+    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(map.getGzip());
+    }
+    return response.body(map.getJson());
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.demo1111111.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 推送给客户端的状态变化：连接建立时是完整快照，之后每条命令只带变化的部分（未变化的字段不输出）。
+ *
+ * <p>物品变化以条目列表表示，quantity 为 0 表示该物品已不在房间/背包中。
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameDelta {
+  public static final String SNAPSHOT = "snapshot";
+  public static final String DELTA = "delta";
+
+  private Long id; // 客户端请求编号（原样带回）
+  private String type; // snapshot 或 delta
+  private Long version; // 本次回复对应的状态版本（REST 增量模式）
+  private boolean success;
+  private String message;
+  private Boolean gameOver; // 仅在游戏结束时出现
+
+  private Integer roomId; // 进入新房间时
+  private String roomName;
+  private GameResponse.RoomDetail room; // 进入新房间时的完整房间详情
+  private List<GameResponse.ItemDetail> roomItems; // 同一房间内变化的物品
+  private List<GameResponse.ItemDetail> inventory; // 快照为完整背包，增量为变化的物品
+
+  private Double currentWeight;
+  private Double maxWeight;
+
+  /** 完整快照 */
+  public static GameDelta snapshot(Long id, PlayerView view, String message) {
+    return GameDelta.builder()
+        .id(id)
+        .type(SNAPSHOT)
+        .success(true)
+        .message(message)
+        .gameOver(view.isGameOver() ? Boolean.TRUE : null)
+        .roomId(view.getRoomId())
+        .roomName(view.getRoomName())
+        .room(view.getRoom())
+        .inventory(new ArrayList<>(view.getInventory().values()))
+        .currentWeight(view.getCurrentWeight())
+        .maxWeight(view.getMaxWeight())
+        .build();
+  }
+
+  /** 只有结果消息、没有状态变化的回复 */
+  public static GameDelta failure(Long id, String message) {
+    return GameDelta.builder().id(id).type(DELTA).success(false).message(message).build();
+  }
+
+  /** 两次状态之间的变化，附带命令本身的结果和消息 */
+  public static GameDelta between(
+      Long id, PlayerView before, PlayerView after, GameResponse response) {
+    GameDelta.GameDeltaBuilder delta =
+        GameDelta.builder()
+            .id(id)
+            .type(DELTA)
+            .success(response.isSuccess())
+            .message(response.getMessage())
+            .gameOver(after.isGameOver() ? Boolean.TRUE : null);
+
+    if (!Objects.equals(before.getRoomId(), after.getRoomId())) {
+      delta.roomId(after.getRoomId()).roomName(after.getRoomName()).room(after.getRoom());
+    } else {
+      delta.roomItems(changes(itemsByName(before.getRoom()), itemsByName(after.getRoom())));
+    }
+    delta.inventory(changes(before.getInventory(), after.getInventory()));
+
+    if (before.getCurrentWeight() != after.getCurrentWeight()) {
+      delta.currentWeight(after.getCurrentWeight());
+    }
+    if (before.getMaxWeight() != after.getMaxWeight()) {
+      delta.maxWeight(after.getMaxWeight());
+    }
+    return delta.build();
+  }
+
+  private static Map<String, GameResponse.ItemDetail> itemsByName(GameResponse.RoomDetail room) {
+    Map<String, GameResponse.ItemDetail> items = new LinkedHashMap<>();
+    if (room != null && room.getItems() != null) {
+      for (GameResponse.ItemDetail item : room.getItems()) {
+        items.put(item.getName(), item);
+      }
+    }
+    return items;
+  }
+
+  // 新增或数量变化的物品原样列出，消失的物品以数量 0 列出；没有变化时返回 null
+  private static List<GameResponse.ItemDetail> changes(
+      Map<String, GameResponse.ItemDetail> before, Map<String, GameResponse.ItemDetail> after) {
+    List<GameResponse.ItemDetail> changed = new ArrayList<>();
+    for (GameResponse.ItemDetail item : after.values()) {
+      GameResponse.ItemDetail old = before.get(item.getName());
+      if (old == null || old.getQuantity() != item.getQuantity()) {
+        changed.add(item);
+      }
+    }
+    for (String name : before.keySet()) {
+      if (!after.containsKey(name)) {
+        changed.add(GameResponse.ItemDetail.builder().name(name).quantity(0).build());
+      }
+    }
+    return changed.isEmpty() ? null : changed;
+  }
+}
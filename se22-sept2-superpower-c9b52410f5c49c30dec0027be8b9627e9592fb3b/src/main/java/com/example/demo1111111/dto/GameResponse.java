@@ -3,10 +3,15 @@ package com.example.demo1111111.dto;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import com.example.demo1111111.config.Inventory;
 import com.example.demo1111111.entity.Item;
 import com.example.demo1111111.entity.PlayerInventory;
 import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.entity.RoomItem;
 import com.example.demo1111111.entity.User;
+import com.example.demo1111111.world.ItemCatalog;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
 
 import lombok.Builder;
 import lombok.Data;
@@ -45,6 +50,12 @@ public class GameResponse {
   private List<LookItemDetail> playerItems; // 玩家物品列表
   private Double playerTotalWeight; // 玩家物品总重量
 
+  // 状态版本（登录/恢复时返回，之后带上 since 请求增量）
+  private Long stateVersion;
+
+  // 批量命令每一步的结果（/api/commands 且 steps=true 时）
+  private List<StepResult> steps;
+
   // ==================================================
   // 用户信息内部类（新增）
   // ==================================================
@@ -67,6 +78,25 @@ public class GameResponse {
     }
   }
 
+  // 批量命令中一步的简要结果
+  @Getter
+  @Builder
+  public static class StepResult {
+    private String command;
+    private String parameter;
+    private boolean success;
+    private String message;
+
+    public static StepResult of(String command, String parameter, GameResponse response) {
+      return StepResult.builder()
+          .command(command)
+          .parameter(parameter)
+          .success(response.isSuccess())
+          .message(response.getMessage())
+          .build();
+    }
+  }
+
   // ==================================================
   // 新增登录相关工厂方法
   // ==================================================
@@ -81,6 +111,25 @@ public class GameResponse {
       User user,
       Double currentWeight,
       Double maxWeight) {
+    return loginSuccess(
+        sessionId,
+        message,
+        RoomDetail.fromRoom(room),
+        inventoryEntries,
+        user,
+        currentWeight,
+        maxWeight);
+  }
+
+  /** 登录成功响应（房间详情已构建好） */
+  public static GameResponse loginSuccess(
+      String sessionId,
+      String message,
+      RoomDetail room,
+      List<PlayerInventory> inventoryEntries,
+      User user,
+      Double currentWeight,
+      Double maxWeight) {
     // 把 PlayerInventory 转成 ItemDetail，并用真实 quantity
     List<ItemDetail> details =
         inventoryEntries.stream()
@@ -103,7 +152,7 @@ public class GameResponse {
         .message(message)
         .sessionId(sessionId)
         .gameOver(false)
-        .currentRoom(RoomDetail.fromRoom(room))
+        .currentRoom(room)
         .inventory(details) // ★ 用真实数量的列表
         .userInfo(UserInfo.fromUser(user))
         .build();
@@ -117,6 +166,16 @@ public class GameResponse {
       RoomEntity room,
       List<PlayerInventory> inventoryEntries,
       User user) {
+    return restoreSuccess(sessionId, message, RoomDetail.fromRoom(room), inventoryEntries, user);
+  }
+
+  /** 恢复会话成功响应（房间详情已构建好） */
+  public static GameResponse restoreSuccess(
+      String sessionId,
+      String message,
+      RoomDetail room,
+      List<PlayerInventory> inventoryEntries,
+      User user) {
     List<ItemDetail> details =
         inventoryEntries.stream()
             .map(
@@ -136,7 +195,7 @@ public class GameResponse {
         .message(message)
         .sessionId(sessionId)
         .gameOver(false)
-        .currentRoom(RoomDetail.fromRoom(room))
+        .currentRoom(room)
         .inventory(details) // ★ 用真实数量的列表
         .userInfo(UserInfo.fromUser(user))
         .build();
@@ -172,6 +231,16 @@ public class GameResponse {
         .build();
   }
 
+  /** 退出登录响应 */
+  public static GameResponse logoutSuccess(String message) {
+    return GameResponse.builder()
+        .success(true)
+        .message(message)
+        .gameOver(false)
+        .inventory(Collections.emptyList())
+        .build();
+  }
+
   /** 错误响应 */
   public static GameResponse failure(String message) {
     return GameResponse.builder()
@@ -191,6 +260,18 @@ public class GameResponse {
       String message,
       double currentWeight,
       double maxWeight) {
+    return inventoryUpdate(
+        sessionId, RoomDetail.fromRoom(room), inventoryEntries, message, currentWeight, maxWeight);
+  }
+
+  /** 库存更新响应（房间详情已构建好，例如来自 WorldGraph） */
+  public static GameResponse inventoryUpdate(
+      String sessionId,
+      RoomDetail room,
+      List<PlayerInventory> inventoryEntries,
+      String message,
+      double currentWeight,
+      double maxWeight) {
     List<ItemDetail> details =
         inventoryEntries.stream()
             .map(
@@ -205,11 +286,45 @@ public class GameResponse {
                 })
             .collect(Collectors.toList());
 
+    return buildInventoryUpdate(sessionId, room, details, message, currentWeight, maxWeight);
+  }
+
+  /** 库存更新响应（背包来自内存，物品详情按ID到物品目录中查找，不访问数据库） */
+  public static GameResponse inventoryUpdate(
+      String sessionId,
+      RoomDetail room,
+      Inventory inventory,
+      ItemCatalog catalog,
+      String message,
+      double maxWeight) {
+    List<ItemDetail> details = new ArrayList<>(inventory.size());
+    for (int i = 0; i < inventory.size(); i++) {
+      Item item = catalog.get(inventory.itemIdAt(i));
+      if (item == null) continue;
+      details.add(
+          ItemDetail.builder()
+              .name(item.getName())
+              .description(item.getDescription())
+              .weight(item.getWeight())
+              .quantity(inventory.quantityAt(i))
+              .build());
+    }
+    return buildInventoryUpdate(
+        sessionId, room, details, message, inventory.getTotalWeight(), maxWeight);
+  }
+
+  private static GameResponse buildInventoryUpdate(
+      String sessionId,
+      RoomDetail room,
+      List<ItemDetail> details,
+      String message,
+      double currentWeight,
+      double maxWeight) {
     return GameResponse.builder()
         .success(true)
         .message(message)
         .sessionId(sessionId)
-        .currentRoom(RoomDetail.fromRoom(room))
+        .currentRoom(room)
         .inventory(details)
         .currentWeight(currentWeight)
         .maxWeight(maxWeight)
@@ -218,10 +333,10 @@ public class GameResponse {
   }
 
   // 新增辅助方法：转换房间物品
-  private static List<LookItemDetail> convertRoomItems(RoomEntity room) {
-    if (room == null) return Collections.emptyList();
+  private static List<LookItemDetail> convertRoomItems(List<RoomItem> roomItems) {
+    if (roomItems == null) return Collections.emptyList();
 
-    return room.getRoomItems().stream()
+    return roomItems.stream()
         .map(
             ri -> {
               LookItemDetail detail = LookItemDetail.fromItem(ri.getItem());
@@ -232,6 +347,20 @@ public class GameResponse {
         .collect(Collectors.toList());
   }
 
+  // 转换房间物品账本中的条目
+  private static List<LookItemDetail> convertLedgerItems(List<RoomItemLedger.Entry> entries) {
+    if (entries == null) return Collections.emptyList();
+
+    return entries.stream()
+        .map(
+            entry -> {
+              LookItemDetail detail = LookItemDetail.fromItem(entry.getItem());
+              detail.setQuantity(entry.getQuantity());
+              return detail;
+            })
+        .collect(Collectors.toList());
+  }
+
   // 新增辅助方法：转换玩家物品
   private static List<LookItemDetail> convertPlayerItems(List<Item> inventory) {
     if (inventory == null) return Collections.emptyList();
@@ -256,22 +385,83 @@ public class GameResponse {
       double roomTotalWeight,
       double playerTotalWeight) {
     // 把房间中的 RoomItem 转成 LookItemDetail（房间物品里已经有 quantity）
-    List<LookItemDetail> roomDetails = convertRoomItems(room);
+    return buildItemsResponse(
+        sessionId,
+        message,
+        convertRoomItems(room != null ? room.getRoomItems() : null),
+        convertInventoryEntries(inventoryEntries),
+        roomTotalWeight,
+        playerTotalWeight);
+  }
 
-    // 把玩家库存里的 PlayerInventory 转成 LookItemDetail，保留 pi.getQuantity()
-    List<LookItemDetail> playerDetails =
-        inventoryEntries.stream()
-            .map(
-                pi -> {
-                  Item item = pi.getItem();
-                  return LookItemDetail.builder()
-                      .name(item.getName())
-                      .weight(item.getWeight())
-                      .quantity(pi.getQuantity()) // ★ 用真实的 quantity
-                      .build();
-                })
-            .collect(Collectors.toList());
+  /** 物品清单响应（房间物品来自内存账本） */
+  public static GameResponse itemsResponse(
+      String sessionId,
+      String message,
+      List<RoomItemLedger.Entry> roomItems,
+      List<PlayerInventory> inventoryEntries,
+      double roomTotalWeight,
+      double playerTotalWeight) {
+    return buildItemsResponse(
+        sessionId,
+        message,
+        convertLedgerItems(roomItems),
+        convertInventoryEntries(inventoryEntries),
+        roomTotalWeight,
+        playerTotalWeight);
+  }
+
+  /** 物品清单响应（房间物品来自内存账本，背包来自内存，不访问数据库） */
+  public static GameResponse itemsResponse(
+      String sessionId,
+      String message,
+      List<RoomItemLedger.Entry> roomItems,
+      Inventory inventory,
+      ItemCatalog catalog,
+      double roomTotalWeight) {
+    List<LookItemDetail> playerDetails = new ArrayList<>(inventory.size());
+    for (int i = 0; i < inventory.size(); i++) {
+      Item item = catalog.get(inventory.itemIdAt(i));
+      if (item == null) continue;
+      playerDetails.add(
+          LookItemDetail.builder()
+              .name(item.getName())
+              .weight(item.getWeight())
+              .quantity(inventory.quantityAt(i))
+              .build());
+    }
+    return buildItemsResponse(
+        sessionId,
+        message,
+        convertLedgerItems(roomItems),
+        playerDetails,
+        roomTotalWeight,
+        inventory.getTotalWeight());
+  }
 
+  // 把玩家库存里的 PlayerInventory 转成 LookItemDetail，保留 pi.getQuantity()
+  private static List<LookItemDetail> convertInventoryEntries(
+      List<PlayerInventory> inventoryEntries) {
+    return inventoryEntries.stream()
+        .map(
+            pi -> {
+              Item item = pi.getItem();
+              return LookItemDetail.builder()
+                  .name(item.getName())
+                  .weight(item.getWeight())
+                  .quantity(pi.getQuantity()) // ★ 用真实的 quantity
+                  .build();
+            })
+        .collect(Collectors.toList());
+  }
+
+  private static GameResponse buildItemsResponse(
+      String sessionId,
+      String message,
+      List<LookItemDetail> roomDetails,
+      List<LookItemDetail> playerDetails,
+      double roomTotalWeight,
+      double playerTotalWeight) {
     return GameResponse.builder()
         .sessionId(sessionId)
         .success(true)
@@ -353,6 +543,36 @@ public class GameResponse {
           .teleportHint(teleportHint) // 添加传送提示
           .build();
     }
+
+    /** 由 WorldGraph 房间节点和房间物品构建，不访问任何 JPA 关联 */
+    public static RoomDetail fromWorld(WorldGraph.Room room, List<RoomItemLedger.Entry> roomItems) {
+      if (room == null) return null;
+
+      List<ItemDetail> items =
+          Optional.ofNullable(roomItems).orElse(Collections.emptyList()).stream()
+              .map(
+                  entry -> {
+                    ItemDetail detail = ItemDetail.fromItem(entry.getItem());
+                    detail.setQuantity(entry.getQuantity());
+                    return detail;
+                  })
+              .collect(Collectors.toList());
+
+      String teleportHint = "";
+      if (room.isTeleportRoom()) {
+        teleportHint =
+            room.getTeleportTargetCount() == 0
+                ? "这里有神秘的传送能量"
+                : "传送门可通往: " + String.join(", ", room.getTeleportDestinationNames());
+      }
+
+      return RoomDetail.builder()
+          .description(room.getDescription())
+          .exits(room.getExitNames())
+          .items(items)
+          .teleportHint(teleportHint)
+          .build();
+    }
   }
 
   /** 精简版房间详情（仅出口方向、物品重量） */
@@ -447,12 +667,22 @@ public class GameResponse {
       RoomEntity currentRoom,
       List<Item> inventory,
       UserInfo userInfo) {
+    return success(sessionId, message, RoomDetail.fromRoom(currentRoom), inventory, userInfo);
+  }
+
+  // 房间详情已构建好的重载方法
+  public static GameResponse success(
+      String sessionId,
+      String message,
+      RoomDetail currentRoom,
+      List<Item> inventory,
+      UserInfo userInfo) {
     return GameResponse.builder()
         .sessionId(sessionId)
         .success(true)
         .message(message)
         .userInfo(userInfo)
-        .currentRoom(RoomDetail.fromRoom(currentRoom))
+        .currentRoom(currentRoom)
         .inventory(convertInventory(inventory))
         .gameOver(false)
         .build();
@@ -475,10 +705,29 @@ public class GameResponse {
       UserInfo userInfo,
       double currentWeight,
       double maxWeight) {
+    return success(
+        sessionId,
+        message,
+        RoomDetail.fromRoom(currentRoom),
+        inventory,
+        userInfo,
+        currentWeight,
+        maxWeight);
+  }
+
+  public static GameResponse success(
+      String sessionId,
+      String message,
+      RoomDetail currentRoom,
+      List<Item> inventory,
+      UserInfo userInfo,
+      double currentWeight,
+      double maxWeight) {
     return builder()
         .sessionId(sessionId)
+        .success(true)
         .message(message)
-        .currentRoom(RoomDetail.fromRoom(currentRoom))
+        .currentRoom(currentRoom)
         .inventory(convertInventory(inventory))
         .userInfo(userInfo)
         .currentWeight(currentWeight)
@@ -0,0 +1,35 @@
+package com.example.demo1111111.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/** 两个房间之间的最短路线（/api/path），只查询不移动 */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PathResponse {
+  private boolean success;
+  private String message;
+  private String from;
+  private String to;
+  private Integer length; // 步数
+  private Boolean probabilistic; // 路线经过传送门时为 true，实际落点可能不同
+  private List<Step> steps;
+
+  public static PathResponse failure(String message) {
+    return PathResponse.builder().success(false).message(message).build();
+  }
+
+  /** 路线中的一步：移动方向和预期到达的房间 */
+  @Data
+  @AllArgsConstructor
+  public static class Step {
+    private String direction;
+    private String room;
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.demo1111111.dto;
+
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/** 玩家此刻看到的游戏状态（所在房间、背包、负重），相邻两次的差异就是推送给客户端的增量 */
+@Getter
+@Builder
+public class PlayerView {
+  private final Integer roomId;
+  private final String roomName;
+  private final GameResponse.RoomDetail room;
+  // 物品名称 -> 物品详情（含数量），保持背包顺序
+  private final Map<String, GameResponse.ItemDetail> inventory;
+  private final double currentWeight;
+  private final double maxWeight;
+  private final boolean gameOver;
+  // 构建时的背包修订号，修订号不变说明背包没有变化
+  private final long inventoryRevision;
+}
@@ -4,7 +4,14 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "player_inventory")
+// (user_id, item_id) 唯一：拾取时的 INSERT ... ON DUPLICATE KEY UPDATE 依赖该索引；
+// 已有的重复记录在启动时由 PlayerInventoryMigration 先合并，ddl-auto=update 才能建出索引
+@Table(
+    name = "player_inventory",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uk_player_inventory_user_item",
+            columnNames = {"user_id", "item_id"}))
 @Data
 public class PlayerInventory {
   @Id
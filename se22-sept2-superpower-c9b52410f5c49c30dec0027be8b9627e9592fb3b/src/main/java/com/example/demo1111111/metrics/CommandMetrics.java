@@ -0,0 +1,130 @@
+package com.example.demo1111111.metrics;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.dto.GameResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 命令指标：每种命令的耗时（game.command）、按原因归类的失败次数（game.command.failures）、每条命令的仓库调用次数和耗时（game.command.queries、game.command.query.time）。
+ *
+ * <p>失败消息里带有物品名、方向等变量，按固定的原因归类后再作为标签，避免标签值无限增长。
+ */
+@Component
+public class CommandMetrics {
+
+  private static final Set<String> COMMANDS =
+      Set.of(
+          "go", "look", "back", "path", "travel", "take", "drop", "eat", "items", "script", "login",
+          "restore", "logout");
+
+  // 包装异常的失败消息前缀，优先匹配（异常信息里可能含有下面的关键字）
+  private static final String[] ERROR_PREFIXES = {
+    "操作失败", "查看房间失败", "无法返回:", "丢弃物品失败", "食用物品失败", "查看路线失败"
+  };
+
+  // 失败消息关键字 -> 原因，按顺序匹配
+  private static final String[][] FAILURE_REASONS = {
+    {"会话", "session"},
+    {"密码错误", "wrong_password"},
+    {"未知命令", "unknown_command"},
+    {"必须指定", "missing_parameter"},
+    {"必须是正整数", "invalid_parameter"},
+    {"无法向", "no_exit"},
+    {"没有可返回", "no_history"},
+    {"没有名为", "unknown_room"},
+    {"无法到达", "no_route"},
+    {"已经在", "already_there"},
+    {"传送门", "teleport"},
+    {"太重", "overweight"},
+    {"房间中没有", "not_in_room"},
+    {"背包中没有", "not_in_inventory"},
+    {"没有该物品", "not_in_inventory"},
+    {"不可食用", "not_edible"}
+  };
+
+  private final MeterRegistry registry;
+
+  @Autowired
+  public CommandMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /** 执行命令并记录耗时、结果和其中的仓库调用 */
+  public GameResponse record(String command, Supplier<GameResponse> action) {
+    String name = commandTag(command);
+    RepositoryCallTracker.Calls outer = RepositoryCallTracker.begin();
+    long start = System.nanoTime();
+    GameResponse response = null;
+    try {
+      response = action.get();
+      return response;
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      RepositoryCallTracker.Calls calls = RepositoryCallTracker.end(outer);
+
+      String outcome;
+      if (response == null) {
+        outcome = "exception";
+        failure(name, "exception");
+      } else if (response.isSuccess()) {
+        outcome = "success";
+      } else {
+        outcome = "failure";
+        failure(name, failureReason(response.getMessage()));
+      }
+
+      Timer.builder("game.command")
+          .description("命令处理耗时")
+          .tag("command", name)
+          .tag("outcome", outcome)
+          .register(registry)
+          .record(elapsed, TimeUnit.NANOSECONDS);
+      DistributionSummary.builder("game.command.queries")
+          .description("每条命令的仓库调用次数")
+          .tag("command", name)
+          .register(registry)
+          .record(calls.count);
+      Timer.builder("game.command.query.time")
+          .description("每条命令的仓库调用总耗时")
+          .tag("command", name)
+          .register(registry)
+          .record(calls.nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void failure(String command, String reason) {
+    Counter.builder("game.command.failures")
+        .description("命令失败次数")
+        .tag("command", command)
+        .tag("reason", reason)
+        .register(registry)
+        .increment();
+  }
+
+  static String commandTag(String command) {
+    String name = command == null ? "" : command.toLowerCase(Locale.ROOT);
+    return COMMANDS.contains(name) ? name : "unknown";
+  }
+
+  static String failureReason(String message) {
+    if (message == null) return "other";
+    for (String prefix : ERROR_PREFIXES) {
+      if (message.startsWith(prefix)) return "error";
+    }
+    for (String[] reason : FAILURE_REASONS) {
+      if (message.contains(reason[0])) return reason[1];
+    }
+    return "other";
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.demo1111111.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import com.example.demo1111111.service.DbAdmissionGate;
+import com.example.demo1111111.service.SessionCommandExecutor;
+import com.example.demo1111111.service.SessionRegistry;
+import com.example.demo1111111.service.UserWriteBehindQueue;
+import com.example.demo1111111.world.RoomItemLedger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 游戏指标配置。
+ *
+ * <p>每个仓库方法的调用次数和耗时由 Spring Boot 自带的 spring.data.repository.invocations 计时器提供，Hikari 连接池由
+ * hikaricp.connections.* 提供；这里补上命令内的仓库调用统计和游戏内部队列的 Gauge。
+ */
+@Configuration
+public class MetricsConfig {
+
+  /** 给每个 Spring Data 仓库加上命令内调用统计（static：BeanPostProcessor 需要尽早创建） */
+  @Bean
+  static BeanPostProcessor repositoryCallTrackerPostProcessor() {
+    RepositoryCallTracker tracker = new RepositoryCallTracker();
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+          factoryBean.addRepositoryFactoryCustomizer(
+              factory -> factory.addInvocationListener(tracker));
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  MeterBinder gameGauges(
+      SessionRegistry sessionRegistry,
+      SessionCommandExecutor commandExecutor,
+      DbAdmissionGate dbGate,
+      RoomItemLedger roomItemLedger,
+      UserWriteBehindQueue writeBehindQueue) {
+    return registry -> {
+      Gauge.builder("game.sessions.active", sessionRegistry, SessionRegistry::size)
+          .description("内存中的会话数")
+          .register(registry);
+      Gauge.builder(
+              "game.command.mailboxes", commandExecutor, SessionCommandExecutor::activeMailboxes)
+          .description("有待执行命令的会话数")
+          .register(registry);
+      Gauge.builder("game.db.gate.in-use", dbGate, DbAdmissionGate::getInUse)
+          .description("正在使用的数据库许可数")
+          .register(registry);
+      Gauge.builder("game.db.gate.waiting", dbGate, DbAdmissionGate::getQueueLength)
+          .description("等待数据库许可的命令数")
+          .register(registry);
+      Gauge.builder("game.room-items.dirty", roomItemLedger, RoomItemLedger::dirtyCount)
+          .description("尚未写回数据库的房间物品数")
+          .register(registry);
+      Gauge.builder(
+              "game.write-behind.pending", writeBehindQueue, UserWriteBehindQueue::pendingCount)
+          .description("尚未写回数据库的玩家状态数")
+          .register(registry);
+    };
+  }
+}
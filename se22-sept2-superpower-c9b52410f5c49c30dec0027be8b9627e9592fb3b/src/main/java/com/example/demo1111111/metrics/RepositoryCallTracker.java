@@ -0,0 +1,48 @@
+package com.example.demo1111111.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+/**
+ * 统计当前线程正在处理的命令里发生了多少次仓库调用、共耗时多少。
+ *
+ * <p>命令在会话线程上同步执行，所以用 ThreadLocal 即可；不在命令里的调用（定时写回、启动加载）不统计。
+ */
+public class RepositoryCallTracker implements RepositoryMethodInvocationListener {
+
+  private static final ThreadLocal<Calls> CURRENT = new ThreadLocal<>();
+
+  /** 开始统计，返回外层的统计（嵌套时结束后恢复） */
+  static Calls begin() {
+    Calls outer = CURRENT.get();
+    CURRENT.set(new Calls());
+    return outer;
+  }
+
+  /** 结束统计并返回本次的结果 */
+  static Calls end(Calls outer) {
+    Calls calls = CURRENT.get();
+    if (outer == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(outer);
+    }
+    return calls;
+  }
+
+  @Override
+  public void afterInvocation(RepositoryMethodInvocation invocation) {
+    Calls calls = CURRENT.get();
+    if (calls != null) {
+      calls.count++;
+      calls.nanos += invocation.getDuration(TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** 一条命令内的仓库调用次数和总耗时 */
+  static final class Calls {
+    int count;
+    long nanos;
+  }
+}
@@ -4,6 +4,9 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo1111111.entity.PlayerInventory;
@@ -14,4 +17,36 @@ public interface PlayerInventoryRepository extends JpaRepository<PlayerInventory
   Optional<PlayerInventory> findByUserIdAndItemId(Long userId, Long itemId);
 
   List<PlayerInventory> findByUserId(Long userId);
+
+  // ==================== 单条语句的原子增减（依赖 (user_id, item_id) 唯一索引） ====================
+  // 减少一个要先 decrementQuantity、返回 0 时再 deleteLastOne，两条语句各自带条件：
+  // 同一玩家的命令由会话命令队列串行执行，两条之间不会插入同一玩家的其他修改；
+  // 即使插入了（如旧会话的命令尚未执行完），条件不成立时只会返回 0 让命令失败回滚，不会丢失或多扣数量
+
+  // 数量加一，没有记录时插入数量为 1 的记录
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO player_inventory (user_id, item_id, quantity) VALUES (:userId, :itemId, 1)"
+              + " ON DUPLICATE KEY UPDATE quantity = quantity + 1",
+      nativeQuery = true)
+  int incrementQuantity(@Param("userId") Long userId, @Param("itemId") Integer itemId);
+
+  // 数量大于 1 时减一，返回受影响行数（0 表示没有记录或只剩最后一个）
+  @Modifying
+  @Query(
+      value =
+          "UPDATE player_inventory SET quantity = quantity - 1"
+              + " WHERE user_id = :userId AND item_id = :itemId AND quantity > 1",
+      nativeQuery = true)
+  int decrementQuantity(@Param("userId") Long userId, @Param("itemId") Integer itemId);
+
+  // 只剩最后一个时删除记录，返回受影响行数
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM player_inventory"
+              + " WHERE user_id = :userId AND item_id = :itemId AND quantity <= 1",
+      nativeQuery = true)
+  int deleteLastOne(@Param("userId") Long userId, @Param("itemId") Integer itemId);
 }
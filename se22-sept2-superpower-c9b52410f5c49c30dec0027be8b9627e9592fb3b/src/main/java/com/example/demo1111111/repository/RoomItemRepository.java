@@ -31,6 +31,10 @@ public interface RoomItemRepository extends JpaRepository<RoomItem, RoomItem.Roo
   @Query("SELECT ri FROM RoomItem ri " + "JOIN FETCH ri.item " + "WHERE ri.room.id = :roomId")
   List<RoomItem> findByRoomIdWithItems(@Param("roomId") Integer roomId);
 
+  // 启动时加载房间物品账本
+  @Query("SELECT ri FROM RoomItem ri JOIN FETCH ri.item")
+  List<RoomItem> findAllWithItems();
+
   @Query("SELECT ri FROM RoomItem ri WHERE ri.room.id = :roomId AND ri.item.id = :itemId")
   Optional<RoomItem> findByRoomIdAndItemId(
       @Param("roomId") Integer roomId, @Param("itemId") Integer itemId);
@@ -1,5 +1,6 @@
 package com.example.demo1111111.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -42,4 +43,33 @@ public interface RoomRepository extends JpaRepository<RoomEntity, Integer> {
 
   // 4. 基本方法
   Optional<RoomEntity> findByName(String name);
+
+  // 5. 地图拓扑：只取出口ID等标量字段，不加载实体（供 WorldGraph 启动时使用）
+  @Query(
+      "SELECT r.id AS id, r.name AS name, r.description AS description,"
+          + " e.id AS exitEastId, w.id AS exitWestId, n.id AS exitNorthId, s.id AS exitSouthId,"
+          + " r.isTeleportRoom AS teleportRoom"
+          + " FROM RoomEntity r"
+          + " LEFT JOIN r.exitEast e LEFT JOIN r.exitWest w"
+          + " LEFT JOIN r.exitNorth n LEFT JOIN r.exitSouth s")
+  List<RoomTopology> findAllTopology();
+
+  /** 房间拓扑投影 */
+  interface RoomTopology {
+    Integer getId();
+
+    String getName();
+
+    String getDescription();
+
+    Integer getExitEastId();
+
+    Integer getExitWestId();
+
+    Integer getExitNorthId();
+
+    Integer getExitSouthId();
+
+    Boolean getTeleportRoom();
+  }
 }
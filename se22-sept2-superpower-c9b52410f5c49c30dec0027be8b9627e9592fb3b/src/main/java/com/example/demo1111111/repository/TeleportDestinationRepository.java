@@ -3,6 +3,7 @@ package com.example.demo1111111.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.demo1111111.entity.TeleportDestination;
 import com.example.demo1111111.entity.TeleportDestinationId;
@@ -11,4 +12,18 @@ public interface TeleportDestinationRepository
     extends JpaRepository<TeleportDestination, TeleportDestinationId> {
 
   List<TeleportDestination> findByTeleportRoomId(Integer teleportRoomId);
+
+  // 只取传送关系的两端ID（供 WorldGraph 启动时使用）
+  @Query(
+      "SELECT td.id.teleportRoomId AS teleportRoomId,"
+          + " td.id.destinationRoomId AS destinationRoomId"
+          + " FROM TeleportDestination td")
+  List<TeleportLink> findAllLinks();
+
+  /** 传送关系投影 */
+  interface TeleportLink {
+    Integer getTeleportRoomId();
+
+    Integer getDestinationRoomId();
+  }
 }
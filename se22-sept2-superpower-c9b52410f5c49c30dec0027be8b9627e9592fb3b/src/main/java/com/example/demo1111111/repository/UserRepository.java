@@ -3,6 +3,9 @@ package com.example.demo1111111.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo1111111.entity.User;
 
@@ -11,4 +14,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findBySessionId(String sessionId);
 
   Optional<User> findByUsername(String username);
+
+  // 退出登录：仅当会话仍是当前会话时清除
+  @Modifying
+  @Query("UPDATE User u SET u.sessionId = NULL WHERE u.id = :id AND u.sessionId = :sessionId")
+  int clearSessionId(@Param("id") Long id, @Param("sessionId") String sessionId);
+
+  // 只增加最大负重，不把内存中的 User 快照整行写回（last_login 等由 UserWriteBehindQueue 写回）
+  @Modifying
+  @Query("UPDATE User u SET u.maxCarryWeight = u.maxCarryWeight + :amount WHERE u.id = :id")
+  int increaseMaxCarryWeight(@Param("id") Long id, @Param("amount") double amount);
 }
@@ -0,0 +1,140 @@
+package com.example.demo1111111.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo1111111.command.CommandHandler;
+import com.example.demo1111111.command.CommandRegistry;
+import com.example.demo1111111.dto.GameResponse;
+
+/**
+ * 命令分发：按命令表找到处理器并执行。
+ *
+ * <p>修改状态的命令在一个事务中执行，成功后同步状态存储；只读命令（look、items、path）不开启外层事务，也不写状态存储。
+ */
+@Service
+public class CommandDispatcher {
+
+  // 单个命令脚本最多包含的命令数
+  private static final int MAX_SCRIPT_STEPS = 50;
+
+  private final GameService gameService;
+  private final CommandRegistry commandRegistry;
+  private final TransactionTemplate transactions;
+
+  @Autowired
+  public CommandDispatcher(
+      GameService gameService,
+      CommandRegistry commandRegistry,
+      PlatformTransactionManager transactionManager) {
+    this.gameService = gameService;
+    this.commandRegistry = commandRegistry;
+    this.transactions = new TransactionTemplate(transactionManager);
+  }
+
+  /** 命令的标准名称（别名换成原命令名），用于指标标签；未知命令原样返回 */
+  public String commandName(String command) {
+    CommandRegistry.Command entry = commandRegistry.find(command);
+    return entry != null ? entry.getCommandName() : command;
+  }
+
+  /** 命令是否需要访问数据库：修改状态的命令都需要；只读命令只读内存状态，但会话不在内存中时要先从数据库冷加载。未知命令直接返回失败。 */
+  public boolean usesDatabase(String sessionId, String command) {
+    CommandRegistry.Command entry = commandRegistry.find(command);
+    if (entry == null) return false;
+    return !entry.getHandler().isReadOnly() || !gameService.isSessionLoaded(sessionId);
+  }
+
+  public GameResponse processCommand(String sessionId, String command, String parameter) {
+    CommandRegistry.Command entry = commandRegistry.find(command);
+    if (entry == null) {
+      return GameResponse.failure("未知命令: " + command);
+    }
+    return inTransaction(entry, () -> execute(sessionId, entry, parameter));
+  }
+
+  /**
+   * 按顺序执行命令脚本（如 "go north; take key; look"），会话只校验一次，遇到失败的命令即停止。
+   *
+   * <p>每条命令各自在一个事务中执行：失败的命令连同它对内存状态的修改一起回滚，之前已成功的命令保留。
+   *
+   * @param includeSteps 为 true 时在响应中附带每一步的简要结果
+   * @return 最后执行的命令的响应
+   */
+  public GameResponse processScript(String sessionId, String script, boolean includeSteps) {
+    List<CommandParser.ParsedCommand> commands = CommandParser.parseScript(script);
+    if (commands.isEmpty()) {
+      return GameResponse.failure("命令脚本为空");
+    }
+    if (commands.size() > MAX_SCRIPT_STEPS) {
+      return GameResponse.failure("命令脚本最多包含 " + MAX_SCRIPT_STEPS + " 条命令");
+    }
+    SessionRegistry.SessionEntry session = gameService.resolveSession(sessionId);
+    if (session == null) {
+      return GameResponse.failure("会话已过期，请重新登录");
+    }
+
+    List<GameResponse.StepResult> steps = includeSteps ? new ArrayList<>() : null;
+    GameResponse response = null;
+    for (int i = 0; i < commands.size(); i++) {
+      CommandParser.ParsedCommand command = commands.get(i);
+      CommandRegistry.Command entry = commandRegistry.find(command.command());
+      response =
+          entry != null
+              ? inTransaction(entry, () -> dispatch(session, entry, command.parameter()))
+              : GameResponse.failure("未知命令: " + command.command());
+      if (steps != null) {
+        steps.add(GameResponse.StepResult.of(command.command(), command.parameter(), response));
+      }
+      if (!response.isSuccess()) {
+        response.setMessage("第 " + (i + 1) + " 步失败: " + response.getMessage());
+        break;
+      }
+    }
+    response.setSteps(steps);
+    return response;
+  }
+
+  // 修改状态的命令在独立事务中执行，只读命令直接执行
+  private GameResponse inTransaction(
+      CommandRegistry.Command entry, Supplier<GameResponse> command) {
+    if (entry.getHandler().isReadOnly()) {
+      return command.get();
+    }
+    return transactions.execute(
+        status -> {
+          GameResponse response = command.get();
+          // 失败的命令整体回滚（撤销内存修改的回调随之执行），返回失败响应而不是抛出 UnexpectedRollbackException
+          if (!response.isSuccess()) status.setRollbackOnly();
+          return response;
+        });
+  }
+
+  private GameResponse execute(String sessionId, CommandRegistry.Command entry, String parameter) {
+    // 解析会话（命中内存会话表时不访问数据库）
+    SessionRegistry.SessionEntry session = gameService.resolveSession(sessionId);
+    if (session == null) {
+      return GameResponse.failure("会话已过期，请重新登录");
+    }
+    return dispatch(session, entry, parameter);
+  }
+
+  // 执行命令（调用方已校验会话）
+  private GameResponse dispatch(
+      SessionRegistry.SessionEntry session, CommandRegistry.Command entry, String parameter) {
+    CommandHandler handler = entry.getHandler();
+    GameResponse response =
+        handler.handleCommand(session.getSessionId(), entry.parameterFor(parameter));
+    if (response.isSuccess() && !handler.isReadOnly()) {
+      // 位置、背包或历史有变化
+      gameService.commandApplied(session, handler.changesInventory());
+    }
+    return response;
+  }
+}
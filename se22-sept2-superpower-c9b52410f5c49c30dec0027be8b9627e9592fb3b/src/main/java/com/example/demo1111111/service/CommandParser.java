@@ -1,9 +1,65 @@
 package com.example.demo1111111.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** 命令解析：逐字符扫描，不使用正则，只为命令名和参数各创建一个字符串 */
 public class CommandParser {
   public static ParsedCommand parse(String input) {
-    String[] parts = input.trim().split("\\s+", 2);
-    return new ParsedCommand(parts[0].toLowerCase(), parts.length > 1 ? parts[1] : null);
+    return parse(input, 0, input.length());
+  }
+
+  /** 解析用分号或换行分隔的命令脚本，忽略空命令 */
+  public static List<ParsedCommand> parseScript(String script) {
+    List<ParsedCommand> commands = new ArrayList<>();
+    if (script == null) return commands;
+    int start = 0;
+    for (int i = 0; i <= script.length(); i++) {
+      if (i == script.length() || isSeparator(script.charAt(i))) {
+        if (!isBlank(script, start, i)) {
+          commands.add(parse(script, start, i));
+        }
+        start = i + 1;
+      }
+    }
+    return commands;
+  }
+
+  // 解析 input[start, end)：第一个单词为命令（小写），其余去掉首尾空白后为参数
+  private static ParsedCommand parse(String input, int start, int end) {
+    while (start < end && Character.isWhitespace(input.charAt(start))) start++;
+    while (end > start && Character.isWhitespace(input.charAt(end - 1))) end--;
+    int commandEnd = start;
+    while (commandEnd < end && !Character.isWhitespace(input.charAt(commandEnd))) commandEnd++;
+    int parameterStart = commandEnd;
+    while (parameterStart < end && Character.isWhitespace(input.charAt(parameterStart))) {
+      parameterStart++;
+    }
+    return new ParsedCommand(
+        lowerCase(input, start, commandEnd),
+        parameterStart < end ? input.substring(parameterStart, end) : null);
+  }
+
+  // 已经是小写时直接截取，不再额外转换
+  private static String lowerCase(String input, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (Character.isUpperCase(input.charAt(i))) {
+        return input.substring(start, end).toLowerCase(Locale.ROOT);
+      }
+    }
+    return input.substring(start, end);
+  }
+
+  private static boolean isSeparator(char c) {
+    return c == ';' || c == '\n' || c == '\r';
+  }
+
+  private static boolean isBlank(String input, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(input.charAt(i))) return false;
+    }
+    return true;
   }
 
   public record ParsedCommand(String command, String parameter) {}
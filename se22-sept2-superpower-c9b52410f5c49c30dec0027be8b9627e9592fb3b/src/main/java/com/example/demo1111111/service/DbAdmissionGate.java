@@ -0,0 +1,63 @@
+package com.example.demo1111111.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据库并发闸门：同时执行的命令数不超过 Hikari 连接池大小。
+ *
+ * <p>多出来的命令在公平信号量上排队（虚拟线程下只是挂起，不占平台线程），而不是挤进连接池等到 connection-timeout 后失败。
+ */
+@Component
+public class DbAdmissionGate {
+
+  private final Semaphore permits;
+  private final int maxPermits;
+  private final long timeoutMillis;
+
+  @Autowired
+  public DbAdmissionGate(
+      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPermits,
+      @Value("${game.db.gate-timeout-ms:30000}") long timeoutMillis) {
+    this.permits = new Semaphore(maxPermits, true);
+    this.maxPermits = maxPermits;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /** 获得许可后执行任务，超时未获得许可时抛出异常 */
+  public <T> T call(Supplier<T> task) {
+    try {
+      if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new RuntimeException("服务器繁忙，请稍后重试");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("请求被中断", e);
+    }
+    try {
+      return task.get();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /** 许可总数 */
+  public int getMaxPermits() {
+    return maxPermits;
+  }
+
+  /** 正在使用的许可数 */
+  public int getInUse() {
+    return maxPermits - permits.availablePermits();
+  }
+
+  /** 排队等待许可的线程数（估计值） */
+  public int getQueueLength() {
+    return permits.getQueueLength();
+  }
+}
@@ -1,21 +1,36 @@
 package com.example.demo1111111.service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.config.RoomHistory;
+import com.example.demo1111111.dto.GameDelta;
 import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.dto.PathResponse;
+import com.example.demo1111111.dto.PlayerView;
 import com.example.demo1111111.entity.*;
 import com.example.demo1111111.repository.*;
+import com.example.demo1111111.world.ItemCatalog;
+import com.example.demo1111111.world.PathFinder;
+import com.example.demo1111111.world.RoomDescriptionCache;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
 
 import jakarta.annotation.PostConstruct;
 
@@ -23,36 +38,68 @@ import jakarta.annotation.PostConstruct;
 public class GameService {
   // 数据库仓库
   private final RoomRepository roomRepo;
-  private final ItemRepository itemRepo;
-  private final RoomItemRepository roomItemRepo;
   private final TeleportDestinationRepository teleportRepo;
   private final PlayerInventoryRepository playerInventoryRepo;
   private final UserRepository userRepo;
+  private final SessionRegistry sessionRegistry;
+  private final WorldGraph worldGraph;
+  private final UserWriteBehindQueue userWriteBehind;
+  private final RoomItemLedger roomItemLedger;
+  private final RoomDescriptionCache roomDescriptions;
+  private final ItemCatalog itemCatalog;
+  private final GameStateStore gameStateStore;
+  private final PathFinder pathFinder;
+  // 会话冷加载用的只读事务（配置了只读副本时发往副本）
+  private final TransactionTemplate sessionLoad;
   private boolean magicCakePlaced = false;
   private static final String MAGIC_CAKE_NAME = "magic cake";
   private static final double WEIGHT_BOOST_AMOUNT = 10.0; // 提升10kg负重能力
 
-  // 会话存储 (改为 userId -> GameState)
-  private final Map<Long, GameState> sessionStore = new ConcurrentHashMap<>();
   private static final Logger logger = LoggerFactory.getLogger(GameService.class);
 
   // 会话超时时间 (30分钟)
   private static final long SESSION_TIMEOUT = 30 * 60 * 1000;
 
+  // travel 经过传送门落点不同时，最多从落点重新规划的次数
+  private static final int MAX_TRAVEL_REPLANS = 8;
+
+  // 会话被访问时延长状态存储有效期的最小间隔（只读命令不保存状态）
+  @Value("${game.state-store.touch-interval-ms:300000}")
+  private long stateStoreTouchInterval = 300_000;
+
+  // 每个会话最多记录的房间历史步数
+  @Value("${game.history.depth:" + RoomHistory.DEFAULT_DEPTH + "}")
+  private int historyDepth = RoomHistory.DEFAULT_DEPTH;
+
   @Autowired
   public GameService(
       RoomRepository roomRepo,
-      ItemRepository itemRepo,
-      RoomItemRepository roomItemRepo,
       TeleportDestinationRepository teleportRepo,
       PlayerInventoryRepository playerInventoryRepo,
-      UserRepository userRepo) {
+      UserRepository userRepo,
+      SessionRegistry sessionRegistry,
+      WorldGraph worldGraph,
+      UserWriteBehindQueue userWriteBehind,
+      RoomItemLedger roomItemLedger,
+      RoomDescriptionCache roomDescriptions,
+      ItemCatalog itemCatalog,
+      GameStateStore gameStateStore,
+      PathFinder pathFinder,
+      PlatformTransactionManager transactionManager) {
     this.roomRepo = roomRepo;
-    this.itemRepo = itemRepo;
-    this.roomItemRepo = roomItemRepo;
     this.teleportRepo = teleportRepo;
     this.playerInventoryRepo = playerInventoryRepo;
     this.userRepo = userRepo;
+    this.sessionRegistry = sessionRegistry;
+    this.worldGraph = worldGraph;
+    this.userWriteBehind = userWriteBehind;
+    this.roomItemLedger = roomItemLedger;
+    this.roomDescriptions = roomDescriptions;
+    this.itemCatalog = itemCatalog;
+    this.gameStateStore = gameStateStore;
+    this.pathFinder = pathFinder;
+    this.sessionLoad = new TransactionTemplate(transactionManager);
+    this.sessionLoad.setReadOnly(true);
   }
 
   // ==================== 用户登录和会话管理 ====================
@@ -63,6 +110,8 @@ public class GameService {
     if (!password.equals(user.getPassword())) {
       return GameResponse.failure("密码错误");
     }
+    // 数据库里的位置可能还没写回，以队列中的最新值为准
+    userWriteBehind.applyPending(user);
 
     // 2. 生成并保存新的 sessionId
     String sessionId = UUID.randomUUID().toString();
@@ -76,16 +125,17 @@ public class GameService {
     // 4. 加载用户库存：改为拿 List<PlayerInventory>，以获取 quantity
     List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
 
-    // 5. 从 PlayerInventory 中抽取纯 Item 列表，供 GameState 使用
-    List<Item> inventoryForState =
-        inventoryEntries.stream().map(PlayerInventory::getItem).collect(Collectors.toList());
+    // 5. 转为紧凑背包（物品ID -> 数量），供 GameState 使用
+    Inventory inventory = toInventory(inventoryEntries);
 
-    // 6. 创建游戏状态（GameState 中只存 Item 列表，不存 quantity）
-    GameState state = new GameState(sessionId, currentRoom, inventoryForState, false);
-    sessionStore.put(user.getId(), state);
+    // 6. 创建游戏状态
+    GameState state = new GameState(sessionId, currentRoom, inventory, false);
+    state.setRoomHistoryDepth(historyDepth);
+    sessionRegistry.register(sessionId, user, state);
+    saveStateAfterCommit(state);
 
-    // 7. 计算当前负重
-    double currentWeight = calculateCurrentWeight(inventoryForState);
+    // 7. 当前负重由背包同步维护
+    double currentWeight = inventory.getTotalWeight();
     double maxWeight = user.getMaxCarryWeight();
 
     // 8. 返回给前端：把 List<PlayerInventory> 传给 GameResponse.loginSuccess，
@@ -93,56 +143,51 @@ public class GameService {
     return GameResponse.loginSuccess(
         sessionId,
         "欢迎回来, " + username + "!",
-        currentRoom,
+        buildRoomDetail(currentRoom),
         inventoryEntries, // 改成传 List<PlayerInventory>
         user,
         currentWeight,
         maxWeight);
   }
 
-  // 计算当前总负重的方法
-  private double calculateCurrentWeight(List<Item> inventory) {
-    return inventory.stream().mapToDouble(Item::getWeight).sum();
+  // 把数据库中的背包记录转为紧凑背包，并登记到共享物品索引
+  private Inventory toInventory(List<PlayerInventory> entries) {
+    Inventory inventory = new Inventory();
+    for (PlayerInventory entry : entries) {
+      itemCatalog.register(entry.getItem());
+      inventory.add(entry.getItem(), entry.getQuantity());
+    }
+    return inventory;
+  }
+
+  // 背包中的物品详情（按放入顺序）
+  private List<Item> inventoryItems(Inventory inventory) {
+    List<Item> items = new ArrayList<>(inventory.size());
+    for (int i = 0; i < inventory.size(); i++) {
+      Item item = itemCatalog.get(inventory.itemIdAt(i));
+      if (item != null) items.add(item);
+    }
+    return items;
   }
 
   // 恢复用户游戏会话
   @Transactional
   public GameResponse restoreSession(String sessionId) {
-    // 1. 查找关联的用户
-    User user =
-        userRepo.findBySessionId(sessionId).orElseThrow(() -> new RuntimeException("会话不存在或已过期"));
-
-    // 2. 检查会话是否超时
-    if (isSessionExpired(user.getLastLogin())) {
-      sessionStore.remove(user.getId());
+    // 1. 解析会话（内存会话表优先，未命中再查库）
+    SessionRegistry.SessionEntry session = resolveSession(sessionId);
+    if (session == null) {
       return GameResponse.failure("会话已过期，请重新登录");
     }
+    User user = session.getUser();
 
-    // 3. 更新最后登录时间
-    user.setLastLogin(new Date());
-    userRepo.save(user);
-
-    // 4. 加载或创建游戏状态：这里创建 GameState 时依然只给它 List<Item>
-    GameState state =
-        sessionStore.computeIfAbsent(
-            user.getId(),
-            key -> {
-              RoomEntity currentRoom = loadUserRoom(user);
-              // 依旧把 PlayerInventory 转为 Item 列表
-              List<PlayerInventory> invEntries = loadPlayerInventory(user.getId());
-              List<Item> invForState =
-                  invEntries.stream().map(PlayerInventory::getItem).collect(Collectors.toList());
-              return new GameState(sessionId, currentRoom, invForState, false);
-            });
-
-    // 5. 加载完整的 PlayerInventory 列表，用于填充真实数量
+    // 2. 加载完整的 PlayerInventory 列表，用于填充真实数量
     List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
 
-    // 6. 返回响应：把 List<PlayerInventory> 交给 GameResponse
+    // 3. 返回响应：把 List<PlayerInventory> 交给 GameResponse
     return GameResponse.restoreSuccess(
         sessionId,
         "已恢复游戏",
-        state.getCurrentRoom(),
+        buildRoomDetail(loadUserRoom(user)),
         inventoryEntries, // 传 List<PlayerInventory>
         user);
   }
@@ -153,77 +198,145 @@ public class GameService {
   // ==================== 命令处理器 ====================
 
   // 通用命令前置验证
-  private GameState validateUserSession(String sessionId) {
-    // 1. 查找关联的用户
-    User user = userRepo.findBySessionId(sessionId).orElseThrow(() -> new RuntimeException("无效会话"));
-
-    // 2. 检查会话是否超时
-    if (isSessionExpired(user.getLastLogin())) {
-      sessionStore.remove(user.getId());
+  private SessionRegistry.SessionEntry validateUserSession(String sessionId) {
+    SessionRegistry.SessionEntry session = resolveSession(sessionId);
+    if (session == null) {
       throw new RuntimeException("会话已过期");
     }
+    return session;
+  }
 
-    // 3. 更新最后登录时间
-    user.setLastLogin(new Date());
-    userRepo.save(user);
+  /**
+   * 解析会话：优先命中内存会话表（零数据库访问），未命中时从数据库恢复并登记。
+   *
+   * @return 有效会话；会话已超时返回 null
+   */
+  public SessionRegistry.SessionEntry resolveSession(String sessionId) {
+    long now = System.currentTimeMillis();
+    SessionRegistry.SessionEntry session = sessionRegistry.get(sessionId);
+
+    if (session == null) {
+      // 冷路径：重启后或其他入口创建的会话，只有这里读数据库；已在命令事务中时加入该事务
+      session = sessionLoad.execute(status -> loadSession(sessionId));
+      if (session == null) {
+        return null;
+      }
+    } else if (session.isExpired(now, SESSION_TIMEOUT)) {
+      sessionRegistry.remove(sessionId);
+      gameStateStore.delete(sessionId);
+      return null;
+    }
 
-    // 4. 获取游戏状态
-    GameState state = sessionStore.get(user.getId());
+    // 只更新内存时间戳，last_login 由 UserWriteBehindQueue 定期写回；
+    // 失败说明会话在检查后恰好被定时清理移除
+    if (!session.touch(now)) {
+      return null;
+    }
+    // 只执行只读命令的会话不会保存状态，定期延长状态存储中的有效期，避免会话还在用时快照先过期
+    if (session.needsStoreTouch(now, stateStoreTouchInterval)) {
+      gameStateStore.touch(sessionId);
+    }
+    return session;
+  }
+
+  /** 会话是否在内存会话表中；不在时下一条命令会从数据库冷加载 */
+  public boolean isSessionLoaded(String sessionId) {
+    return sessionRegistry.get(sessionId) != null;
+  }
+
+  // 从数据库恢复会话并登记，会话已超时返回 null
+  private SessionRegistry.SessionEntry loadSession(String sessionId) {
+    User user =
+        userRepo.findBySessionId(sessionId).orElseThrow(() -> new RuntimeException("会话不存在或已过期"));
+    if (isSessionExpired(user.getLastLogin())) {
+      return null;
+    }
+    userWriteBehind.applyPending(user);
+    // 状态存储中有该会话时恢复完整状态（含房间历史），否则从数据库重建
+    GameState state = gameStateStore.load(sessionId);
     if (state == null) {
-      throw new RuntimeException("会话未初始化");
+      state = createGameState(sessionId, user);
     }
+    state.setRoomHistoryDepth(historyDepth);
+    return sessionRegistry.register(sessionId, user, state);
+  }
 
-    return state;
+  // 从数据库构建游戏状态
+  private GameState createGameState(String sessionId, User user) {
+    RoomEntity currentRoom = loadUserRoom(user);
+    return new GameState(
+        sessionId, currentRoom, toInventory(loadPlayerInventory(user.getId())), false);
+  }
+
+  /** 定期清理超时会话 */
+  @Scheduled(
+      fixedDelayString = "${game.session.evict-interval-ms:60000}",
+      initialDelayString = "${game.session.evict-interval-ms:60000}")
+  public void evictExpiredSessions() {
+    int evicted =
+        sessionRegistry.evictExpired(
+            System.currentTimeMillis(),
+            SESSION_TIMEOUT,
+            entry -> gameStateStore.delete(entry.getSessionId()));
+    if (evicted > 0) {
+      logger.debug("清理 {} 个超时会话", evicted);
+    }
+  }
+
+  // 退出登录：写回积压的玩家状态并注销会话
+  @Transactional
+  public GameResponse logoutUser(String sessionId) {
+    SessionRegistry.SessionEntry session = sessionRegistry.get(sessionId);
+    if (session == null) {
+      return GameResponse.failure("会话不存在或已过期");
+    }
+
+    userWriteBehind.recordLastLogin(session.getUserId(), session.getLastTouch());
+    userWriteBehind.flushUser(session.getUserId());
+    userRepo.clearSessionId(session.getUserId(), sessionId);
+    sessionRegistry.remove(sessionId);
+    gameStateStore.delete(sessionId);
+
+    return GameResponse.logoutSuccess("已退出登录");
   }
 
   // GO 命令处理器 (修改为基于用户ID)
   @Transactional
   public GameResponse processGoCommand(String sessionId, String direction) {
-    GameState state = validateUserSession(sessionId);
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
     if (direction == null || direction.isEmpty()) return GameResponse.failure("必须指定方向");
 
-    // 获取用户信息
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
-    if (user == null) return GameResponse.failure("用户不存在");
+    GameState state = session.getState();
+    User user = session.getUser();
 
-    // 获取当前房间并刷新数据
-    RoomEntity currentRoom = refreshRoom(state.getCurrentRoom().getId());
+    // 从内存地图获取当前房间（不访问数据库）
+    WorldGraph.Room currentRoom = requireRoom(state.getCurrentRoomId());
     String normalizedDir = direction.toLowerCase().trim();
 
     // 验证出口是否存在
-    RoomEntity nextRoom = currentRoom.getExitForDirection(normalizedDir);
+    WorldGraph.Room nextRoom = currentRoom.getExitForDirection(normalizedDir);
     if (nextRoom == null) return GameResponse.failure("无法向 " + direction + " 移动");
 
-    // 加载完整房间数据
-    RoomEntity fullNextRoom = refreshRoom(nextRoom.getId());
-
-    // 更新用户当前位置
-    user.setCurrentRoomId(fullNextRoom.getId());
-    userRepo.save(user);
-
     // 处理传送门房间逻辑
-    if (fullNextRoom.isTeleportRoom()) {
-      return handleTeleportation(state, currentRoom, fullNextRoom, user);
+    if (nextRoom.isTeleportRoom()) {
+      return handleTeleportation(state, currentRoom, nextRoom, user);
     }
 
     // 正常移动逻辑
-    return handleRegularMove(state, currentRoom, fullNextRoom, user);
+    return handleRegularMove(state, currentRoom, nextRoom, user);
   }
 
-  // LOOK 命令处理器
-  @Transactional
+  // LOOK 命令处理器（只读：房间、背包都来自内存，不开启事务；只有会话冷路径会读数据库）
   public GameResponse processLookCommand(String sessionId) {
     logger.debug("处理 look 命令: sessionId={}", sessionId);
 
     try {
-      GameState state = validateUserSession(sessionId);
-      User user = userRepo.findBySessionId(sessionId).orElse(null);
+      SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+      GameState state = session.getState();
+      User user = session.getUser();
 
-      // 获取并刷新当前房间数据
-      RoomEntity currentRoom = refreshRoom(state.getCurrentRoom().getId());
-
-      // 更新游戏状态中的房间引用
-      state.setCurrentRoomWithoutHistory(currentRoom);
+      // 从内存地图获取当前房间
+      WorldGraph.Room currentRoom = requireRoom(state.getCurrentRoomId());
 
       // 构建响应
       return buildLookResponse(state, currentRoom, user);
@@ -237,39 +350,50 @@ public class GameService {
   // BACK 命令处理器
   @Transactional
   public GameResponse processBackCommand(String sessionId) {
-    GameState state = validateUserSession(sessionId);
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
+    return processBackCommand(sessionId, null);
+  }
 
-    if (user == null) {
-      return GameResponse.failure("用户不存在");
+  // BACK N：一次返回 N 步（不带参数时返回 1 步）
+  @Transactional
+  public GameResponse processBackCommand(String sessionId, String parameter) {
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
+    User user = session.getUser();
+
+    int steps = parseSteps(parameter);
+    if (steps <= 0) {
+      return GameResponse.failure("返回步数必须是正整数");
     }
-
     if (!state.hasRoomHistory()) {
       return GameResponse.failure("没有可返回的路径");
     }
+    if (steps > state.getRoomHistorySize()) {
+      return GameResponse.failure("没有可返回的路径：最多只能返回 " + state.getRoomHistorySize() + " 步");
+    }
 
     try {
-      // 1. 从历史栈中弹出上一个房间（这是要返回的房间）
-      RoomEntity prevRoom = state.popRoomFromHistory();
+      // 1. 从历史中一次弹出 steps 条，最后一条就是要返回的房间
+      Integer prevRoomId = state.rewindRoomHistory(steps);
 
-      // 2. 重新加载完整房间数据
-      RoomEntity fullPrevRoom = refreshRoom(prevRoom.getId());
+      // 2. 从内存地图获取房间
+      WorldGraph.Room prevRoom = requireRoom(prevRoomId);
 
       // 3. 使用特殊方法移动到返回的房间（不记录历史）
-      // >>> 这是关键修改点 <<<
-      state.moveBackToRoom(fullPrevRoom);
+      state.moveBackToRoom(prevRoom.getId());
 
-      // 4. 更新用户位置
-      user.setCurrentRoomId(fullPrevRoom.getId());
-      userRepo.save(user);
+      // 4. 更新用户位置（异步写回）
+      user.setCurrentRoomId(prevRoom.getId());
+      userWriteBehind.recordPosition(user.getId(), prevRoom.getId());
 
-      logger.debug("Back命令后，历史栈大小: {}", state.getRoomHistorySize());
+      if (logger.isDebugEnabled()) {
+        logger.debug("Back命令后，历史栈大小: {}", state.getRoomHistorySize());
+      }
 
       return GameResponse.success(
           sessionId,
-          "返回成功：" + fullPrevRoom.getDescription(),
-          fullPrevRoom,
-          state.getInventory(),
+          "返回成功：" + prevRoom.getDescription(),
+          buildRoomDetail(prevRoom),
+          inventoryItems(state.getInventory()),
           GameResponse.UserInfo.fromUser(user));
     } catch (Exception e) {
       logger.error("返回过程中发生错误", e);
@@ -277,34 +401,158 @@ public class GameService {
     }
   }
 
+  // 返回步数，未指定为 1，不是正整数时返回 0
+  private static int parseSteps(String parameter) {
+    if (parameter == null || parameter.isBlank()) return 1;
+    try {
+      return Math.max(Integer.parseInt(parameter.trim()), 0);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  // PATH 命令：列出走过的房间（从最早到当前），只读
+  public GameResponse processPathCommand(String sessionId) {
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
+    User user = session.getUser();
+
+    try {
+      WorldGraph.Room currentRoom = requireRoom(state.getCurrentRoomId());
+      StringBuilder path = new StringBuilder("走过的路线：");
+      for (int roomId : state.getRoomHistoryIds()) {
+        WorldGraph.Room room = worldGraph.getRoom(roomId);
+        path.append(room != null ? room.getName() : "#" + roomId).append(" -> ");
+      }
+      path.append(currentRoom.getName()).append("（当前）");
+
+      return GameResponse.success(
+          sessionId,
+          path.toString(),
+          buildRoomDetail(currentRoom),
+          inventoryItems(state.getInventory()),
+          GameResponse.UserInfo.fromUser(user));
+    } catch (Exception e) {
+      logger.error("查看路线失败: sessionId={}", sessionId, e);
+      return GameResponse.failure("查看路线失败: " + e.getMessage());
+    }
+  }
+
+  // TRAVEL 命令：按最短路线一次走到目的地（在服务器端逐步移动，只返回最终结果）
+  @Transactional
+  public GameResponse processTravelCommand(String sessionId, String destination) {
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    if (destination == null || destination.isBlank()) return GameResponse.failure("必须指定目的地");
+
+    GameState state = session.getState();
+    User user = session.getUser();
+
+    WorldGraph.Room target = worldGraph.findByNameIgnoreCase(destination);
+    if (target == null) return GameResponse.failure("没有名为 " + destination.trim() + " 的房间");
+    if (target.isTeleportRoom()) return GameResponse.failure("传送门房间不能作为目的地");
+
+    WorldGraph.Room current = requireRoom(state.getCurrentRoomId());
+    if (current == target) return GameResponse.failure("你已经在 " + target.getName() + " 了");
+
+    StringBuilder route = new StringBuilder(current.getName());
+    int steps = 0;
+    for (int plan = 0; plan <= MAX_TRAVEL_REPLANS && current != target; plan++) {
+      // 优先走确定的路线，走不通时才经过传送门
+      PathFinder.Route path = pathFinder.find(current, target, false);
+      if (path == null) path = pathFinder.find(current, target, true);
+      if (path == null) break;
+
+      for (int i = 0; i < path.length(); i++) {
+        WorldGraph.Room next = current.getExitForDirection(path.getDirection(i));
+        state.pushRoomToHistory(current.getId());
+        if (next.isTeleportRoom()) {
+          WorldGraph.Room landed = next.getRandomDestination();
+          state.setCurrentRoomWithoutHistory(landed.getId());
+          route.append(" -> [").append(next.getName()).append("] -> ").append(landed.getName());
+          current = landed;
+        } else {
+          state.moveToNewRoom(next.getId());
+          route.append(" -> ").append(next.getName());
+          current = next;
+        }
+        steps++;
+        // 传送落点与计划不同，从落点重新规划
+        if (current != path.getRoom(i)) break;
+      }
+    }
+
+    if (steps == 0) return GameResponse.failure("无法到达 " + target.getName());
+
+    // 整条路线只写回一次位置
+    user.setCurrentRoomId(current.getId());
+    userWriteBehind.recordPosition(user.getId(), current.getId());
+
+    String prefix =
+        current == target
+            ? "经过 " + steps + " 步到达（" + route + "）："
+            : "未能到达 " + target.getName() + "，停在了（" + route + "）：";
+    return buildSuccessResponse(state, current, prefix, user);
+  }
+
+  /**
+   * 查询最短路线，不移动
+   *
+   * @param from 起点房间名，为空时从当前房间出发
+   * @param teleports 是否允许经过传送门
+   */
+  public PathResponse findPath(String sessionId, String from, String to, boolean teleports) {
+    try {
+      SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+      WorldGraph.Room start =
+          from == null || from.isBlank()
+              ? requireRoom(session.getState().getCurrentRoomId())
+              : worldGraph.findByNameIgnoreCase(from);
+      WorldGraph.Room target = worldGraph.findByNameIgnoreCase(to);
+      if (start == null) return PathResponse.failure("没有名为 " + from.trim() + " 的房间");
+      if (target == null) return PathResponse.failure("没有名为 " + to + " 的房间");
+
+      PathFinder.Route route = pathFinder.find(start, target, teleports);
+      if (route == null) return PathResponse.failure("无法到达 " + target.getName());
+
+      List<PathResponse.Step> steps = new ArrayList<>(route.length());
+      for (int i = 0; i < route.length(); i++) {
+        steps.add(new PathResponse.Step(route.getDirection(i), route.getRoom(i).getName()));
+      }
+      return PathResponse.builder()
+          .success(true)
+          .from(start.getName())
+          .to(target.getName())
+          .length(route.length())
+          .probabilistic(route.isProbabilistic())
+          .steps(steps)
+          .build();
+    } catch (Exception e) {
+      logger.error("查询路线失败: sessionId={}", sessionId, e);
+      return PathResponse.failure("查询路线失败: " + e.getMessage());
+    }
+  }
+
   // TAKE 命令处理器 (改为基于用户ID)
   @Transactional(propagation = Propagation.REQUIRED)
   public GameResponse processTakeCommand(String sessionId, String itemName) {
     logger.debug("处理 take 命令: sessionId={}, itemName={}", sessionId, itemName);
 
-    GameState state = validateUserSession(sessionId);
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
+    User user = session.getUser();
 
     try {
       // 获取当前房间
-      RoomEntity currentRoom = state.getCurrentRoom();
-
-      // 查找目标物品
-      // 查找目标物品（使用新的匹配方法）
-      Optional<RoomItem> targetRoomItemOpt =
-          currentRoom.getRoomItems().stream()
-              .filter(ri -> matchesItemName(ri.getItem(), itemName))
-              .findFirst();
+      WorldGraph.Room currentRoom = requireRoom(state.getCurrentRoomId());
 
-      if (targetRoomItemOpt.isEmpty()) {
+      // 查找目标物品（经物品目录按名称解析）
+      Item item = findRoomItem(currentRoom.getId(), itemName);
+      if (item == null) {
         return GameResponse.failure("房间中没有 " + itemName);
       }
 
-      RoomItem targetRoomItem = targetRoomItemOpt.get();
-      Item item = targetRoomItem.getItem();
-
-      // 检查是否超重
-      double currentWeight = calculateCurrentWeight(state.getInventory());
+      // 检查是否超重（总重量由背包同步维护，O(1)）
+      double currentWeight = state.getInventory().getTotalWeight();
       double itemWeight = item.getWeight();
       double maxWeight = user.getMaxCarryWeight();
 
@@ -313,30 +561,32 @@ public class GameService {
             "太重了！无法拾取 " + itemName + "\n当前负重: " + currentWeight + "kg/" + maxWeight + "kg");
       }
 
-      // 从房间移除物品
-      removeItemFromRoom(currentRoom, item);
+      // 从房间取走物品（原子操作，多人同时拾取最后一个时只有一人成功）
+      if (!roomItemLedger.take(currentRoom.getId(), item.getId())) {
+        return GameResponse.failure("房间中没有 " + itemName);
+      }
+
+      // 事务回滚（包括写库失败和提交失败）时把物品放回房间
+      undoOnRollback(() -> roomItemLedger.drop(currentRoom.getId(), item));
 
-      // 添加到玩家库存
+      // 添加到玩家库存，回滚时同样从内存背包移除
       addItemToPlayerInventory(user.getId(), item);
-      state.addToInventory(item);
+      Inventory inventory = state.getInventory();
+      inventory.add(item);
+      undoOnRollback(() -> inventory.remove(item));
 
-      // 重新计算拾取后的负重
-      double newWeight = currentWeight + itemWeight;
-      List<PlayerInventory> inventoryEntries = playerInventoryRepo.findByUserId(user.getId());
+      // 背包和负重取自内存，不再回查数据库
       return GameResponse.inventoryUpdate(
           sessionId,
-          currentRoom,
-          inventoryEntries,
+          buildRoomDetail(currentRoom),
+          state.getInventory(),
+          itemCatalog,
           "获得物品: " + item.getName(),
-          newWeight,
           maxWeight);
     } catch (Exception e) {
       logger.error("取物品失败: sessionId={}, item={}", sessionId, itemName, e);
 
-      if (TransactionAspectSupport.currentTransactionStatus() != null) {
-        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
-      }
-
+      markRollbackOnly();
       return GameResponse.failure("操作失败: " + e.getMessage());
     }
   }
@@ -346,99 +596,65 @@ public class GameService {
     logger.debug("处理 drop 命令: sessionId={}, itemName={}", sessionId, itemName);
 
     // (1) 验证会话并拿到 state、user
-    GameState state = validateUserSession(sessionId);
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
-    if (user == null) {
-      return GameResponse.failure("用户不存在");
-    }
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
+    User user = session.getUser();
 
-    // (2) 在内存背包中查找该物品（只判断是否存在）
-    Optional<Item> itemOpt =
-        state.getInventory().stream().filter(it -> matchesItemName(it, itemName)).findFirst();
-    if (!itemOpt.isPresent()) {
+    // (2) 按名称在内存背包里查找
+    Item item = findInventoryItem(state.getInventory(), itemName);
+    if (item == null) {
       return GameResponse.failure("您的背包中没有该物品: " + itemName);
     }
-    Item item = itemOpt.get();
 
     try {
-      // (3) 先在数据库中减少/删除该物品的 PlayerInventory 记录
-      removeItemFromPlayerInventory(user.getId(), item);
-
-      // (4) 检查数据库里这一条记录是否还存在
-      boolean stillInDb =
-          playerInventoryRepo
-              .findByUserIdAndItemId(user.getId(), Long.valueOf(item.getId()))
-              .isPresent();
-
-      // (5) 如果 DB 里已没有该物品（quantity 最终从 1→0 被删除），才从 state.inventory 移除
-      if (!stillInDb) {
-        state.removeFromInventory(item);
+      // (3) 先在数据库中减少/删除该物品的 PlayerInventory 记录（条件减一，最后一个时删除）；
+      //     数据库中没有时不修改内存，整个命令回滚
+      if (!removeItemFromPlayerInventory(user.getId(), item)) {
+        markRollbackOnly();
+        return GameResponse.failure("您的背包中没有该物品: " + itemName);
       }
 
-      // (6) 把物品放回房间
-      RoomEntity currentRoom = refreshRoom(state.getCurrentRoom().getId());
-      addItemToRoom(currentRoom, item);
-      state.setCurrentRoomWithoutHistory(currentRoom);
+      // (4) 内存背包同步减一（数量减到 0 时移除），不再回查数据库；事务回滚时加回
+      Inventory inventory = state.getInventory();
+      inventory.remove(item);
+      undoOnRollback(() -> inventory.add(item));
 
-      // (7) 重新加载数据库中这个用户的 PlayerInventory 列表，以获取最新 quantity
-      List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
+      // (5) 把物品放回房间；事务回滚时再从房间取走
+      WorldGraph.Room currentRoom = requireRoom(state.getCurrentRoomId());
+      roomItemLedger.drop(currentRoom.getId(), item);
+      undoOnRollback(() -> roomItemLedger.take(currentRoom.getId(), item.getId()));
 
-      // (8) 计算玩家当前负重
-      double newWeight =
-          inventoryEntries.stream()
-              .mapToDouble(pi -> pi.getItem().getWeight() * pi.getQuantity())
-              .sum();
-      double maxWeight = user.getMaxCarryWeight();
-
-      // (9) 用接收 List<PlayerInventory> 的 inventoryUpdate(...) 返回给前端
+      // (6) 背包和负重取自内存
       return GameResponse.inventoryUpdate(
           sessionId,
-          currentRoom,
-          inventoryEntries, // 传 List<PlayerInventory>
+          buildRoomDetail(currentRoom),
+          state.getInventory(),
+          itemCatalog,
           "您丢弃了物品: " + itemName,
-          newWeight,
-          maxWeight);
+          user.getMaxCarryWeight());
     } catch (Exception e) {
       logger.error("丢弃物品失败", e);
+      markRollbackOnly();
       return GameResponse.failure("丢弃物品失败: " + e.getMessage());
     }
   }
 
-  // ITEMS 命令处理器
-  @Transactional
+  // ITEMS 命令处理器（只读，同 LOOK）
   public GameResponse processItemsCommand(String sessionId) {
-    GameState state = validateUserSession(sessionId);
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
-    if (user == null) {
-      return GameResponse.failure("用户不存在");
-    }
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
 
-    // 1. 刷新并拿到当前房间
-    RoomEntity currentRoom = refreshRoom(state.getCurrentRoom().getId());
+    // 1. 拿到当前房间的物品
+    List<RoomItemLedger.Entry> roomItems =
+        loadRoomItems(requireRoom(state.getCurrentRoomId()).getId());
 
     // 2. 计算房间中所有物品的总重量（保持不变）
     double roomTotalWeight =
-        currentRoom.getRoomItems().stream()
-            .mapToDouble(ri -> ri.getItem().getWeight() * ri.getQuantity())
-            .sum();
-
-    // 3. 从数据库拿到玩家库存及数量
-    List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
+        roomItems.stream().mapToDouble(RoomItemLedger.Entry::getTotalWeight).sum();
 
-    // 4. 计算玩家物品总重量时，要把重量乘以每个条目的 quantity
-    double playerTotalWeight =
-        inventoryEntries.stream()
-            .mapToDouble(pi -> pi.getItem().getWeight() * pi.getQuantity())
-            .sum();
-
-    // 5. 把这些数据一并交给新的 itemsResponse
+    // 3. 玩家背包及数量、总重量都来自内存背包，物品详情来自物品目录
     return GameResponse.itemsResponse(
-        sessionId,
-        "物品清单",
-        currentRoom,
-        inventoryEntries, // 传 List<PlayerInventory>
-        roomTotalWeight,
-        playerTotalWeight);
+        sessionId, "物品清单", roomItems, state.getInventory(), itemCatalog, roomTotalWeight);
   }
 
   // ==================== 辅助方法 ====================
@@ -474,139 +690,126 @@ public class GameService {
     return (currentTime - lastLogin.getTime()) > SESSION_TIMEOUT;
   }
 
-  // 刷新房间数据
-  private RoomEntity refreshRoom(Integer roomId) {
-    // 保持原有实现不变
-    logger.debug("深度刷新房间数据: roomId={}", roomId);
-    return roomRepo
-        .findByIdWithFullData(roomId)
-        .orElseThrow(() -> new RuntimeException("房间不存在: " + roomId));
+  // 从内存地图获取房间
+  private WorldGraph.Room requireRoom(Integer roomId) {
+    WorldGraph.Room room = worldGraph.getRoom(roomId);
+    if (room == null) {
+      throw new RuntimeException("房间不存在: " + roomId);
+    }
+    return room;
+  }
+
+  // 房间中名称匹配的物品：先经物品目录解析（同名物品取房间里实际有的那个），目录里还没有的物品（刷新后新增）再扫描房间物品
+  private Item findRoomItem(int roomId, String itemName) {
+    List<Item> candidates = itemCatalog.resolveAll(itemName);
+    if (!candidates.isEmpty()) {
+      for (Item item : candidates) {
+        if (roomItemLedger.getQuantity(roomId, item.getId()) > 0) return item;
+      }
+      return null;
+    }
+    if (itemName == null) {
+      return null;
+    }
+    // 目录中没有：可能是目录加载后才加入物品表的物品，在房间物品中查找并补登记
+    for (RoomItemLedger.Entry entry : loadRoomItems(roomId)) {
+      if (matchesItemName(entry.getItem(), itemName)) {
+        itemCatalog.register(entry.getItem());
+        return entry.getItem();
+      }
+    }
+    return null;
+  }
+
+  // 背包中名称匹配的物品（同名物品有多个时取背包里实际有的那个）
+  private Item findInventoryItem(Inventory inventory, String itemName) {
+    for (Item item : itemCatalog.resolveAll(itemName)) {
+      if (inventory.contains(item.getId())) return item;
+    }
+    return null;
+  }
+
+  // 加载房间物品（房间里唯一的可变数据，来自内存账本）
+  private List<RoomItemLedger.Entry> loadRoomItems(Integer roomId) {
+    return roomItemLedger.getItems(roomId);
+  }
+
+  // 构建房间详情：拓扑来自内存地图，物品来自房间物品账本
+  private GameResponse.RoomDetail buildRoomDetail(WorldGraph.Room room) {
+    return GameResponse.RoomDetail.fromWorld(room, loadRoomItems(room.getId()));
+  }
+
+  // 登录/恢复时优先使用内存地图和账本（数据库中的房间物品可能尚未写回）
+  private GameResponse.RoomDetail buildRoomDetail(RoomEntity room) {
+    WorldGraph.Room worldRoom = room != null ? worldGraph.getRoom(room.getId()) : null;
+    return worldRoom != null ? buildRoomDetail(worldRoom) : GameResponse.RoomDetail.fromRoom(room);
   }
 
   // 传送门处理逻辑 (添加用户参数)
   private GameResponse handleTeleportation(
-      GameState state, RoomEntity originRoom, RoomEntity teleportRoom, User user) {
+      GameState state, WorldGraph.Room originRoom, WorldGraph.Room teleportRoom, User user) {
     // 安全获取传送目的地
-    RoomEntity destination = teleportRoom.getRandomDestination();
+    WorldGraph.Room destination = teleportRoom.getRandomDestination();
 
     // 检查目的地的有效性
     if (destination == null) {
       return GameResponse.failure("传送门没有配置目的地！");
     }
 
-    // 加载目的地房间数据
-    RoomEntity fullDestination = refreshRoom(destination.getId());
-
     // 更新状态（不记录传送门房间到历史）
-    state.pushRoomToHistory(originRoom); // 记录传送前的原始房间
-    state.setCurrentRoomWithoutHistory(fullDestination); // 不触发自动历史记录
+    state.pushRoomToHistory(originRoom.getId()); // 记录传送前的原始房间
+    state.setCurrentRoomWithoutHistory(destination.getId()); // 不触发自动历史记录
 
-    // 更新用户位置
-    user.setCurrentRoomId(fullDestination.getId());
-    userRepo.save(user);
+    // 更新用户位置（异步写回）
+    user.setCurrentRoomId(destination.getId());
+    userWriteBehind.recordPosition(user.getId(), destination.getId());
 
-    return buildSuccessResponse(state, fullDestination, "嗡！你被传送到：", user);
+    return buildSuccessResponse(state, destination, "嗡！你被传送到：", user);
   }
 
   // 普通移动处理逻辑 (添加用户参数)
   private GameResponse handleRegularMove(
-      GameState state, RoomEntity currentRoom, RoomEntity nextRoom, User user) {
+      GameState state, WorldGraph.Room currentRoom, WorldGraph.Room nextRoom, User user) {
     // 记录历史并更新房间
-    state.pushRoomToHistory(currentRoom);
-    state.moveToNewRoom(nextRoom);
+    state.pushRoomToHistory(currentRoom.getId());
+    state.moveToNewRoom(nextRoom.getId());
 
-    // 更新用户位置
+    // 更新用户位置（异步写回）
     user.setCurrentRoomId(nextRoom.getId());
-    userRepo.save(user);
+    userWriteBehind.recordPosition(user.getId(), nextRoom.getId());
 
     return buildSuccessResponse(state, nextRoom, "你移动到了：", user);
   }
 
   // 构建成功响应 (添加用户参数)
   private GameResponse buildSuccessResponse(
-      GameState state, RoomEntity room, String prefix, User user) {
-    // ① 先重新从数据库里取这位用户的完整库存记录，拿到真正的 quantity
-    List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
-
-    // ② 计算当前负重 (可选，如果你只想返回列表而不更新负重，也可以用一个专门不带重量的方法)
-    double currentWeight =
-        inventoryEntries.stream()
-            .mapToDouble(pi -> pi.getItem().getWeight() * pi.getQuantity())
-            .sum();
-    double maxWeight = user.getMaxCarryWeight();
-
-    // ③ 调用重载版 inventoryUpdate(...)，它会把 item + quantity 全部写入响应
+      GameState state, WorldGraph.Room room, String prefix, User user) {
+    // 背包和负重取自内存背包（同 LOOK），移动不再查询 player_inventory
     return GameResponse.inventoryUpdate(
         state.getSessionId(),
-        room,
-        inventoryEntries, // 传 List<PlayerInventory>，保留真实数量
+        buildRoomDetail(room),
+        state.getInventory(),
+        itemCatalog,
         prefix + room.getDescription(),
-        currentWeight,
-        maxWeight);
+        user.getMaxCarryWeight());
   }
 
   // 构建 LOOK 响应 (添加用户参数)
-  private GameResponse buildLookResponse(GameState state, RoomEntity room, User user) {
-    // ① 重新从数据库里加载这位用户真实的背包记录
-    List<PlayerInventory> inventoryEntries = loadPlayerInventory(user.getId());
-
-    // ② 计算当前总负重，后面用来返回
-    double currentWeight =
-        inventoryEntries.stream()
-            .mapToDouble(pi -> pi.getItem().getWeight() * pi.getQuantity())
-            .sum();
-    double maxWeight = user.getMaxCarryWeight();
-
-    // ③ 用新的工厂方法专门返回：要把房间信息 + 背包（含真实 quantity）一起打包
+  private GameResponse buildLookResponse(GameState state, WorldGraph.Room room, User user) {
+    // 背包（含数量和总负重）与数据库同步维护，直接用内存背包，不再每次查询 player_inventory
+    RoomItemLedger.RoomStock roomItems = roomItemLedger.getStock(room.getId());
     return GameResponse.inventoryUpdate(
         state.getSessionId(),
-        room,
-        inventoryEntries, // 真实 quantity
-        buildRoomDescription(room), // 作为 message
-        currentWeight,
-        maxWeight);
+        GameResponse.RoomDetail.fromWorld(room, roomItems.getEntries()),
+        state.getInventory(),
+        itemCatalog,
+        roomDescriptions.describe(room, roomItems), // 作为 message（房间物品不变时直接复用）
+        user.getMaxCarryWeight());
   }
 
-  private String buildRoomDescription(RoomEntity room) {
-    // 构建房间描述
-    StringBuilder sb = new StringBuilder();
-    sb.append("=== ").append(room.getName()).append(" ===\n");
-    sb.append(room.getDescription()).append("\n\n");
-
-    // 添加出口信息
-    List<String> exits = room.getValidExitDirections();
-    if (!exits.isEmpty()) {
-      sb.append("出口: ").append(String.join(", ", exits)).append("\n");
-    }
-
-    // 添加物品信息
-    if (room.getRoomItems().isEmpty()) {
-      sb.append("\n这里没有可见的物品");
-    } else {
-      sb.append("\n房间物品:\n");
-      room.getRoomItems()
-          .forEach(
-              ri -> {
-                Item item = ri.getItem();
-                sb.append("- ")
-                    .append(item.getName())
-                    .append(" (数量: ")
-                    .append(ri.getQuantity())
-                    .append(", 重量: ")
-                    .append(item.getWeight())
-                    .append("kg")
-                    .append(")\n   ")
-                    .append(item.getDescription())
-                    .append("\n");
-              });
-    }
-
-    // 添加传送门信息
-    if (room.isTeleportRoom() && room.getTeleportDestinations() != null) {
-      sb.append("\n传送门能量波动中，可能通往未知领域...");
-    }
-
-    return sb.toString();
+  // 包级可见，供基准测试直接调用（不经过缓存）
+  static String buildRoomDescription(WorldGraph.Room room, List<RoomItemLedger.Entry> roomItems) {
+    return RoomDescriptionCache.render(room, roomItems);
   }
 
   // 转换物品栏格式
@@ -632,168 +835,191 @@ public class GameService {
 
   // ==================== 数据库操作方法 (修改为基于用户ID) ====================
 
-  @Transactional
-  public void removeItemFromRoom(RoomEntity room, Item item) {
-    // 找到要移除的房间物品
-    RoomItem roomItem =
-        room.getRoomItems().stream()
-            .filter(ri -> ri.getItem().equals(item))
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("物品不存在于房间"));
-
-    // 获取当前数量（空值安全处理）
-    Integer quantity = roomItem.getQuantity();
-    int currentQuantity = (quantity != null) ? quantity : 1; // 默认为1
-
-    if (currentQuantity > 1) {
-      // 减少数量
-      roomItem.setQuantity(currentQuantity - 1);
-      roomItemRepo.save(roomItem); // 显式保存更改
-    } else {
-      // 完全移除物品
-      room.getRoomItems().remove(roomItem);
-      roomItemRepo.delete(roomItem); // 显式删除记录
+  // 当前事务没有提交（回滚，或提交时失败）时执行 undo，撤销命令对内存状态的修改；不在事务中时不登记
+  private static void undoOnRollback(Runnable undo) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
     }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+              undo.run();
+            }
+          }
+        });
+  }
 
-    // 保存父实体
-    roomRepo.save(room);
+  // 命令失败时标记当前事务只回滚
+  private static void markRollbackOnly() {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+    }
   }
 
+  // 单条 upsert，并发拾取同一物品时不会丢失更新
   @Transactional(propagation = Propagation.MANDATORY)
   public void addItemToPlayerInventory(Long userId, Item item) {
-    // 使用用户ID查找记录
-    Optional<PlayerInventory> existingOpt =
-        playerInventoryRepo.findByUserIdAndItemId(userId, Long.valueOf(item.getId()));
-
-    if (existingOpt.isPresent()) {
-      PlayerInventory existing = existingOpt.get();
-      existing.setQuantity(existing.getQuantity() + 1);
-      playerInventoryRepo.save(existing);
-    } else {
-      PlayerInventory newEntry = new PlayerInventory();
-      newEntry.setUserId(userId); // 使用用户ID而非sessionId
-      newEntry.setItem(item);
-      newEntry.setQuantity(1);
-      playerInventoryRepo.save(newEntry);
-    }
+    playerInventoryRepo.incrementQuantity(userId, item.getId());
   }
 
+  /**
+   * 背包中的该物品减少一个：先做条件减一，只剩最后一个时再删除记录。
+   *
+   * <p>两条语句之间的串行由会话命令队列保证（同一玩家的命令依次执行），见 PlayerInventoryRepository。
+   *
+   * @return 数据库中没有该物品时返回 false
+   */
   @Transactional(propagation = Propagation.MANDATORY)
-  public void removeItemFromPlayerInventory(Long userId, Item item) {
-    // 根据用户ID查找记录
-    Optional<PlayerInventory> existingOpt =
-        playerInventoryRepo.findByUserIdAndItemId(userId, Long.valueOf(item.getId()));
-
-    if (existingOpt.isPresent()) {
-      PlayerInventory existing = existingOpt.get();
-      if (existing.getQuantity() > 1) {
-        existing.setQuantity(existing.getQuantity() - 1);
-        playerInventoryRepo.save(existing);
-      } else {
-        playerInventoryRepo.deleteById(existing.getId());
+  public boolean removeItemFromPlayerInventory(Long userId, Item item) {
+    if (playerInventoryRepo.decrementQuantity(userId, item.getId()) > 0) {
+      return true;
+    }
+    if (playerInventoryRepo.deleteLastOne(userId, item.getId()) > 0) {
+      return true;
+    }
+    logger.warn("数据库背包中没有该物品: userId={}, itemId={}", userId, item.getId());
+    return false;
+  }
+
+  /**
+   * 构建玩家此刻看到的状态（房间、背包、负重），用于计算增量。
+   *
+   * <p>房间、背包和负重都取自内存，不访问数据库。背包没有变化时（修订号与 previous 相同）直接沿用 previous 的背包。
+   *
+   * @return 会话无效时返回 null
+   */
+  public PlayerView buildPlayerView(String sessionId, PlayerView previous) {
+    SessionRegistry.SessionEntry session = resolveSession(sessionId);
+    if (session == null) {
+      return null;
+    }
+    GameState state = session.getState();
+    User user = session.getUser();
+    WorldGraph.Room room = requireRoom(state.getCurrentRoomId());
+
+    // 背包有变化时按内存背包重建，物品详情来自物品目录
+    long inventoryRevision = session.getViews().getInventoryRevision();
+    Map<String, GameResponse.ItemDetail> inventory;
+    if (previous == null || previous.getInventoryRevision() != inventoryRevision) {
+      Inventory items = state.getInventory();
+      inventory = new LinkedHashMap<>();
+      for (int i = 0; i < items.size(); i++) {
+        Item item = itemCatalog.get(items.itemIdAt(i));
+        if (item == null) continue;
+        GameResponse.ItemDetail detail = GameResponse.ItemDetail.fromItem(item);
+        detail.setQuantity(items.quantityAt(i));
+        inventory.put(detail.getName(), detail);
       }
+    } else {
+      inventory = previous.getInventory();
+    }
+
+    return PlayerView.builder()
+        .roomId(room.getId())
+        .roomName(room.getName())
+        .room(buildRoomDetail(room))
+        .inventory(inventory)
+        .currentWeight(state.getInventory().getTotalWeight())
+        .maxWeight(user.getMaxCarryWeight())
+        .gameOver(state.isGameOver())
+        .inventoryRevision(inventoryRevision)
+        .build();
+  }
+
+  /**
+   * 记录会话当前状态为一个新版本（登录、恢复时的完整快照），返回版本号。
+   *
+   * @return 会话无效时返回 null
+   */
+  public Long snapshotVersion(String sessionId) {
+    PlayerView view = buildPlayerView(sessionId, null);
+    if (view == null) {
+      return null;
     }
+    return sessionRegistry.get(sessionId).getViews().record(view);
   }
 
-  // 添加物品到房间
-  private void addItemToRoom(RoomEntity room, Item item) {
-    // 按 Item ID 比较，而不是用 .equals(item)
-    RoomItem existingItem =
-        room.getRoomItems().stream()
-            .filter(
-                ri -> {
-                  // 先防空，再按 id 比较
-                  Item roomItem = ri.getItem();
-                  return roomItem != null
-                      && roomItem.getId() != null
-                      && roomItem.getId().equals(item.getId());
-                })
-            .findFirst()
-            .orElse(null);
-
-    if (existingItem != null) {
-      // 房间已有该物品，只更新数量
-      Integer quantity = existingItem.getQuantity();
-      int currentQuantity = (quantity != null) ? quantity : 0;
-      existingItem.setQuantity(currentQuantity + 1);
-      roomItemRepo.save(existingItem);
+  /**
+   * 命令执行后，返回相对客户端已知版本 since 的增量并记录新版本；since 已不在历史中时返回完整快照。
+   *
+   * @param response 刚执行完的命令的响应，提供结果和消息
+   */
+  public GameDelta commandDelta(String sessionId, long since, GameResponse response) {
+    SessionRegistry.SessionEntry session = sessionRegistry.get(sessionId);
+    PlayerViewHistory history = session != null ? session.getViews() : null;
+    PlayerView current = history != null ? buildPlayerView(sessionId, history.latest()) : null;
+    if (current == null) {
+      return GameDelta.failure(null, response.getMessage());
+    }
+
+    PlayerView known = history.get(since);
+    long version = history.record(current);
+    GameDelta delta;
+    if (known != null) {
+      delta = GameDelta.between(null, known, current, response);
     } else {
-      // 房间暂时没有该物品，新建一条
-      RoomItem newRoomItem = new RoomItem();
-      newRoomItem.setRoom(room);
-      newRoomItem.setItem(item);
-      newRoomItem.setQuantity(1);
-      roomItemRepo.save(newRoomItem);
-      room.getRoomItems().add(newRoomItem);
+      delta = GameDelta.snapshot(null, current, response.getMessage());
+      delta.setSuccess(response.isSuccess());
     }
-    roomRepo.save(room);
+    delta.setVersion(version);
+    return delta;
   }
 
-  // ==================== 命令分发器 ====================
-  @Transactional
-  public GameResponse processCommand(String sessionId, String command, String parameter) {
-    // 恢复会话
-    GameResponse response = restoreSession(sessionId);
-    if (!response.isSuccess()) {
-      return response;
-    }
-
-    // 分发命令
-    String normalizedCommand = command.toLowerCase();
-
-    switch (normalizedCommand) {
-      case "go":
-        return processGoCommand(sessionId, parameter);
-      case "look":
-        return processLookCommand(sessionId);
-      case "back":
-        return processBackCommand(sessionId);
-      case "take":
-        return processTakeCommand(sessionId, parameter);
-      case "drop":
-        return processDropCommand(sessionId, parameter);
-      case "eat": // 添加 eat 命令
-        return processEatCommand(sessionId, parameter);
-      case "items":
-        return processItemsCommand(sessionId);
-      default:
-        return GameResponse.failure("未知命令: " + command);
+  /**
+   * 命令成功执行后的记录：背包有变化时让增量计算重建背包，并把状态同步到状态存储
+   *
+   * @param inventoryChanged 命令是否可能改变了背包（take / drop / eat）
+   */
+  public void commandApplied(SessionRegistry.SessionEntry session, boolean inventoryChanged) {
+    if (inventoryChanged) {
+      session.getViews().inventoryChanged();
+    }
+    saveStateAfterCommit(session.getState());
+  }
+
+  // 在当前事务提交后再写状态存储（写 Redis 时不占着数据库连接，回滚的命令也不会写入）；不在事务中时立即写入
+  private void saveStateAfterCommit(GameState state) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      gameStateStore.save(state);
+      return;
     }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            gameStateStore.save(state);
+          }
+        });
   }
 
   @PostConstruct
   @Transactional
   public void placeMagicCake() {
     if (!magicCakePlaced) {
-      // 检查物品表中是否存在 Magic Cake
-      Optional<Item> cakeOpt =
-          itemRepo.findAll().stream()
-              .filter(item -> matchesItemName(item, MAGIC_CAKE_NAME))
-              .findFirst();
-      if (!cakeOpt.isPresent()) {
+      // 检查物品目录中是否存在 Magic Cake
+      Item cake = itemCatalog.findByName(MAGIC_CAKE_NAME);
+      if (cake == null) {
         logger.warn("物品表中找不到魔法蛋糕，请确保已添加该物品");
         return;
       }
 
-      Item cake = cakeOpt.get();
-
       // 检查蛋糕是否已经存在于某个房间中
-      List<RoomItem> existingCakes = roomItemRepo.findByItem(cake);
-      if (!existingCakes.isEmpty()) {
-        logger.info("魔法蛋糕已经存在于房间ID: {}", existingCakes.get(0).getRoom().getId());
+      Integer cakeRoomId = roomItemLedger.findRoomContaining(cake.getId());
+      if (cakeRoomId != null) {
+        logger.info("魔法蛋糕已经存在于房间ID: {}", cakeRoomId);
         magicCakePlaced = true;
         return;
       }
 
-      // 获取所有房间
-      List<RoomEntity> allRooms = roomRepo.findAll();
-      if (!allRooms.isEmpty()) {
-        // 随机选择一个房间
+      // 从内存地图中随机选择一个房间
+      if (worldGraph.size() > 0) {
         Random random = new Random();
-        RoomEntity randomRoom = allRooms.get(random.nextInt(allRooms.size()));
+        WorldGraph.Room randomRoom = worldGraph.getRoomAt(random.nextInt(worldGraph.size()));
 
         // 将蛋糕添加到房间
-        addItemToRoom(randomRoom, cake);
+        roomItemLedger.drop(randomRoom.getId(), cake);
         logger.info("魔法蛋糕已放置在房间: {} (房间ID: {})", randomRoom.getName(), randomRoom.getId());
         magicCakePlaced = true;
       } else {
@@ -806,38 +1032,41 @@ public class GameService {
   public GameResponse processEatCommand(String sessionId, String itemName) {
     logger.debug("处理 eat 命令: sessionId={}, itemName={}", sessionId, itemName);
 
-    GameState state = validateUserSession(sessionId);
-    User user = userRepo.findBySessionId(sessionId).orElse(null);
-    if (user == null) return GameResponse.failure("用户不存在");
+    SessionRegistry.SessionEntry session = validateUserSession(sessionId);
+    GameState state = session.getState();
+    User user = session.getUser();
 
     // 在玩家物品栏中查找物品
-    Optional<Item> itemOpt =
-        state.getInventory().stream().filter(item -> matchesItemName(item, itemName)).findFirst();
-    if (!itemOpt.isPresent()) {
+    Item item = findInventoryItem(state.getInventory(), itemName);
+    if (item == null) {
       return GameResponse.failure("您没有该物品: " + itemName);
     }
 
-    Item item = itemOpt.get();
-
     // 检查物品是否可食用
     if (!item.isEdible()) {
       return GameResponse.failure(item.getName() + "不可食用");
     }
 
     try {
-      // 从内存状态移除
-      state.removeFromInventory(item);
+      // 先从数据库移除，数据库中没有时不修改内存
+      if (!removeItemFromPlayerInventory(user.getId(), item)) {
+        markRollbackOnly();
+        return GameResponse.failure("您没有该物品: " + itemName);
+      }
 
-      // 从数据库移除
-      removeItemFromPlayerInventory(user.getId(), item);
+      // 再从内存状态移除（吃掉一个），事务回滚时加回
+      Inventory inventory = state.getInventory();
+      inventory.remove(item);
+      undoOnRollback(() -> inventory.add(item));
 
       // 处理特殊物品效果
       String effectMessage;
       if (MAGIC_CAKE_NAME.equalsIgnoreCase(item.getName())) {
-        // 提升最大负重能力
-        double newMaxWeight = user.getMaxCarryWeight() + WEIGHT_BOOST_AMOUNT;
-        user.setMaxCarryWeight(newMaxWeight);
-        userRepo.save(user);
+        // 提升最大负重能力：数据库中只更新这一列，内存中只改会话的 User 快照
+        double oldMaxWeight = user.getMaxCarryWeight();
+        userRepo.increaseMaxCarryWeight(user.getId(), WEIGHT_BOOST_AMOUNT);
+        user.setMaxCarryWeight(oldMaxWeight + WEIGHT_BOOST_AMOUNT);
+        undoOnRollback(() -> user.setMaxCarryWeight(oldMaxWeight));
 
         effectMessage = "你感到一股神奇的力量涌入体内！最大负重能力提升了 " + WEIGHT_BOOST_AMOUNT + "kg";
 
@@ -848,20 +1077,21 @@ public class GameService {
         effectMessage = "你吃掉了 " + item.getName();
       }
 
-      // 重新计算当前负重
-      double currentWeight = calculateCurrentWeight(state.getInventory());
+      // 当前负重
+      double currentWeight = state.getInventory().getTotalWeight();
       double maxWeight = user.getMaxCarryWeight();
 
       return GameResponse.success(
           sessionId,
           effectMessage,
-          state.getCurrentRoom(),
-          state.getInventory(),
+          buildRoomDetail(requireRoom(state.getCurrentRoomId())),
+          inventoryItems(state.getInventory()),
           GameResponse.UserInfo.fromUser(user),
           currentWeight,
           maxWeight);
     } catch (Exception e) {
       logger.error("食用物品失败", e);
+      markRollbackOnly();
       return GameResponse.failure("食用物品失败: " + e.getMessage());
     }
   }
@@ -0,0 +1,184 @@
+package com.example.demo1111111.service;
+
+import java.util.Arrays;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.config.RoomHistory;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.world.ItemCatalog;
+
+/**
+ * 游戏状态的二进制快照格式，用于远程存储和复制。
+ *
+ * <p>只写入房间ID、游戏结束标记、背包的 (物品ID, 数量) 和历史房间ID，不包含任何实体对象；物品详情在读取时从物品目录取回。
+ *
+ * <p>格式 2，整数都是变长编码（varint，每字节 7 位）：
+ *
+ * <pre>
+ * 格式号(1 字节) 标记(1 字节: bit0 游戏结束, bit1 有当前房间)
+ * [房间ID] 物品种数 {物品ID 数量}* 历史长度 {与上一个历史房间ID的差值(zigzag)}*
+ * </pre>
+ *
+ * <p>历史按从最早到最近的顺序写入，与 RoomHistory 的顺序一致。一个普通玩家的快照只有几十字节。格式号不是 2 的快照一律拒绝。
+ */
+public final class GameStateCodec {
+
+  static final byte FORMAT = 2;
+
+  private static final int FLAG_GAME_OVER = 1;
+  private static final int FLAG_HAS_ROOM = 2;
+
+  private GameStateCodec() {}
+
+  public static byte[] encode(GameState state) {
+    Inventory inventory = state.getInventory();
+    int[] history = state.getRoomHistoryIds();
+    Writer out = new Writer(8 + inventory.size() * 4 + history.length * 2);
+
+    Integer roomId = state.getCurrentRoomId();
+    out.writeByte(FORMAT);
+    out.writeByte((state.isGameOver() ? FLAG_GAME_OVER : 0) | (roomId != null ? FLAG_HAS_ROOM : 0));
+    if (roomId != null) out.writeVarInt(roomId);
+
+    out.writeVarInt(inventory.size());
+    for (int i = 0; i < inventory.size(); i++) {
+      out.writeVarInt(inventory.itemIdAt(i));
+      out.writeVarInt(inventory.quantityAt(i));
+    }
+
+    // 相邻历史房间的ID通常很接近，写差值更短
+    out.writeVarInt(history.length);
+    int previous = 0;
+    for (int id : history) {
+      out.writeVarInt(zigzag(id - previous));
+      previous = id;
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * 还原游戏状态
+   *
+   * @return 格式不认识、数据不完整或背包中有目录里没有的物品时返回 null（调用方改为从数据库重建）
+   */
+  public static GameState decode(String sessionId, byte[] data, ItemCatalog itemCatalog) {
+    if (data == null || data.length == 0) return null;
+    try {
+      Reader in = new Reader(data);
+      return in.readByte() == FORMAT ? decodeVarInt(sessionId, in, itemCatalog) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static GameState decodeVarInt(String sessionId, Reader in, ItemCatalog itemCatalog) {
+    int flags = in.readByte();
+    Integer roomId = (flags & FLAG_HAS_ROOM) != 0 ? in.readVarInt() : null;
+
+    Inventory inventory = new Inventory();
+    int itemCount = in.readVarInt();
+    for (int i = 0; i < itemCount; i++) {
+      Item item = itemCatalog.get(in.readVarInt());
+      int quantity = checkQuantity(in.readVarInt());
+      if (item == null) return null;
+      inventory.add(item, quantity);
+    }
+
+    GameState state = new GameState(sessionId, null, inventory, (flags & FLAG_GAME_OVER) != 0);
+    state.setCurrentRoomId(roomId);
+    int historySize = in.readVarInt();
+    keepHistory(state, historySize, in.remaining());
+    int previous = 0;
+    for (int i = 0; i < historySize; i++) {
+      previous += unzigzag(in.readVarInt());
+      state.pushRoomToHistory(previous);
+    }
+    in.expectEnd();
+    return state;
+  }
+
+  // 背包中的数量至少为 1，否则是损坏的快照（Inventory 会静默忽略，导致丢失物品）
+  private static int checkQuantity(int quantity) {
+    if (quantity < 1) throw new IllegalArgumentException("物品数量不正确: " + quantity);
+    return quantity;
+  }
+
+  // 快照里的历史比默认深度长时先放大缓冲区，交给调用方按配置截断
+  private static void keepHistory(GameState state, int historySize, int maxEntries) {
+    if (historySize < 0 || historySize > maxEntries) {
+      throw new IllegalArgumentException("历史长度不正确: " + historySize);
+    }
+    if (historySize > RoomHistory.DEFAULT_DEPTH) {
+      state.setRoomHistoryDepth(historySize);
+    }
+  }
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  // 可增长的字节缓冲
+  private static final class Writer {
+    private byte[] buffer;
+    private int length;
+
+    Writer(int capacity) {
+      buffer = new byte[Math.max(capacity, 8)];
+    }
+
+    void writeByte(int value) {
+      if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      buffer[length++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+      while ((value & ~0x7F) != 0) {
+        writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      writeByte(value);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, length);
+    }
+  }
+
+  // 读取越界或数据损坏时抛出 IllegalArgumentException
+  private static final class Reader {
+    private final byte[] data;
+    private int position;
+
+    Reader(byte[] data) {
+      this.data = data;
+    }
+
+    byte readByte() {
+      if (position >= data.length) throw new IllegalArgumentException("快照数据不完整");
+      return data[position++];
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        byte b = readByte();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) return value;
+      }
+      throw new IllegalArgumentException("变长整数过长");
+    }
+
+    int remaining() {
+      return data.length - position;
+    }
+
+    void expectEnd() {
+      if (position != data.length) throw new IllegalArgumentException("快照末尾有多余数据");
+    }
+  }
+}
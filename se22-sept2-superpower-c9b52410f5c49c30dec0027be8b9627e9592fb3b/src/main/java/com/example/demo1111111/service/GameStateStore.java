@@ -0,0 +1,25 @@
+package com.example.demo1111111.service;
+
+import com.example.demo1111111.config.GameState;
+
+/**
+ * 游戏状态存储。
+ *
+ * <p>{@link SessionRegistry} 是本节点的热缓存；这里保存的状态在缓存未命中时（节点重启、会话转到另一个节点）用来恢复位置、背包和房间历史，找不到时再从数据库重建。
+ *
+ * <p>实现由 game.state-store.type 选择：local（进程内，默认）或 redis。
+ */
+public interface GameStateStore {
+
+  /** 读取会话状态，不存在或无法恢复时返回 null */
+  GameState load(String sessionId);
+
+  /** 保存会话当前状态（命令改变了状态之后调用） */
+  void save(GameState state);
+
+  /** 延长会话状态的有效期（会话仍在使用但只执行只读命令、没有保存时调用），默认什么也不做 */
+  default void touch(String sessionId) {}
+
+  /** 删除会话状态（退出登录、会话过期） */
+  void delete(String sessionId);
+}
@@ -0,0 +1,40 @@
+package com.example.demo1111111.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.config.GameState;
+
+/**
+ * 进程内的游戏状态存储（单节点部署）。
+ *
+ * <p>会话表里的状态对象就是唯一的一份，这里不再复制；重启后会话表为空，状态从数据库重建。
+ */
+@Component
+@ConditionalOnProperty(name = "game.state-store.type", havingValue = "local", matchIfMissing = true)
+public class LocalGameStateStore implements GameStateStore {
+
+  private final SessionRegistry sessionRegistry;
+
+  @Autowired
+  public LocalGameStateStore(SessionRegistry sessionRegistry) {
+    this.sessionRegistry = sessionRegistry;
+  }
+
+  @Override
+  public GameState load(String sessionId) {
+    SessionRegistry.SessionEntry entry = sessionRegistry.get(sessionId);
+    return entry != null ? entry.getState() : null;
+  }
+
+  @Override
+  public void save(GameState state) {
+    // 状态对象已在会话表中，修改即生效
+  }
+
+  @Override
+  public void delete(String sessionId) {
+    // 随会话表条目一起移除
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.demo1111111.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.demo1111111.dto.PlayerView;
+
+/**
+ * 一个会话最近几个版本的玩家状态，客户端带上已知版本号时据此只返回变化的部分。
+ *
+ * <p>另外记录背包修订号：背包数量只保存在数据库中，修订号没变时构建新状态可以直接沿用上一版的背包。
+ */
+public final class PlayerViewHistory {
+
+  // 保留的版本数，客户端落后更多时返回完整快照
+  static final int CAPACITY = 8;
+
+  private final PlayerView[] views = new PlayerView[CAPACITY];
+  private long version;
+  private final AtomicLong inventoryRevision = new AtomicLong();
+
+  /** 记录新版本，返回版本号（从 1 开始递增） */
+  public synchronized long record(PlayerView view) {
+    version++;
+    views[(int) (version % CAPACITY)] = view;
+    return version;
+  }
+
+  /** 取出指定版本，已不在历史中时返回 null */
+  public synchronized PlayerView get(long requested) {
+    if (requested <= 0 || requested > version || requested <= version - CAPACITY) {
+      return null;
+    }
+    return views[(int) (requested % CAPACITY)];
+  }
+
+  /** 最新版本，还没有记录时返回 null */
+  public synchronized PlayerView latest() {
+    return version == 0 ? null : views[(int) (version % CAPACITY)];
+  }
+
+  /** 背包发生了变化（take / drop / eat 成功） */
+  public void inventoryChanged() {
+    inventoryRevision.incrementAndGet();
+  }
+
+  public long getInventoryRevision() {
+    return inventoryRevision.get();
+  }
+}
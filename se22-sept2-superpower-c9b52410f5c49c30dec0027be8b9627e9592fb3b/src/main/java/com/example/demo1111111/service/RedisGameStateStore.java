@@ -0,0 +1,91 @@
+package com.example.demo1111111.service;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.world.ItemCatalog;
+
+/**
+ * Redis 中的游戏状态存储（多节点部署，重启后会话仍可恢复）。
+ *
+ * <p>每个会话一个键 game:state:{sessionId}，值为 {@link GameStateCodec} 的二进制格式，每次保存和访问会话时刷新过期时间。Redis
+ * 不可用时只记录日志，会话退回到从数据库重建。
+ *
+ * <p>各节点的会话表仍是本地缓存，负载均衡需要按会话保持粘性；节点宕机或重启后，会话在任意节点上从这里恢复。
+ */
+@Component
+@ConditionalOnProperty(name = "game.state-store.type", havingValue = "redis")
+public class RedisGameStateStore implements GameStateStore {
+  private static final Logger logger = LoggerFactory.getLogger(RedisGameStateStore.class);
+
+  static final String KEY_PREFIX = "game:state:";
+
+  private final RedisTemplate<String, byte[]> redisTemplate;
+  private final ItemCatalog itemCatalog;
+  private final Duration ttl;
+
+  @Autowired
+  public RedisGameStateStore(
+      @Qualifier("gameStateRedisTemplate") RedisTemplate<String, byte[]> redisTemplate,
+      ItemCatalog itemCatalog,
+      @Value("${game.state-store.ttl-ms:1800000}") long ttlMillis) {
+    this.redisTemplate = redisTemplate;
+    this.itemCatalog = itemCatalog;
+    this.ttl = Duration.ofMillis(ttlMillis);
+  }
+
+  @Override
+  public GameState load(String sessionId) {
+    if (sessionId == null) return null;
+    try {
+      byte[] data = redisTemplate.opsForValue().get(KEY_PREFIX + sessionId);
+      if (data == null) return null;
+      GameState state = GameStateCodec.decode(sessionId, data, itemCatalog);
+      if (state == null) {
+        logger.warn("无法还原会话状态，改为从数据库重建: sessionId={}", sessionId);
+      }
+      return state;
+    } catch (RuntimeException e) {
+      logger.warn("读取会话状态失败: sessionId={}, error={}", sessionId, e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public void save(GameState state) {
+    try {
+      redisTemplate
+          .opsForValue()
+          .set(KEY_PREFIX + state.getSessionId(), GameStateCodec.encode(state), ttl);
+    } catch (RuntimeException e) {
+      logger.warn("保存会话状态失败: sessionId={}, error={}", state.getSessionId(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void touch(String sessionId) {
+    try {
+      redisTemplate.expire(KEY_PREFIX + sessionId, ttl);
+    } catch (RuntimeException e) {
+      logger.warn("刷新会话状态过期时间失败: sessionId={}, error={}", sessionId, e.getMessage());
+    }
+  }
+
+  @Override
+  public void delete(String sessionId) {
+    try {
+      redisTemplate.delete(KEY_PREFIX + sessionId);
+    } catch (RuntimeException e) {
+      logger.warn("删除会话状态失败: sessionId={}, error={}", sessionId, e.getMessage());
+    }
+  }
+}
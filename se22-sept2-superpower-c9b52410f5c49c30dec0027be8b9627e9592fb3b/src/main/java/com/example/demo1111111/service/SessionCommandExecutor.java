@@ -0,0 +1,177 @@
+package com.example.demo1111111.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.config.SessionDebugSampler;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 按会话串行执行命令的邮箱执行器。
+ *
+ * <p>每个会话一个邮箱，同一会话的命令按到达顺序逐个执行，不同会话并行执行，没有全局锁，GameState 只会被一个线程修改。
+ *
+ * <p>开启 spring.threads.virtual.enabled（需要 JDK 21+，用 java21 配置编译）时邮箱在虚拟线程上执行，否则使用固定大小的平台线程池。
+ *
+ * <p>两种模式下访问数据库的命令都要先通过 {@link DbAdmissionGate}；只读内存的命令（look、items、path）在会话已加载时不占用许可。
+ */
+@Component
+public class SessionCommandExecutor {
+  private static final Logger logger = LoggerFactory.getLogger(SessionCommandExecutor.class);
+
+  // 一个邮箱连续执行的最大命令数，超过后让出线程，避免饿死其他会话
+  private static final int DRAIN_BATCH = 16;
+
+  private final Executor workers;
+  private final DbAdmissionGate dbGate;
+
+  // sessionId -> 邮箱，空闲后移除
+  private final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+  @Autowired
+  public SessionCommandExecutor(
+      DbAdmissionGate dbGate,
+      @Value("${game.command.worker-threads:16}") int workerThreads,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.dbGate = dbGate;
+    this.workers = createWorkers(workerThreads, virtualThreads);
+  }
+
+  private static Executor createWorkers(int workerThreads, boolean virtualThreads) {
+    if (virtualThreads) {
+      try {
+        Executor executor = new VirtualThreadTaskExecutor("session-command-");
+        logger.info("会话命令使用虚拟线程执行");
+        return executor;
+      } catch (UnsupportedOperationException e) {
+        logger.warn("当前 JDK 不支持虚拟线程，改用 {} 个平台线程", workerThreads);
+      }
+    }
+    AtomicInteger threadIndex = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        workerThreads,
+        r -> {
+          Thread thread = new Thread(r, "session-command-" + threadIndex.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /** 把任务投递到会话的邮箱，返回任务结果（任务会访问数据库） */
+  public <T> CompletableFuture<T> submit(String sessionId, Supplier<T> task) {
+    return submit(sessionId, task, true);
+  }
+
+  /**
+   * 把任务投递到会话的邮箱，返回任务结果。
+   *
+   * @param usesDatabase 为 false 时任务不经过数据库闸门，不会排在等待连接的命令后面
+   */
+  public <T> CompletableFuture<T> submit(String sessionId, Supplier<T> task, boolean usesDatabase) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable command =
+        () -> {
+          try {
+            result.complete(usesDatabase ? dbGate.call(task) : task.get());
+          } catch (Throwable e) {
+            result.completeExceptionally(e);
+          }
+        };
+
+    // 入队和计数在 compute 内完成，与空闲邮箱的移除互斥
+    Mailbox[] target = new Mailbox[1];
+    boolean[] schedule = new boolean[1];
+    mailboxes.compute(
+        sessionId != null ? sessionId : "",
+        (key, mailbox) -> {
+          if (mailbox == null) mailbox = new Mailbox(key);
+          mailbox.queue.add(command);
+          schedule[0] = mailbox.pending.getAndIncrement() == 0;
+          target[0] = mailbox;
+          return mailbox;
+        });
+
+    if (schedule[0]) {
+      try {
+        workers.execute(target[0]);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }
+    return result;
+  }
+
+  /** 当前有命令在排队或执行的会话数 */
+  public int activeMailboxes() {
+    return mailboxes.size();
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (!(workers instanceof ExecutorService pool)) return;
+    pool.shutdown();
+    if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+      logger.warn("会话命令线程池未能在 10 秒内结束");
+      pool.shutdownNow();
+    }
+  }
+
+  // 单个会话的邮箱：同一时刻最多只有一个线程在执行它
+  private final class Mailbox implements Runnable {
+    private final String sessionId;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // 已入队但未执行完的命令数
+    private final AtomicInteger pending = new AtomicInteger();
+
+    Mailbox(String sessionId) {
+      this.sessionId = sessionId;
+    }
+
+    @Override
+    public void run() {
+      // 命令执行期间的日志带上会话ID（结构化日志字段，也用于按会话抽样调试日志）
+      if (!sessionId.isEmpty()) MDC.put(SessionDebugSampler.SESSION_KEY, sessionId);
+      try {
+        drain();
+      } finally {
+        MDC.remove(SessionDebugSampler.SESSION_KEY);
+      }
+    }
+
+    private void drain() {
+      int processed = 0;
+      while (true) {
+        queue.poll().run();
+        processed++;
+        if (pending.decrementAndGet() == 0) {
+          // 已空闲；移除前再确认期间没有新命令入队
+          mailboxes.computeIfPresent(
+              sessionId, (key, mailbox) -> mailbox == this && pending.get() == 0 ? null : mailbox);
+          return;
+        }
+        if (processed >= DRAIN_BATCH) {
+          workers.execute(this);
+          return;
+        }
+      }
+    }
+  }
+}
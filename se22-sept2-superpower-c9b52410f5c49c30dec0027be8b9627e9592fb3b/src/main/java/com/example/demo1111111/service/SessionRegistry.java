@@ -0,0 +1,188 @@
+package com.example.demo1111111.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.entity.User;
+
+/**
+ * 内存中的权威会话表：sessionId -> (userId, GameState, User 快照, 最后访问时间)。
+ *
+ * <p>命令热路径只查这里，不再访问 users 表；last_login 由 {@link UserWriteBehindQueue} 定期批量写回。
+ */
+@Component
+public class SessionRegistry {
+
+  // sessionId -> 会话条目
+  private final ConcurrentMap<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+
+  // userId -> 当前有效的 sessionId（重新登录时用来淘汰旧会话）
+  private final ConcurrentMap<Long, String> sessionIdByUser = new ConcurrentHashMap<>();
+
+  /** 注册（或替换）用户的会话，同一用户的旧会话会被移除 */
+  public SessionEntry register(String sessionId, User user, GameState state) {
+    SessionEntry entry = new SessionEntry(sessionId, user, state, System.currentTimeMillis());
+    String previous = sessionIdByUser.put(user.getId(), sessionId);
+    if (previous != null && !previous.equals(sessionId)) {
+      sessions.remove(previous);
+    }
+    sessions.put(sessionId, entry);
+    return entry;
+  }
+
+  /** 按 sessionId 查找会话，未命中返回 null */
+  public SessionEntry get(String sessionId) {
+    return sessionId != null ? sessions.get(sessionId) : null;
+  }
+
+  /** 移除会话 */
+  public void remove(String sessionId) {
+    SessionEntry entry = sessions.remove(sessionId);
+    if (entry != null) {
+      sessionIdByUser.remove(entry.getUserId(), sessionId);
+    }
+  }
+
+  /** 当前在线会话数 */
+  public int size() {
+    return sessions.size();
+  }
+
+  /** 收集自上次写回后有过访问的会话，并标记为已写回 */
+  public List<SessionEntry> drainTouched() {
+    List<SessionEntry> touched = new ArrayList<>();
+    for (SessionEntry entry : sessions.values()) {
+      if (entry.markFlushed()) {
+        touched.add(entry);
+      }
+    }
+    return touched;
+  }
+
+  /**
+   * 清理所有已超时的会话，返回被清理的数量。
+   *
+   * <p>超时判断和标记在会话条目上原子完成：与并发的 {@link SessionEntry#touch} 只有一方成功，刚被访问的会话不会被清理。
+   */
+  public int evictExpired(long now, long timeoutMillis) {
+    return evictExpired(now, timeoutMillis, entry -> {});
+  }
+
+  /** 同 {@link #evictExpired(long, long)}，每清理一个会话回调一次 onEvicted（用于删除状态存储中的快照） */
+  public int evictExpired(long now, long timeoutMillis, Consumer<SessionEntry> onEvicted) {
+    int evicted = 0;
+    for (SessionEntry entry : sessions.values()) {
+      if (entry.evictIfExpired(now, timeoutMillis)) {
+        // 只移除这个条目本身，同一 sessionId 之后重新注册的条目不受影响
+        if (sessions.remove(entry.getSessionId(), entry)) {
+          sessionIdByUser.remove(entry.getUserId(), entry.getSessionId());
+          onEvicted.accept(entry);
+        }
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /** 单个会话条目 */
+  public static final class SessionEntry {
+    private final String sessionId;
+    private final Long userId;
+    private final User user;
+    private final GameState state;
+    private final PlayerViewHistory views = new PlayerViewHistory();
+    private volatile long lastTouch;
+    private volatile long flushedTouch;
+    // 上次延长状态存储有效期的时间
+    private volatile long storeTouchedAt;
+    // 已被超时清理，之后的访问都失败（只在持有条目的锁时修改）
+    private boolean evicted;
+
+    SessionEntry(String sessionId, User user, GameState state, long now) {
+      this.sessionId = sessionId;
+      this.userId = user.getId();
+      this.user = user;
+      this.state = state;
+      this.lastTouch = now;
+      this.storeTouchedAt = now;
+      this.flushedTouch = user.getLastLogin() != null ? user.getLastLogin().getTime() : 0L;
+    }
+
+    public String getSessionId() {
+      return sessionId;
+    }
+
+    public Long getUserId() {
+      return userId;
+    }
+
+    public User getUser() {
+      return user;
+    }
+
+    public GameState getState() {
+      return state;
+    }
+
+    public PlayerViewHistory getViews() {
+      return views;
+    }
+
+    public long getLastTouch() {
+      return lastTouch;
+    }
+
+    /**
+     * 记录一次访问。
+     *
+     * @return 会话已被超时清理时返回 false，调用方应按会话已过期处理
+     */
+    public synchronized boolean touch(long now) {
+      if (evicted) {
+        return false;
+      }
+      if (now > lastTouch) {
+        lastTouch = now;
+      }
+      return true;
+    }
+
+    public boolean isExpired(long now, long timeoutMillis) {
+      return now - lastTouch > timeoutMillis;
+    }
+
+    /** 距上次延长状态存储有效期已超过 interval 时记下 now 并返回 true（并发时偶尔多刷新一次无妨） */
+    public boolean needsStoreTouch(long now, long interval) {
+      if (now - storeTouchedAt < interval) {
+        return false;
+      }
+      storeTouchedAt = now;
+      return true;
+    }
+
+    // 已超时时标记为已清理并返回 true；与 touch 互斥，两者只有一方生效
+    synchronized boolean evictIfExpired(long now, long timeoutMillis) {
+      if (evicted || !isExpired(now, timeoutMillis)) {
+        return false;
+      }
+      evicted = true;
+      return true;
+    }
+
+    // 有未写回的访问时返回 true 并推进写回标记
+    private boolean markFlushed() {
+      long touch = lastTouch;
+      if (touch > flushedTouch) {
+        flushedTouch = touch;
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package com.example.demo1111111.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo1111111.entity.User;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 玩家位置和 last_login 的异步写回队列。
+ *
+ * <p>同一玩家的多次更新只保留最后的值，按固定间隔或积压达到阈值时用 JDBC 批量写回，退出登录和应用关闭时也会写回。
+ */
+@Component
+public class UserWriteBehindQueue {
+  private static final Logger logger = LoggerFactory.getLogger(UserWriteBehindQueue.class);
+
+  private static final String UPDATE_ROOM_SQL = "UPDATE users SET current_roomid = ? WHERE id = ?";
+  private static final String UPDATE_LAST_LOGIN_SQL =
+      "UPDATE users SET last_login = ? WHERE id = ? AND (last_login IS NULL OR last_login < ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final SessionRegistry sessionRegistry;
+  private final int batchSize;
+
+  // userId -> 待写回的最新值
+  private final ConcurrentMap<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+  // userId -> 已从 pending 取出、正在写回的值（写回结束前 applyPending 仍要看到它）
+  private final ConcurrentMap<Long, PendingUpdate> inFlight = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final AtomicBoolean thresholdFlushQueued = new AtomicBoolean();
+  private final ExecutorService thresholdFlusher =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread thread = new Thread(r, "user-write-behind");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @Autowired
+  public UserWriteBehindQueue(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      SessionRegistry sessionRegistry,
+      @Value("${game.write-behind.batch-size:500}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.sessionRegistry = sessionRegistry;
+    this.batchSize = batchSize;
+  }
+
+  /** 记录玩家当前位置 */
+  public void recordPosition(Long userId, Integer roomId) {
+    pending.merge(userId, new PendingUpdate(roomId, 0L), PendingUpdate::mergeNewer);
+    flushIfFull();
+  }
+
+  /** 记录玩家最后访问时间 */
+  public void recordLastLogin(Long userId, long timestamp) {
+    pending.merge(userId, new PendingUpdate(null, timestamp), PendingUpdate::mergeNewer);
+    flushIfFull();
+  }
+
+  /** 把尚未写回（包括正在写回）的位置应用到刚从数据库读出的用户上 */
+  public void applyPending(User user) {
+    // 先查 pending：取出时先放入 inFlight 再从 pending 移除，按这个顺序读不会两边都错过
+    PendingUpdate update = pending.get(user.getId());
+    if (update == null || update.roomId == null) {
+      PendingUpdate writing = inFlight.get(user.getId());
+      if (writing != null) update = writing;
+    }
+    if (update != null && update.roomId != null) {
+      user.setCurrentRoomId(update.roomId);
+    }
+  }
+
+  /** 待写回的玩家数 */
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  /** 定时写回：先收集会话表中的访问时间，再批量写回所有积压的更新 */
+  @Scheduled(
+      fixedDelayString = "${game.write-behind.flush-interval-ms:1000}",
+      initialDelayString = "${game.write-behind.flush-interval-ms:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      for (SessionRegistry.SessionEntry session : sessionRegistry.drainTouched()) {
+        session.getUser().setLastLogin(new Date(session.getLastTouch()));
+        recordLastLogin(session.getUserId(), session.getLastTouch());
+      }
+
+      while (!pending.isEmpty()) {
+        Map<Long, PendingUpdate> batch = new LinkedHashMap<>();
+        for (Long userId : pending.keySet()) {
+          take(userId, batch);
+          if (batch.size() >= batchSize) break;
+        }
+        if (!write(batch)) break;
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** 立即写回单个玩家的积压更新（退出登录时调用） */
+  public void flushUser(Long userId) {
+    flushLock.lock();
+    try {
+      Map<Long, PendingUpdate> batch = new LinkedHashMap<>();
+      take(userId, batch);
+      if (!batch.isEmpty()) {
+        write(batch);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    thresholdFlusher.shutdownNow();
+    flush();
+    logger.info("玩家状态写回队列已关闭");
+  }
+
+  // 积压达到阈值时在后台线程提前写回
+  private void flushIfFull() {
+    if (pending.size() >= batchSize && thresholdFlushQueued.compareAndSet(false, true)) {
+      try {
+        thresholdFlusher.execute(
+            () -> {
+              thresholdFlushQueued.set(false);
+              flush();
+            });
+      } catch (RuntimeException e) {
+        // 关闭过程中，交给 shutdown 的最后一次写回
+        thresholdFlushQueued.set(false);
+      }
+    }
+  }
+
+  // 把玩家的待写回值从 pending 移到 inFlight 和 batch
+  private void take(Long userId, Map<Long, PendingUpdate> batch) {
+    pending.computeIfPresent(
+        userId,
+        (key, update) -> {
+          inFlight.put(key, update);
+          batch.put(key, update);
+          return null;
+        });
+  }
+
+  // 写回一批更新；失败时放回队列（不覆盖期间产生的更新的值）
+  private boolean write(Map<Long, PendingUpdate> batch) {
+    List<Object[]> roomArgs = new ArrayList<>();
+    List<Object[]> lastLoginArgs = new ArrayList<>();
+    for (Map.Entry<Long, PendingUpdate> entry : batch.entrySet()) {
+      PendingUpdate update = entry.getValue();
+      if (update.roomId != null) {
+        roomArgs.add(new Object[] {update.roomId, entry.getKey()});
+      }
+      if (update.lastLogin > 0) {
+        Timestamp lastLogin = new Timestamp(update.lastLogin);
+        lastLoginArgs.add(new Object[] {lastLogin, entry.getKey(), lastLogin});
+      }
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            if (!roomArgs.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_ROOM_SQL, roomArgs);
+            if (!lastLoginArgs.isEmpty()) {
+              jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, lastLoginArgs);
+            }
+          });
+      logger.debug("写回玩家状态: 位置 {} 条, last_login {} 条", roomArgs.size(), lastLoginArgs.size());
+      batch.forEach(inFlight::remove);
+      return true;
+    } catch (RuntimeException e) {
+      logger.error("写回玩家状态失败，{} 条更新将在下次重试", batch.size(), e);
+      // 先放回 pending 再移出 inFlight，期间 applyPending 始终能看到
+      batch.forEach(
+          (userId, update) -> {
+            pending.merge(userId, update, (newer, old) -> old.mergeNewer(newer));
+            inFlight.remove(userId, update);
+          });
+      return false;
+    }
+  }
+
+  // 单个玩家合并后的待写回值
+  private static final class PendingUpdate {
+    private final Integer roomId;
+    private final long lastLogin;
+
+    PendingUpdate(Integer roomId, long lastLogin) {
+      this.roomId = roomId;
+      this.lastLogin = lastLogin;
+    }
+
+    // 用 newer 中已设置的字段覆盖当前值
+    PendingUpdate mergeNewer(PendingUpdate newer) {
+      return new PendingUpdate(
+          newer.roomId != null ? newer.roomId : roomId, Math.max(lastLogin, newer.lastLogin));
+    }
+  }
+}
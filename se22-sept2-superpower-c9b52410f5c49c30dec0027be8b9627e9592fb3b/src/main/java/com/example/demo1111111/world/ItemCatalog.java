@@ -0,0 +1,235 @@
+package com.example.demo1111111.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.repository.ItemRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 启动时加载一次的物品目录：物品ID -> 物品，名称（忽略大小写和首尾空格）-> 物品ID。
+ *
+ * <p>目录是只读快照，整体替换，读路径无锁。按名称查找直接对原字符串逐字符计算散列并比较，不创建新字符串，也不扫描物品列表。
+ *
+ * <p>物品表变更后调用 {@link #refresh()} 或经 JMX 上的 itemcatalog 端点手动刷新；刷新前出现的新物品由 GameService 在加载玩家背包、
+ * 按名称在房间物品中找到时补登记。
+ */
+@Component
+public class ItemCatalog {
+  private static final Logger logger = LoggerFactory.getLogger(ItemCatalog.class);
+
+  private final ItemRepository itemRepo;
+  // 精确匹配失败时是否接受唯一的名称前缀（如 "take ca" 拾取 "cake"）
+  private final boolean prefixMatch;
+
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  @Autowired
+  public ItemCatalog(
+      ItemRepository itemRepo, @Value("${game.items.prefix-match:false}") boolean prefixMatch) {
+    this.itemRepo = itemRepo;
+    this.prefixMatch = prefixMatch;
+  }
+
+  @PostConstruct
+  public void load() {
+    refresh();
+  }
+
+  /** 从物品表重新加载目录（管理操作） */
+  public synchronized int refresh() {
+    List<Item> items = itemRepo.findAll();
+    this.snapshot = Snapshot.of(items);
+    logger.info("物品目录已加载: {} 件物品", items.size());
+    return items.size();
+  }
+
+  /** 补登记目录中还没有的物品（目录加载后新增到物品表的物品）；已有同ID的物品时不做任何事 */
+  public void register(Item item) {
+    if (item == null || item.getId() == null || snapshot.byId.containsKey(item.getId())) return;
+    synchronized (this) {
+      Snapshot current = snapshot;
+      if (current.byId.containsKey(item.getId())) return;
+      Item[] items = Arrays.copyOf(current.items, current.items.length + 1);
+      items[current.items.length] = item;
+      this.snapshot = Snapshot.of(Arrays.asList(items));
+    }
+  }
+
+  /** 按ID查找，不存在返回 null */
+  public Item get(int itemId) {
+    return snapshot.byId.get(itemId);
+  }
+
+  /** 按名称精确查找（忽略大小写和首尾空格），同名物品返回 ID 最小的，不存在返回 null */
+  public Item findByName(String name) {
+    Item[] items = snapshot.findGroup(name);
+    return items != null ? items[0] : null;
+  }
+
+  /** 按名称查找玩家输入的物品：先精确匹配，开启前缀匹配时再接受唯一的前缀；同名物品返回 ID 最小的 */
+  public Item resolve(String name) {
+    Item[] items = resolveGroup(name);
+    return items != null ? items[0] : null;
+  }
+
+  /** 同 {@link #resolve}，但返回该名称下的所有物品（按 ID 升序），调用方从中挑出房间或背包里实际有的那个 */
+  public List<Item> resolveAll(String name) {
+    Item[] items = resolveGroup(name);
+    return items != null ? List.of(items) : List.of();
+  }
+
+  /** 名称以 prefix 开头的唯一名称下 ID 最小的物品；没有或有多个名称匹配时返回 null */
+  public Item findByUniquePrefix(String prefix) {
+    Item[] items = snapshot.findByUniquePrefix(prefix);
+    return items != null ? items[0] : null;
+  }
+
+  private Item[] resolveGroup(String name) {
+    Snapshot current = snapshot;
+    Item[] items = current.findGroup(name);
+    if (items == null && prefixMatch) {
+      items = current.findByUniquePrefix(name);
+    }
+    return items;
+  }
+
+  /** 目录中的物品数 */
+  public int size() {
+    return snapshot.items.length;
+  }
+
+  // ==================== 名称规范化 ====================
+
+  private static int start(String name) {
+    int start = 0;
+    while (start < name.length() && name.charAt(start) <= ' ') start++;
+    return start;
+  }
+
+  private static int end(String name, int start) {
+    int end = name.length();
+    while (end > start && name.charAt(end - 1) <= ' ') end--;
+    return end;
+  }
+
+  private static String normalize(String name) {
+    int start = start(name);
+    int end = end(name, start);
+    char[] chars = new char[end - start];
+    for (int i = start; i < end; i++) {
+      chars[i - start] = Character.toLowerCase(name.charAt(i));
+    }
+    return new String(chars);
+  }
+
+  private static int hash(String name, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + Character.toLowerCase(name.charAt(i));
+    }
+    return h ^ (h >>> 16);
+  }
+
+  // key 已规范化
+  private static boolean matches(String key, String name, int start, int end) {
+    if (key.length() != end - start) return false;
+    for (int i = start; i < end; i++) {
+      if (key.charAt(i - start) != Character.toLowerCase(name.charAt(i))) return false;
+    }
+    return true;
+  }
+
+  // 一次加载的完整目录（不可变）
+  private static final class Snapshot {
+    static final Snapshot EMPTY = of(List.of());
+
+    final Item[] items;
+    final Map<Integer, Item> byId;
+    // 开放寻址散列表：规范化名称 -> 同名物品（按 ID 升序）
+    final String[] slotNames;
+    final Item[][] slotItems;
+    // 按规范化名称排序，用于前缀查找
+    final String[] sortedNames;
+    final Item[][] sortedItems;
+
+    private Snapshot(Item[] items) {
+      this.items = items;
+      this.byId = new HashMap<>(items.length * 2);
+
+      int slots = Integer.highestOneBit(Math.max(4, items.length * 2) - 1) << 1;
+      this.slotNames = new String[slots];
+      this.slotItems = new Item[slots][];
+      Map<String, List<Item>> byName = new HashMap<>();
+      for (Item item : items) {
+        byId.put(item.getId(), item);
+        if (item.getName() == null) continue;
+        byName.computeIfAbsent(normalize(item.getName()), key -> new ArrayList<>(1)).add(item);
+      }
+      Map<String, Item[]> groups = new HashMap<>(byName.size() * 2);
+      byName.forEach(
+          (key, group) -> {
+            // 同名物品按 ID 升序，只查一个时以 ID 较小的为准
+            group.sort(Comparator.comparing(Item::getId));
+            groups.put(key, group.toArray(new Item[0]));
+          });
+      groups.forEach(this::insert);
+
+      this.sortedNames = groups.keySet().toArray(new String[0]);
+      Arrays.sort(sortedNames);
+      this.sortedItems = new Item[sortedNames.length][];
+      for (int i = 0; i < sortedNames.length; i++) {
+        sortedItems[i] = groups.get(sortedNames[i]);
+      }
+    }
+
+    static Snapshot of(List<Item> items) {
+      return new Snapshot(
+          items.stream().filter(item -> item != null && item.getId() != null).toArray(Item[]::new));
+    }
+
+    private void insert(String key, Item[] group) {
+      int mask = slotNames.length - 1;
+      int slot = hash(key, 0, key.length()) & mask;
+      while (slotNames[slot] != null) slot = (slot + 1) & mask;
+      slotNames[slot] = key;
+      slotItems[slot] = group;
+    }
+
+    Item[] findGroup(String name) {
+      if (name == null) return null;
+      int start = start(name);
+      int end = end(name, start);
+      int mask = slotNames.length - 1;
+      for (int slot = hash(name, start, end) & mask; ; slot = (slot + 1) & mask) {
+        String key = slotNames[slot];
+        if (key == null) return null;
+        if (matches(key, name, start, end)) return slotItems[slot];
+      }
+    }
+
+    Item[] findByUniquePrefix(String prefix) {
+      if (prefix == null) return null;
+      String key = normalize(prefix);
+      if (key.isEmpty()) return null;
+      int pos = Arrays.binarySearch(sortedNames, key);
+      if (pos >= 0) return sortedItems[pos];
+      pos = -pos - 1;
+      if (pos >= sortedNames.length || !sortedNames[pos].startsWith(key)) return null;
+      boolean ambiguous = pos + 1 < sortedNames.length && sortedNames[pos + 1].startsWith(key);
+      return ambiguous ? null : sortedItems[pos];
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.demo1111111.world;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 物品目录管理端点：查看物品数，从物品表重新加载。
+ *
+ * <p>端点没有鉴权，不加入 HTTP 暴露列表，只在开启 JMX 并加入 management.endpoints.jmx.exposure.include 时可用。
+ */
+@Component
+@Endpoint(id = "itemcatalog")
+public class ItemCatalogEndpoint {
+
+  private final ItemCatalog itemCatalog;
+
+  @Autowired
+  public ItemCatalogEndpoint(ItemCatalog itemCatalog) {
+    this.itemCatalog = itemCatalog;
+  }
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return Map.of("items", itemCatalog.size());
+  }
+
+  @WriteOperation
+  public Map<String, Object> refresh() {
+    return Map.of("items", itemCatalog.refresh());
+  }
+}
@@ -0,0 +1,375 @@
+package com.example.demo1111111.world;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 世界地图上的最短路线（按移动步数）。
+ *
+ * <p>走进传送门房间会被随机传送走，所以传送门房间本身不能作为途经点：不走传送门时直接跳过这类出口；走传送门时把 "走进传送门"
+ * 看作到每个传送目的地的一条不确定的边，实际落点不同时由调用方从落点重新规划。
+ *
+ * <p>房间数不超过 game.path.precompute-max-rooms 时，启动时为不走传送门的地图预先算好全部房间对的下一步（每对 1 字节，4096 个房间约
+ * 16MB），查询只需逐步查表；更大的地图或走传送门时用双向广度优先搜索按需计算。
+ */
+@Component
+public class PathFinder {
+  private static final Logger logger = LoggerFactory.getLogger(PathFinder.class);
+
+  // 下一步表的下标是 from * n + to，房间数不能超过 sqrt(Integer.MAX_VALUE)
+  private static final int MAX_TABLE_ROOMS = 46340;
+
+  private static final int[] NO_TARGETS = new int[0];
+
+  private final WorldGraph worldGraph;
+  private final int precomputeMaxRooms;
+
+  private volatile Index index;
+
+  @Autowired
+  public PathFinder(
+      WorldGraph worldGraph,
+      @Value("${game.path.precompute-max-rooms:4096}") int precomputeMaxRooms) {
+    this.worldGraph = worldGraph;
+    this.precomputeMaxRooms = Math.min(precomputeMaxRooms, MAX_TABLE_ROOMS);
+  }
+
+  @PostConstruct
+  public void load() {
+    index();
+  }
+
+  /**
+   * 从 from 到 to 的最短路线
+   *
+   * @param teleports 是否允许经过传送门（结果可能是不确定的路线）
+   * @return 到不了时返回 null；from 与 to 相同时返回空路线
+   */
+  public Route find(WorldGraph.Room from, WorldGraph.Room to, boolean teleports) {
+    if (from == null || to == null) return null;
+    return index().find(from.getIndex(), to.getIndex(), teleports);
+  }
+
+  // 地图重新加载后按新拓扑重建
+  private Index index() {
+    WorldGraph.Room[] rooms = worldGraph.rooms();
+    Index current = index;
+    if (current == null || current.rooms != rooms) {
+      synchronized (this) {
+        current = index;
+        if (current == null || current.rooms != rooms) {
+          long start = System.nanoTime();
+          current = Index.build(rooms, precomputeMaxRooms);
+          index = current;
+          logger.info(
+              "路线索引已构建: {} 个房间, 下一步表: {}, 耗时 {} ms",
+              rooms.length,
+              current.nextSlot != null ? "已预计算" : "按需搜索",
+              (System.nanoTime() - start) / 1_000_000);
+        }
+      }
+    }
+    return current;
+  }
+
+  /** 一条路线：每一步的出口方向和预期到达的房间 */
+  public static final class Route {
+    private final WorldGraph.Room[] graph;
+    private final int[] slots;
+    private final int[] rooms;
+    private final boolean probabilistic;
+
+    Route(WorldGraph.Room[] graph, int[] slots, int[] rooms, boolean probabilistic) {
+      this.graph = graph;
+      this.slots = slots;
+      this.rooms = rooms;
+      this.probabilistic = probabilistic;
+    }
+
+    /** 步数 */
+    public int length() {
+      return slots.length;
+    }
+
+    /** 第 step 步的方向 */
+    public String getDirection(int step) {
+      return WorldGraph.DIRECTIONS.get(slots[step]);
+    }
+
+    /** 第 step 步之后预期所在的房间（经过传送门时是其中一个可能的落点） */
+    public WorldGraph.Room getRoom(int step) {
+      return graph[rooms[step]];
+    }
+
+    /** 路线中是否有传送门（实际落点可能不同） */
+    public boolean isProbabilistic() {
+      return probabilistic;
+    }
+  }
+
+  // 一次地图拓扑对应的边表和下一步表（不可变）
+  static final class Index {
+    final WorldGraph.Room[] rooms;
+    final Edges walking;
+    final Edges withTeleports;
+    // nextSlot[from * n + to]：第一步的出口槽位，-1 表示到不了
+    final byte[] nextSlot;
+
+    private Index(WorldGraph.Room[] rooms, byte[] nextSlot, Edges walking, Edges withTeleports) {
+      this.rooms = rooms;
+      this.walking = walking;
+      this.withTeleports = withTeleports;
+      this.nextSlot = nextSlot;
+    }
+
+    static Index build(WorldGraph.Room[] rooms, int precomputeMaxRooms) {
+      Edges walking = Edges.of(rooms, false);
+      Edges withTeleports = Edges.of(rooms, true);
+      byte[] nextSlot = rooms.length <= precomputeMaxRooms ? walking.allPairsNextSlot() : null;
+      return new Index(rooms, nextSlot, walking, withTeleports);
+    }
+
+    Route find(int from, int to, boolean teleports) {
+      if (from == to) return new Route(rooms, new int[0], new int[0], false);
+      if (!teleports && nextSlot != null) return followTable(from, to);
+      Edges edges = teleports ? withTeleports : walking;
+      int[] path = edges.bidirectionalSearch(from, to);
+      if (path == null) return null;
+      return edges.toRoute(rooms, path);
+    }
+
+    private Route followTable(int from, int to) {
+      int n = rooms.length;
+      if (nextSlot[from * n + to] < 0) return null;
+      int[] slots = new int[n];
+      int[] path = new int[n];
+      int length = 0;
+      for (int current = from; current != to; current = path[length++]) {
+        int slot = nextSlot[current * n + to];
+        slots[length] = slot;
+        path[length] = rooms[current].getExitIndex(slot);
+      }
+      return new Route(rooms, Arrays.copyOf(slots, length), Arrays.copyOf(path, length), false);
+    }
+  }
+
+  /**
+   * 一种走法下的全部边（压缩邻接表，正向和反向各一份）。
+   *
+   * <p>边号按起点排序；edgeTo / edgeSlot 按边号存放，反向表存放按终点分组的边号。
+   */
+  static final class Edges {
+    final int roomCount;
+    final int[] edgeFrom;
+    final int[] edgeTo;
+    final byte[] edgeSlot;
+    final boolean[] edgeTeleport;
+    // 起点 i 的边号为 [offsets[i], offsets[i + 1])
+    final int[] offsets;
+    // 终点 i 的边号为 reverseEdges[reverseOffsets[i] .. reverseOffsets[i + 1])
+    final int[] reverseOffsets;
+    final int[] reverseEdges;
+
+    private Edges(
+        int roomCount,
+        int[] edgeFrom,
+        int[] edgeTo,
+        byte[] edgeSlot,
+        boolean[] edgeTeleport,
+        int[] offsets) {
+      this.roomCount = roomCount;
+      this.edgeFrom = edgeFrom;
+      this.edgeTo = edgeTo;
+      this.edgeSlot = edgeSlot;
+      this.edgeTeleport = edgeTeleport;
+      this.offsets = offsets;
+
+      this.reverseOffsets = new int[roomCount + 1];
+      for (int to : edgeTo) reverseOffsets[to + 1]++;
+      for (int i = 0; i < roomCount; i++) reverseOffsets[i + 1] += reverseOffsets[i];
+      this.reverseEdges = new int[edgeTo.length];
+      int[] fill = Arrays.copyOf(reverseOffsets, roomCount);
+      for (int edge = 0; edge < edgeTo.length; edge++) {
+        reverseEdges[fill[edgeTo[edge]]++] = edge;
+      }
+    }
+
+    static Edges of(WorldGraph.Room[] rooms, boolean teleports) {
+      int n = rooms.length;
+      int count = 0;
+      for (WorldGraph.Room room : rooms) {
+        for (int slot = 0; slot < WorldGraph.DIRECTIONS.size(); slot++) {
+          int exit = room.getExitIndex(slot);
+          if (exit == WorldGraph.NO_ROOM) continue;
+          if (!rooms[exit].isTeleportRoom()) {
+            count++;
+          } else if (teleports) {
+            count += rooms[exit].getTeleportTargetCount();
+          }
+        }
+      }
+
+      int[] offsets = new int[n + 1];
+      int[] from = new int[count];
+      int[] to = new int[count];
+      byte[] slots = new byte[count];
+      boolean[] teleport = new boolean[count];
+      int edge = 0;
+      for (int i = 0; i < n; i++) {
+        offsets[i] = edge;
+        for (int slot = 0; slot < WorldGraph.DIRECTIONS.size(); slot++) {
+          int exit = rooms[i].getExitIndex(slot);
+          if (exit == WorldGraph.NO_ROOM) continue;
+          int[] targets =
+              !rooms[exit].isTeleportRoom()
+                  ? new int[] {exit}
+                  : teleports ? rooms[exit].getTeleportTargets() : NO_TARGETS;
+          for (int target : targets) {
+            from[edge] = i;
+            to[edge] = target;
+            slots[edge] = (byte) slot;
+            teleport[edge] = rooms[exit].isTeleportRoom();
+            edge++;
+          }
+        }
+      }
+      offsets[n] = edge;
+      return new Edges(n, from, to, slots, teleport, offsets);
+    }
+
+    // 从每个房间各做一次广度优先搜索，记下到其余房间的第一步
+    byte[] allPairsNextSlot() {
+      int n = roomCount;
+      byte[] next = new byte[n * n];
+      Arrays.fill(next, (byte) -1);
+      int[] queue = new int[n];
+      boolean[] seen = new boolean[n];
+      for (int source = 0; source < n; source++) {
+        Arrays.fill(seen, false);
+        seen[source] = true;
+        int row = source * n;
+        int head = 0;
+        int tail = 0;
+        for (int edge = offsets[source]; edge < offsets[source + 1]; edge++) {
+          int to = edgeTo[edge];
+          if (seen[to]) continue;
+          seen[to] = true;
+          next[row + to] = edgeSlot[edge];
+          queue[tail++] = to;
+        }
+        while (head < tail) {
+          int room = queue[head++];
+          byte first = next[row + room];
+          for (int edge = offsets[room]; edge < offsets[room + 1]; edge++) {
+            int to = edgeTo[edge];
+            if (seen[to]) continue;
+            seen[to] = true;
+            next[row + to] = first;
+            queue[tail++] = to;
+          }
+        }
+      }
+      return next;
+    }
+
+    /**
+     * 双向广度优先搜索，每轮扩展较小的一侧的一整层
+     *
+     * @return 路线经过的边号，到不了时返回 null
+     */
+    int[] bidirectionalSearch(int source, int target) {
+      int n = roomCount;
+      // 到达该房间所用的边号，-1 表示还没访问
+      int[] forwardEdge = new int[n];
+      int[] backwardEdge = new int[n];
+      Arrays.fill(forwardEdge, -1);
+      Arrays.fill(backwardEdge, -1);
+      int[] forwardDepth = new int[n];
+      int[] backwardDepth = new int[n];
+      boolean[] forwardSeen = new boolean[n];
+      boolean[] backwardSeen = new boolean[n];
+      forwardSeen[source] = true;
+      backwardSeen[target] = true;
+
+      int[] forwardQueue = new int[n];
+      int[] backwardQueue = new int[n];
+      forwardQueue[0] = source;
+      backwardQueue[0] = target;
+      int forwardHead = 0;
+      int forwardTail = 1;
+      int backwardHead = 0;
+      int backwardTail = 1;
+
+      int meet = -1;
+      int best = Integer.MAX_VALUE;
+      while (meet < 0 && forwardHead < forwardTail && backwardHead < backwardTail) {
+        if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+          int levelEnd = forwardTail;
+          while (forwardHead < levelEnd) {
+            int room = forwardQueue[forwardHead++];
+            for (int edge = offsets[room]; edge < offsets[room + 1]; edge++) {
+              int to = edgeTo[edge];
+              if (forwardSeen[to]) continue;
+              forwardSeen[to] = true;
+              forwardEdge[to] = edge;
+              forwardDepth[to] = forwardDepth[room] + 1;
+              forwardQueue[forwardTail++] = to;
+              if (backwardSeen[to] && forwardDepth[to] + backwardDepth[to] < best) {
+                best = forwardDepth[to] + backwardDepth[to];
+                meet = to;
+              }
+            }
+          }
+        } else {
+          int levelEnd = backwardTail;
+          while (backwardHead < levelEnd) {
+            int room = backwardQueue[backwardHead++];
+            for (int i = reverseOffsets[room]; i < reverseOffsets[room + 1]; i++) {
+              int edge = reverseEdges[i];
+              int from = edgeFrom[edge];
+              if (backwardSeen[from]) continue;
+              backwardSeen[from] = true;
+              backwardEdge[from] = edge;
+              backwardDepth[from] = backwardDepth[room] + 1;
+              backwardQueue[backwardTail++] = from;
+              if (forwardSeen[from] && forwardDepth[from] + backwardDepth[from] < best) {
+                best = forwardDepth[from] + backwardDepth[from];
+                meet = from;
+              }
+            }
+          }
+        }
+      }
+      if (meet < 0) return null;
+
+      int[] path = new int[best];
+      int length = forwardDepth[meet];
+      for (int room = meet, i = length - 1; room != source; room = edgeFrom[forwardEdge[room]]) {
+        path[i--] = forwardEdge[room];
+      }
+      for (int room = meet; room != target; room = edgeTo[backwardEdge[room]]) {
+        path[length++] = backwardEdge[room];
+      }
+      return path;
+    }
+
+    Route toRoute(WorldGraph.Room[] rooms, int[] path) {
+      int[] slots = new int[path.length];
+      int[] targets = new int[path.length];
+      boolean probabilistic = false;
+      for (int i = 0; i < path.length; i++) {
+        slots[i] = edgeSlot[path[i]];
+        targets[i] = edgeTo[path[i]];
+        probabilistic |= edgeTeleport[path[i]];
+      }
+      return new Route(rooms, slots, targets, probabilistic);
+    }
+  }
+}
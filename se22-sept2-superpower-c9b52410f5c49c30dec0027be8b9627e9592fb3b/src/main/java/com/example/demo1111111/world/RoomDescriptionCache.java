@@ -0,0 +1,116 @@
+package com.example.demo1111111.world;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.entity.Item;
+
+/**
+ * look 命令的房间描述缓存，按 (roomId, 房间物品版本号) 命中。
+ *
+ * <p>标题、描述、出口和传送门提示只在房间第一次被查看时渲染；房间物品变化（take / drop）后版本号改变，只重新拼接物品部分。命中时直接返回上次的字符串，不产生新对象。
+ */
+@Component
+public class RoomDescriptionCache {
+
+  // roomId -> 最近一次渲染结果
+  private final ConcurrentMap<Integer, Rendered> cache = new ConcurrentHashMap<>();
+
+  /** 房间描述，stock 为该房间当前的物品快照 */
+  public String describe(WorldGraph.Room room, RoomItemLedger.RoomStock stock) {
+    Rendered rendered = cache.get(room.getId());
+    // 地图重新加载后房间节点会换新，旧的静态部分不再使用
+    if (rendered != null && rendered.room == room) {
+      if (rendered.version == stock.getVersion()) {
+        return rendered.text;
+      }
+      rendered = rendered.withItems(stock);
+    } else {
+      rendered = new Rendered(room, renderHeader(room), renderFooter(room), stock);
+    }
+    cache.put(room.getId(), rendered);
+    return rendered.text;
+  }
+
+  /** 已缓存的房间数 */
+  public int size() {
+    return cache.size();
+  }
+
+  /** 不经过缓存直接渲染房间描述 */
+  public static String render(WorldGraph.Room room, List<RoomItemLedger.Entry> roomItems) {
+    String header = renderHeader(room);
+    String footer = renderFooter(room);
+    StringBuilder sb = new StringBuilder(header.length() + footer.length() + 64);
+    sb.append(header);
+    appendItems(sb, roomItems);
+    return sb.append(footer).toString();
+  }
+
+  // 标题、描述和出口
+  private static String renderHeader(WorldGraph.Room room) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("=== ").append(room.getName()).append(" ===\n");
+    sb.append(room.getDescription()).append("\n\n");
+
+    List<String> exits = room.getValidExitDirections();
+    if (!exits.isEmpty()) {
+      sb.append("出口: ").append(String.join(", ", exits)).append("\n");
+    }
+    return sb.toString();
+  }
+
+  // 传送门提示
+  private static String renderFooter(WorldGraph.Room room) {
+    return room.isTeleportRoom() ? "\n传送门能量波动中，可能通往未知领域..." : "";
+  }
+
+  // 物品部分
+  private static void appendItems(StringBuilder sb, List<RoomItemLedger.Entry> roomItems) {
+    if (roomItems.isEmpty()) {
+      sb.append("\n这里没有可见的物品");
+      return;
+    }
+    sb.append("\n房间物品:\n");
+    for (RoomItemLedger.Entry entry : roomItems) {
+      Item item = entry.getItem();
+      sb.append("- ")
+          .append(item.getName())
+          .append(" (数量: ")
+          .append(entry.getQuantity())
+          .append(", 重量: ")
+          .append(item.getWeight())
+          .append("kg")
+          .append(")\n   ")
+          .append(item.getDescription())
+          .append("\n");
+    }
+  }
+
+  // 一个房间的渲染结果（不可变）
+  private static final class Rendered {
+    final WorldGraph.Room room;
+    final String header;
+    final String footer;
+    final long version;
+    final String text;
+
+    Rendered(WorldGraph.Room room, String header, String footer, RoomItemLedger.RoomStock stock) {
+      this.room = room;
+      this.header = header;
+      this.footer = footer;
+      this.version = stock.getVersion();
+      StringBuilder sb = new StringBuilder(header.length() + footer.length() + 64);
+      sb.append(header);
+      appendItems(sb, stock.getEntries());
+      this.text = sb.append(footer).toString();
+    }
+
+    Rendered withItems(RoomItemLedger.RoomStock stock) {
+      return new Rendered(room, header, footer, stock);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package com.example.demo1111111.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.RoomItem;
+import com.example.demo1111111.repository.RoomItemRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 内存中的房间物品账本：(roomId, itemId) -> 数量。
+ *
+ * <p>写操作按房间分段加锁，保证并发拾取/丢弃时数量不会算错、物品不会被复制；读操作无锁。 变更记录为脏键，由定时任务异步批量写回 room_item 表。
+ *
+ * <p>房间物品每次变化都会换成带新版本号的快照，依赖房间物品的缓存用版本号判断是否失效。
+ */
+@Component
+public class RoomItemLedger {
+  private static final Logger logger = LoggerFactory.getLogger(RoomItemLedger.class);
+
+  // 分段锁数量（2 的幂）
+  private static final int LOCK_STRIPES = 64;
+
+  private static final String UPSERT_SQL =
+      "INSERT INTO room_item (room_id, item_id, quantity) VALUES (?, ?, ?)"
+          + " ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)";
+  private static final String DELETE_SQL =
+      "DELETE FROM room_item WHERE room_id = ? AND item_id = ?";
+
+  private final RoomItemRepository roomItemRepo;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  // roomId -> 房间物品（写时复制，读路径无锁）
+  private final ConcurrentMap<Integer, RoomStock> rooms = new ConcurrentHashMap<>();
+  // 快照版本号，全局递增，重新加载后也不会重复
+  private final AtomicLong versions = new AtomicLong();
+  private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+  // 待写回的 (roomId, itemId)，打包为 long
+  private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  @Autowired
+  public RoomItemLedger(
+      RoomItemRepository roomItemRepo,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager) {
+    this.roomItemRepo = roomItemRepo;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  @PostConstruct
+  public void load() {
+    List<RoomItem> rows = roomItemRepo.findAllWithItems();
+    load(rows);
+    logger.info("房间物品账本已加载: {} 个房间, {} 条记录", rooms.size(), rows.size());
+  }
+
+  // 用数据库中的记录重建账本
+  void load(List<RoomItem> rows) {
+    Map<Integer, List<Entry>> grouped = new LinkedHashMap<>();
+    for (RoomItem row : rows) {
+      int quantity = row.getQuantity() != null ? row.getQuantity() : 1;
+      if (row.getItem() == null || quantity <= 0) continue;
+      grouped
+          .computeIfAbsent(row.getId().getRoomId(), id -> new ArrayList<>())
+          .add(new Entry(row.getItem(), quantity));
+    }
+    rooms.clear();
+    grouped.forEach((roomId, entries) -> rooms.put(roomId, newStock(entries)));
+  }
+
+  /** 房间当前物品（不可变快照，不会为 null） */
+  public List<Entry> getItems(Integer roomId) {
+    return getStock(roomId).getEntries();
+  }
+
+  /** 房间当前物品及其版本号（不会为 null，从未有过物品的房间版本号为 0） */
+  public RoomStock getStock(Integer roomId) {
+    RoomStock stock = roomId != null ? rooms.get(roomId) : null;
+    return stock != null ? stock : RoomStock.EMPTY;
+  }
+
+  /** 房间中某物品的数量 */
+  public int getQuantity(int roomId, int itemId) {
+    for (Entry entry : getItems(roomId)) {
+      if (entry.getItem().getId() == itemId) return entry.getQuantity();
+    }
+    return 0;
+  }
+
+  /** 查找存放某物品的任意一个房间，没有返回 null */
+  public Integer findRoomContaining(int itemId) {
+    for (Map.Entry<Integer, RoomStock> room : rooms.entrySet()) {
+      for (Entry entry : room.getValue().entries) {
+        if (entry.getItem().getId() == itemId) return room.getKey();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 从房间取走一个物品（原子操作）
+   *
+   * @return 取走成功返回 true；房间里已经没有该物品返回 false
+   */
+  public boolean take(int roomId, int itemId) {
+    ReentrantLock lock = lockFor(roomId);
+    lock.lock();
+    try {
+      RoomStock stock = rooms.get(roomId);
+      int index = stock != null ? stock.indexOf(itemId) : -1;
+      if (index < 0) return false;
+
+      List<Entry> entries = new ArrayList<>(stock.entries);
+      Entry entry = entries.get(index);
+      if (entry.getQuantity() > 1) {
+        entries.set(index, new Entry(entry.getItem(), entry.getQuantity() - 1));
+      } else {
+        entries.remove(index);
+      }
+      rooms.put(roomId, newStock(entries));
+      dirty.add(key(roomId, itemId));
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 向房间放入一个物品（原子操作） */
+  public void drop(int roomId, Item item) {
+    ReentrantLock lock = lockFor(roomId);
+    lock.lock();
+    try {
+      RoomStock stock = getStock(roomId);
+      List<Entry> entries = new ArrayList<>(stock.entries);
+      int index = stock.indexOf(item.getId());
+      if (index >= 0) {
+        Entry entry = entries.get(index);
+        entries.set(index, new Entry(entry.getItem(), entry.getQuantity() + 1));
+      } else {
+        entries.add(new Entry(item, 1));
+      }
+      rooms.put(roomId, newStock(entries));
+      dirty.add(key(roomId, item.getId()));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 待写回的记录数 */
+  public int dirtyCount() {
+    return dirty.size();
+  }
+
+  /** 把变更过的数量批量写回数据库：数量为 0 的删除，其余插入或更新 */
+  @Scheduled(
+      fixedDelayString = "${game.room-items.flush-interval-ms:1000}",
+      initialDelayString = "${game.room-items.flush-interval-ms:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      if (dirty.isEmpty()) return;
+
+      List<Long> keys = new ArrayList<>(dirty);
+      dirty.removeAll(keys);
+
+      List<Object[]> upserts = new ArrayList<>();
+      List<Object[]> deletes = new ArrayList<>();
+      for (long key : keys) {
+        int roomId = (int) (key >>> 32);
+        int itemId = (int) key;
+        int quantity = getQuantity(roomId, itemId);
+        if (quantity > 0) {
+          upserts.add(new Object[] {roomId, itemId, quantity});
+        } else {
+          deletes.add(new Object[] {roomId, itemId});
+        }
+      }
+
+      try {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              if (!upserts.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+              if (!deletes.isEmpty()) jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            });
+        logger.debug("写回房间物品: 更新 {} 条, 删除 {} 条", upserts.size(), deletes.size());
+      } catch (RuntimeException e) {
+        // 写回失败时重新标记，下次写回时读取最新数量
+        dirty.addAll(keys);
+        logger.error("写回房间物品失败，{} 条记录将在下次重试", keys.size(), e);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+
+  private RoomStock newStock(List<Entry> entries) {
+    return new RoomStock(entries, versions.incrementAndGet());
+  }
+
+  private ReentrantLock lockFor(int roomId) {
+    return locks[(roomId ^ (roomId >>> 16)) & (LOCK_STRIPES - 1)];
+  }
+
+  private static long key(int roomId, int itemId) {
+    return ((long) roomId << 32) | (itemId & 0xFFFFFFFFL);
+  }
+
+  /** 房间中的一种物品及其数量（不可变） */
+  public static final class Entry {
+    private final Item item;
+    private final int quantity;
+
+    Entry(Item item, int quantity) {
+      this.item = item;
+      this.quantity = quantity;
+    }
+
+    public Item getItem() {
+      return item;
+    }
+
+    public int getQuantity() {
+      return quantity;
+    }
+
+    /** 计算物品堆重量 */
+    public double getTotalWeight() {
+      return item.getWeight() * quantity;
+    }
+  }
+
+  /** 单个房间某一时刻的物品列表（不可变），只在持有该房间的分段锁时整体替换 */
+  public static final class RoomStock {
+    static final RoomStock EMPTY = new RoomStock(List.of(), 0L);
+
+    private final List<Entry> entries;
+    private final long version;
+
+    RoomStock(List<Entry> entries, long version) {
+      this.entries = Collections.unmodifiableList(Arrays.asList(entries.toArray(new Entry[0])));
+      this.version = version;
+    }
+
+    public List<Entry> getEntries() {
+      return entries;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    int indexOf(int itemId) {
+      for (int i = 0; i < entries.size(); i++) {
+        if (entries.get(i).getItem().getId() == itemId) return i;
+      }
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,341 @@
+package com.example.demo1111111.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.demo1111111.repository.RoomRepository;
+import com.example.demo1111111.repository.TeleportDestinationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 启动时加载的只读世界地图。
+ *
+ * <p>房间按稠密下标存放在数组中，出口和传送目的地都是房间下标，移动和传送查询为 O(1)，不经过 Hibernate。 房间物品数量是可变数据，不在这里维护。
+ */
+@Component
+public class WorldGraph {
+  private static final Logger logger = LoggerFactory.getLogger(WorldGraph.class);
+
+  /** 没有出口 */
+  public static final int NO_ROOM = -1;
+
+  /** 出口方向，顺序与 {@code RoomEntity.getSafeExits()} 一致 */
+  public static final List<String> DIRECTIONS = List.of("east", "west", "north", "south");
+
+  private static final int[] NO_TARGETS = new int[0];
+
+  // ID 跨度超过房间数的该倍数时，改用二分查找代替直接寻址表
+  private static final int DIRECT_INDEX_SLACK = 4;
+
+  private final RoomRepository roomRepo;
+  private final TeleportDestinationRepository teleportRepo;
+
+  // 整个快照一次性替换，读路径无锁
+  private volatile Topology topology = new Topology(new Room[0], new int[0], null, null);
+
+  @Autowired
+  public WorldGraph(RoomRepository roomRepo, TeleportDestinationRepository teleportRepo) {
+    this.roomRepo = roomRepo;
+    this.teleportRepo = teleportRepo;
+  }
+
+  @PostConstruct
+  public void load() {
+    reload();
+  }
+
+  /** 从数据库重新加载地图拓扑（地图数据变更后手动调用） */
+  public void reload() {
+    List<RoomRepository.RoomTopology> rows = roomRepo.findAllTopology();
+    List<TeleportDestinationRepository.TeleportLink> links = teleportRepo.findAllLinks();
+    this.topology = build(rows, links);
+    logger.info("世界地图已加载: {} 个房间, {} 条传送路径", rows.size(), links.size());
+  }
+
+  /** 房间总数 */
+  public int size() {
+    return topology.rooms.length;
+  }
+
+  /** 按房间ID查找，不存在返回 null */
+  public Room getRoom(Integer roomId) {
+    if (roomId == null) return null;
+    Topology t = topology;
+    int index = t.indexOf(roomId);
+    return index == NO_ROOM ? null : t.rooms[index];
+  }
+
+  // 当前拓扑的全部房间（按稠密下标），地图重新加载后是新的数组
+  Room[] rooms() {
+    return topology.rooms;
+  }
+
+  /** 按稠密下标获取房间 */
+  public Room getRoomAt(int index) {
+    return topology.rooms[index];
+  }
+
+  /** 按名称查找（线性扫描，仅用于冷路径） */
+  public Room findByName(String name) {
+    for (Room room : topology.rooms) {
+      if (room.getName().equals(name)) {
+        return room;
+      }
+    }
+    return null;
+  }
+
+  /** 按名称查找（忽略大小写和首尾空格），同名房间取第一个，不存在返回 null */
+  public Room findByNameIgnoreCase(String name) {
+    if (name == null) return null;
+    Topology t = topology;
+    Integer index = t.indexByName.get(name.trim().toLowerCase(Locale.ROOT));
+    return index != null ? t.rooms[index] : null;
+  }
+
+  /** 方向 -> 出口槽位，未知方向返回 -1 */
+  public static int directionSlot(String direction) {
+    if (direction == null) return -1;
+    switch (direction) {
+      case "east":
+        return 0;
+      case "west":
+        return 1;
+      case "north":
+        return 2;
+      case "south":
+        return 3;
+      default:
+        return -1;
+    }
+  }
+
+  // ==================== 构建 ====================
+
+  static Topology build(
+      List<RoomRepository.RoomTopology> rows,
+      List<TeleportDestinationRepository.TeleportLink> links) {
+    int count = rows.size();
+    int[] ids = new int[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = rows.get(i).getId();
+    }
+    int[] sortedIds = ids.clone();
+    Arrays.sort(sortedIds);
+    int maxId = count > 0 ? sortedIds[count - 1] : 0;
+
+    // ID 基本连续时用直接寻址表，否则按排序后的 ID 二分查找
+    int[] indexById = null;
+    int[] sortedIndex = null;
+    if (count == 0 || (sortedIds[0] >= 0 && maxId <= DIRECT_INDEX_SLACK * count + 1024)) {
+      indexById = new int[maxId + 1];
+      Arrays.fill(indexById, NO_ROOM);
+      for (int i = 0; i < count; i++) {
+        indexById[ids[i]] = i;
+      }
+    } else {
+      sortedIndex = new int[count];
+      for (int i = 0; i < count; i++) {
+        sortedIndex[Arrays.binarySearch(sortedIds, ids[i])] = i;
+      }
+    }
+    Topology t = new Topology(new Room[count], sortedIds, indexById, sortedIndex);
+
+    // 传送目的地分组
+    List<List<Integer>> targets = new ArrayList<>(Collections.nCopies(count, null));
+    for (TeleportDestinationRepository.TeleportLink link : links) {
+      int from = t.indexOf(link.getTeleportRoomId());
+      int to = t.indexOf(link.getDestinationRoomId());
+      if (from == NO_ROOM || to == NO_ROOM) continue;
+      if (targets.get(from) == null) targets.set(from, new ArrayList<>());
+      targets.get(from).add(to);
+    }
+
+    for (int i = 0; i < count; i++) {
+      RoomRepository.RoomTopology row = rows.get(i);
+      int[] exits = {
+        t.indexOf(row.getExitEastId()),
+        t.indexOf(row.getExitWestId()),
+        t.indexOf(row.getExitNorthId()),
+        t.indexOf(row.getExitSouthId())
+      };
+      List<Integer> roomTargets = targets.get(i);
+      int[] teleportTargets =
+          roomTargets == null
+              ? NO_TARGETS
+              : roomTargets.stream().mapToInt(Integer::intValue).toArray();
+      t.rooms[i] =
+          new Room(
+              t.rooms,
+              i,
+              row.getId(),
+              row.getName(),
+              row.getDescription(),
+              Boolean.TRUE.equals(row.getTeleportRoom()),
+              exits,
+              teleportTargets);
+      if (row.getName() != null) {
+        t.indexByName.putIfAbsent(row.getName().trim().toLowerCase(Locale.ROOT), i);
+      }
+    }
+    return t;
+  }
+
+  // 一次加载的完整拓扑
+  static final class Topology {
+    final Room[] rooms;
+    final int[] sortedIds;
+    final int[] indexById;
+    final int[] sortedIndex;
+    // 小写房间名 -> 下标
+    final Map<String, Integer> indexByName = new HashMap<>();
+
+    Topology(Room[] rooms, int[] sortedIds, int[] indexById, int[] sortedIndex) {
+      this.rooms = rooms;
+      this.sortedIds = sortedIds;
+      this.indexById = indexById;
+      this.sortedIndex = sortedIndex;
+    }
+
+    int indexOf(Integer roomId) {
+      if (roomId == null) return NO_ROOM;
+      int id = roomId;
+      if (indexById != null) {
+        return id >= 0 && id < indexById.length ? indexById[id] : NO_ROOM;
+      }
+      int pos = Arrays.binarySearch(sortedIds, id);
+      return pos >= 0 ? sortedIndex[pos] : NO_ROOM;
+    }
+  }
+
+  /** 不可变房间节点 */
+  public static final class Room {
+    private final Room[] graph;
+    private final int index;
+    private final int id;
+    private final String name;
+    private final String description;
+    private final boolean teleportRoom;
+    private final int[] exits;
+    private final int[] teleportTargets;
+    // 首次访问时生成，之后只读
+    private volatile List<String> exitDirections;
+    private volatile Map<String, String> exitNames;
+
+    Room(
+        Room[] graph,
+        int index,
+        int id,
+        String name,
+        String description,
+        boolean teleportRoom,
+        int[] exits,
+        int[] teleportTargets) {
+      this.graph = graph;
+      this.index = index;
+      this.id = id;
+      this.name = name;
+      this.description = description;
+      this.teleportRoom = teleportRoom;
+      this.exits = exits;
+      this.teleportTargets = teleportTargets;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public boolean isTeleportRoom() {
+      return teleportRoom;
+    }
+
+    /** 出口槽位对应的房间下标，没有出口返回 {@link WorldGraph#NO_ROOM} */
+    public int getExitIndex(int slot) {
+      return exits[slot];
+    }
+
+    /** 根据方向获取出口（方向需已转为小写） */
+    public Room getExitForDirection(String direction) {
+      int slot = directionSlot(direction);
+      if (slot < 0 || exits[slot] == NO_ROOM) return null;
+      return graph[exits[slot]];
+    }
+
+    /** 传送目的地的房间下标 */
+    public int[] getTeleportTargets() {
+      return teleportTargets.clone();
+    }
+
+    public int getTeleportTargetCount() {
+      return teleportTargets.length;
+    }
+
+    /** 随机传送目的地，没有配置时返回 null */
+    public Room getRandomDestination() {
+      if (teleportTargets.length == 0) return null;
+      return graph[teleportTargets[ThreadLocalRandom.current().nextInt(teleportTargets.length)]];
+    }
+
+    /** 有效出口方向（不可变） */
+    public List<String> getValidExitDirections() {
+      List<String> result = exitDirections;
+      if (result == null) {
+        List<String> directions = new ArrayList<>(4);
+        for (int slot = 0; slot < exits.length; slot++) {
+          if (exits[slot] != NO_ROOM) directions.add(DIRECTIONS.get(slot));
+        }
+        result = Collections.unmodifiableList(directions);
+        exitDirections = result;
+      }
+      return result;
+    }
+
+    /** 方向 -> 出口房间名称（不可变） */
+    public Map<String, String> getExitNames() {
+      Map<String, String> result = exitNames;
+      if (result == null) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (int slot = 0; slot < exits.length; slot++) {
+          if (exits[slot] != NO_ROOM) names.put(DIRECTIONS.get(slot), graph[exits[slot]].name);
+        }
+        result = Collections.unmodifiableMap(names);
+        exitNames = result;
+      }
+      return result;
+    }
+
+    /** 传送目的地名称 */
+    public List<String> getTeleportDestinationNames() {
+      List<String> names = new ArrayList<>(teleportTargets.length);
+      for (int target : teleportTargets) {
+        names.add(graph[target].name);
+      }
+      return names;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.demo1111111.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 世界地图导出（/api/world/map）：房间ID、名称、出口和传送门，启动时生成一次。
+ *
+ * <p>JSON 和 gzip 压缩后的字节都预先生成好，按内容散列作为版本号和 ETag，客户端带 If-None-Match
+ * 重新验证时不用再传输地图。地图重新加载后在下一次请求时重新生成，内容不变时版本号也不变。
+ */
+@Component
+public class WorldMapExport {
+  private static final Logger logger = LoggerFactory.getLogger(WorldMapExport.class);
+
+  private final WorldGraph worldGraph;
+  private final ObjectMapper objectMapper;
+
+  private volatile Payload payload;
+
+  @Autowired
+  public WorldMapExport(WorldGraph worldGraph, ObjectMapper objectMapper) {
+    this.worldGraph = worldGraph;
+    this.objectMapper = objectMapper;
+  }
+
+  @PostConstruct
+  public void load() {
+    current();
+  }
+
+  /** 当前地图的导出内容 */
+  public Payload current() {
+    WorldGraph.Room[] rooms = worldGraph.rooms();
+    Payload current = payload;
+    if (current == null || current.rooms != rooms) {
+      synchronized (this) {
+        current = payload;
+        if (current == null || current.rooms != rooms) {
+          current = build(rooms);
+          payload = current;
+          logger.info(
+              "世界地图导出已生成: {} 个房间, {} 字节 (gzip {} 字节), 版本 {}",
+              rooms.length,
+              current.json.length,
+              current.gzip.length,
+              current.version);
+        }
+      }
+    }
+    return current;
+  }
+
+  private Payload build(WorldGraph.Room[] rooms) {
+    List<MapRoom> mapRooms = new ArrayList<>(rooms.length);
+    for (WorldGraph.Room room : rooms) {
+      Map<String, Integer> exits = new LinkedHashMap<>();
+      for (int slot = 0; slot < WorldGraph.DIRECTIONS.size(); slot++) {
+        int exit = room.getExitIndex(slot);
+        if (exit != WorldGraph.NO_ROOM)
+          exits.put(WorldGraph.DIRECTIONS.get(slot), rooms[exit].getId());
+      }
+      int[] targets = room.getTeleportTargets();
+      for (int i = 0; i < targets.length; i++) {
+        targets[i] = rooms[targets[i]].getId();
+      }
+      mapRooms.add(
+          new MapRoom(
+              room.getId(),
+              room.getName(),
+              room.isTeleportRoom(),
+              exits,
+              targets.length > 0 ? targets : null));
+    }
+
+    try {
+      byte[] roomsJson = objectMapper.writeValueAsBytes(mapRooms);
+      String version = HexFormat.of().formatHex(sha256(roomsJson), 0, 8);
+      byte[] prefix =
+          ("{\"version\":\"" + version + "\",\"rooms\":").getBytes(StandardCharsets.UTF_8);
+      byte[] json = new byte[prefix.length + roomsJson.length + 1];
+      System.arraycopy(prefix, 0, json, 0, prefix.length);
+      System.arraycopy(roomsJson, 0, json, prefix.length, roomsJson.length);
+      json[json.length - 1] = '}';
+      return new Payload(rooms, version, json, gzip(json));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] sha256(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] gzip(byte[] data) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  // 导出的房间：出口和传送目的地都用房间ID
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  record MapRoom(
+      int id, String name, boolean teleport, Map<String, Integer> exits, int[] teleportTargets) {}
+
+  /** 一次生成的导出内容（不可变） */
+  public static final class Payload {
+    private final WorldGraph.Room[] rooms;
+    private final String version;
+    private final String etag;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    Payload(WorldGraph.Room[] rooms, String version, byte[] json, byte[] gzip) {
+      this.rooms = rooms;
+      this.version = version;
+      this.etag = "\"" + version + "\"";
+      this.json = json;
+      this.gzip = gzip;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    /** 带引号的强 ETag */
+    public String getEtag() {
+      return etag;
+    }
+
+    /** 未压缩的 JSON（调用方不得修改） */
+    public byte[] getJson() {
+      return json;
+    }
+
+    /** gzip 压缩后的 JSON（调用方不得修改） */
+    public byte[] getGzip() {
+      return gzip;
+    }
+
+    /** If-None-Match 中是否有当前版本（支持多个值、弱校验和 *） */
+    public boolean matches(String ifNoneMatch) {
+      if (ifNoneMatch == null) return false;
+      for (String tag : ifNoneMatch.split(",")) {
+        String value = tag.trim();
+        if (value.startsWith("W/")) value = value.substring(2);
+        if (value.equals("*") || value.equals(etag)) return true;
+      }
+      return false;
+    }
+  }
+}
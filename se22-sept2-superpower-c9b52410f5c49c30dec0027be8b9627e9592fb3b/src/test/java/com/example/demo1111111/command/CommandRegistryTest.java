@@ -0,0 +1,67 @@
+package com.example.demo1111111.command;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.dto.GameResponse;
+
+class CommandRegistryTest {
+
+  private static CommandHandler handler(String name, CommandHandler.Alias... aliases) {
+    return new CommandHandler() {
+      @Override
+      public String getCommandName() {
+        return name;
+      }
+
+      @Override
+      public List<Alias> getAliases() {
+        return List.of(aliases);
+      }
+
+      @Override
+      public GameResponse handleCommand(String sessionId, String parameter) {
+        return GameResponse.failure(name + ":" + parameter);
+      }
+    };
+  }
+
+  @Test
+  void testFindsNamesAndAliasesIgnoringCase() {
+    CommandHandler go =
+        handler(
+            "go", new CommandHandler.Alias("n", "north"), new CommandHandler.Alias("s", "south"));
+    CommandHandler look = handler("look", CommandHandler.Alias.of("l"));
+    CommandRegistry registry =
+        new CommandRegistry(List.of(go, look, handler("take"), handler("drop"), handler("eat")));
+
+    assertSame(go, registry.find("go").getHandler());
+    assertSame(go, registry.find(" GO ").getHandler());
+    assertSame(look, registry.find("L").getHandler());
+    assertEquals("go", registry.find("n").getCommandName());
+    assertNull(registry.find("dance"));
+    assertNull(registry.find("g"));
+    assertNull(registry.find(""));
+    assertNull(registry.find(null));
+
+    // 别名的固定参数优先，其余命令用玩家输入的参数，空白视为没有
+    assertEquals("north", registry.find("n").parameterFor("west"));
+    assertEquals("east", registry.find("go").parameterFor(" east "));
+    assertNull(registry.find("look").parameterFor("  "));
+  }
+
+  @Test
+  void testRejectsDuplicateNames() {
+    assertThrows(
+        IllegalStateException.class,
+        () -> new CommandRegistry(List.of(handler("go"), handler("Go"))));
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            new CommandRegistry(
+                List.of(handler("look", CommandHandler.Alias.of("l")), handler("l"))));
+  }
+}
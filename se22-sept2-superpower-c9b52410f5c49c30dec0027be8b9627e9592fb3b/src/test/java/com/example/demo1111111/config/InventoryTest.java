@@ -0,0 +1,104 @@
+package com.example.demo1111111.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.entity.Item;
+
+class InventoryTest {
+
+  private static Item item(int id, double weight) {
+    Item item = new Item();
+    item.setId(id);
+    item.setName("item-" + id);
+    item.setWeight(weight);
+    return item;
+  }
+
+  @Test
+  void testQuantitiesAndRunningWeight() {
+    Inventory inventory = new Inventory();
+    Item key = item(7, 1.5);
+    Item lamp = item(3, 2.0);
+
+    inventory.add(key);
+    inventory.add(key);
+    inventory.add(lamp, 3);
+    assertEquals(2, inventory.quantityOf(7));
+    assertEquals(3, inventory.quantityOf(3));
+    assertEquals(0, inventory.quantityOf(99));
+    assertEquals(9.0, inventory.getTotalWeight(), 1e-9);
+
+    assertTrue(inventory.remove(key));
+    assertEquals(1, inventory.quantityOf(7));
+    assertEquals(7.5, inventory.getTotalWeight(), 1e-9);
+
+    assertTrue(inventory.remove(key));
+    assertFalse(inventory.contains(7));
+    assertFalse(inventory.remove(key));
+    assertEquals(6.0, inventory.getTotalWeight(), 1e-9);
+  }
+
+  @Test
+  void testKeepsInsertionOrderWhileGrowingAndRemoving() {
+    Inventory inventory = new Inventory();
+    for (int id = 1; id <= 20; id++) {
+      inventory.add(item(id * 16, 1.0));
+    }
+    inventory.remove(item(16, 1.0));
+    inventory.remove(item(160, 1.0));
+
+    assertEquals(18, inventory.size());
+    assertEquals(32, inventory.itemIdAt(0));
+    for (int id = 1; id <= 20; id++) {
+      boolean removed = id == 1 || id == 10;
+      assertEquals(removed ? 0 : 1, inventory.quantityOf(id * 16));
+    }
+    assertEquals(18.0, inventory.getTotalWeight(), 1e-9);
+  }
+
+  @Test
+  void testEmptiedThenRefilled() {
+    Inventory inventory = new Inventory();
+    Item key = item(7, 1.5);
+    inventory.add(key, 0);
+    inventory.add(key, -2);
+    inventory.add(null);
+    assertTrue(inventory.isEmpty());
+
+    inventory.add(key);
+    assertTrue(inventory.remove(key));
+    assertTrue(inventory.isEmpty());
+    assertEquals(0.0, inventory.getTotalWeight());
+
+    // 清空后重新放入：散列表中不应残留旧的下标
+    Item lamp = item(23, 2.0);
+    inventory.add(lamp);
+    inventory.add(key);
+    assertEquals(2, inventory.size());
+    assertEquals(23, inventory.itemIdAt(0));
+    assertEquals(1, inventory.quantityOf(7));
+    assertEquals(3.5, inventory.getTotalWeight(), 1e-9);
+  }
+
+  @Test
+  void testCollidingIdsSurviveRemoval() {
+    // 槽位数是 2 的幂，ID 间隔 64 时落在同一条探测链上
+    Inventory inventory = new Inventory();
+    for (int i = 0; i < 6; i++) {
+      inventory.add(item(5 + i * 64, 1.0), i + 1);
+    }
+    inventory.remove(item(5, 1.0));
+    inventory.remove(item(5 + 2 * 64, 1.0));
+    inventory.remove(item(5 + 2 * 64, 1.0));
+    inventory.remove(item(5 + 2 * 64, 1.0));
+
+    assertFalse(inventory.contains(5));
+    assertFalse(inventory.contains(5 + 2 * 64));
+    assertEquals(2, inventory.quantityOf(5 + 64));
+    assertEquals(6, inventory.quantityOf(5 + 5 * 64));
+    assertEquals(4, inventory.size());
+    assertEquals(17.0, inventory.getTotalWeight(), 1e-9);
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.demo1111111.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class PlayerInventoryMigrationTest {
+
+  private final DriverManagerDataSource dataSource =
+      new DriverManagerDataSource(
+          "jdbc:h2:mem:inventory-migration;DB_CLOSE_DELAY=-1;MODE=MYSQL", "sa", "");
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+  @AfterEach
+  void dropTable() {
+    jdbcTemplate.execute("DROP TABLE IF EXISTS player_inventory");
+  }
+
+  @Test
+  void testMergesDuplicatesIntoLowestId() {
+    jdbcTemplate.execute(
+        "CREATE TABLE player_inventory (id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+            + " user_id BIGINT, item_id INT, quantity INT NOT NULL)");
+    jdbcTemplate.update(
+        "INSERT INTO player_inventory (user_id, item_id, quantity)"
+            + " VALUES (1, 7, 2), (1, 7, 1), (1, 9, 1), (2, 7, 1), (1, 7, 3)");
+
+    assertEquals(1, new PlayerInventoryMigration(dataSource).mergeDuplicates());
+
+    List<Map<String, Object>> rows =
+        jdbcTemplate.queryForList(
+            "SELECT id, user_id, item_id, quantity FROM player_inventory ORDER BY id");
+    assertEquals(3, rows.size());
+    assertEquals(1L, ((Number) rows.get(0).get("ID")).longValue());
+    assertEquals(6, ((Number) rows.get(0).get("QUANTITY")).intValue());
+    assertEquals(9, ((Number) rows.get(1).get("ITEM_ID")).intValue());
+    assertEquals(2L, ((Number) rows.get(2).get("USER_ID")).longValue());
+
+    // 之后可以建唯一索引，再次运行没有可合并的记录
+    jdbcTemplate.execute(
+        "ALTER TABLE player_inventory ADD CONSTRAINT uk_player_inventory_user_item"
+            + " UNIQUE (user_id, item_id)");
+    assertEquals(0, new PlayerInventoryMigration(dataSource).mergeDuplicates());
+  }
+
+  @Test
+  void testNewDatabaseWithoutTableIsSkipped() {
+    assertEquals(0, new PlayerInventoryMigration(dataSource).mergeDuplicates());
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.demo1111111.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RoomHistoryTest {
+
+  @Test
+  void testDropsOldestWhenFullAndRewindsSeveralSteps() {
+    RoomHistory history = new RoomHistory(3);
+    for (int roomId = 1; roomId <= 5; roomId++) {
+      history.push(roomId);
+    }
+    assertArrayEquals(new int[] {3, 4, 5}, history.toArray());
+    assertEquals(5, history.peek(1));
+    assertEquals(3, history.peek(3));
+    assertEquals(RoomHistory.NONE, history.peek(4));
+
+    // 历史不足时不做修改
+    assertEquals(RoomHistory.NONE, history.rewind(4));
+    assertEquals(3, history.size());
+
+    assertEquals(4, history.rewind(2));
+    assertArrayEquals(new int[] {3}, history.toArray());
+    history.push(6);
+    history.push(7);
+    history.push(8);
+    assertArrayEquals(new int[] {6, 7, 8}, history.toArray());
+    assertEquals(8, history.pop());
+    assertEquals(7, history.pop());
+    assertEquals(6, history.pop());
+    assertEquals(RoomHistory.NONE, history.pop());
+    assertTrue(history.isEmpty());
+  }
+
+  @Test
+  void testChangingDepthKeepsMostRecentRooms() {
+    RoomHistory history = new RoomHistory(4);
+    for (int roomId = 1; roomId <= 6; roomId++) {
+      history.push(roomId);
+    }
+    assertArrayEquals(new int[] {5, 6}, history.withDepth(2).toArray());
+    RoomHistory larger = history.withDepth(8);
+    assertArrayEquals(new int[] {3, 4, 5, 6}, larger.toArray());
+    larger.push(7);
+    assertEquals(5, larger.size());
+    assertSame(history, history.withDepth(4));
+    assertThrows(IllegalArgumentException.class, () -> new RoomHistory(0));
+  }
+
+  @Test
+  void testWrapsAroundSeveralTimes() {
+    RoomHistory history = new RoomHistory(4);
+    for (int roomId = 1; roomId <= 11; roomId++) {
+      history.push(roomId);
+    }
+    // 写满后已绕回数组开头两圈多
+    assertArrayEquals(new int[] {8, 9, 10, 11}, history.toArray());
+    assertEquals(9, history.rewind(3));
+    assertArrayEquals(new int[] {8}, history.toArray());
+
+    // 从数组中间重新写满并再次覆盖
+    for (int roomId = 12; roomId <= 15; roomId++) {
+      history.push(roomId);
+    }
+    assertArrayEquals(new int[] {12, 13, 14, 15}, history.toArray());
+    assertEquals(12, history.peek(4));
+    assertEquals("[12, 13, 14, 15]", history.toString());
+  }
+
+  @Test
+  void testRewindBeyondDepthKeepsHistory() {
+    RoomHistory history = new RoomHistory(3);
+    for (int roomId = 1; roomId <= 10; roomId++) {
+      history.push(roomId);
+    }
+    // 走了 10 步但只记录最近 3 步：back 4 和 back 10 都失败且不修改历史
+    assertEquals(RoomHistory.NONE, history.rewind(4));
+    assertEquals(RoomHistory.NONE, history.rewind(10));
+    assertEquals(RoomHistory.NONE, history.rewind(0));
+    assertArrayEquals(new int[] {8, 9, 10}, history.toArray());
+
+    assertEquals(8, history.rewind(3));
+    assertTrue(history.isEmpty());
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.demo1111111.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class SessionDebugSamplerTest {
+
+  private final LoggerContext context = new LoggerContext();
+  private final Logger gameLogger =
+      context.getLogger("com.example.demo1111111.service.GameService");
+  private final Logger otherLogger = context.getLogger("org.hibernate.SQL");
+
+  @AfterEach
+  void clearMdc() {
+    MDC.clear();
+  }
+
+  @Test
+  void sampledSessionsGetDebugLogsOnlyFromProjectLoggers() {
+    SessionDebugSampler sampler = new SessionDebugSampler();
+    sampler.setPercent(100);
+
+    assertEquals(FilterReply.NEUTRAL, decide(sampler, gameLogger, Level.DEBUG));
+
+    MDC.put(SessionDebugSampler.SESSION_KEY, "session-1");
+    assertEquals(FilterReply.ACCEPT, decide(sampler, gameLogger, Level.DEBUG));
+    assertEquals(FilterReply.ACCEPT, decide(sampler, gameLogger, Level.TRACE));
+    // INFO 及以上和其他包的日志仍按日志级别处理
+    assertEquals(FilterReply.NEUTRAL, decide(sampler, gameLogger, Level.INFO));
+    assertEquals(FilterReply.NEUTRAL, decide(sampler, otherLogger, Level.DEBUG));
+
+    sampler.setPercent(0);
+    assertEquals(FilterReply.NEUTRAL, decide(sampler, gameLogger, Level.DEBUG));
+  }
+
+  @Test
+  void samplingIsStablePerSessionAndRoughlyProportional() {
+    int sampled = 0;
+    for (int i = 0; i < 10_000; i++) {
+      String sessionId = "session-" + i;
+      boolean first = SessionDebugSampler.isSampled(sessionId, 10);
+      assertEquals(first, SessionDebugSampler.isSampled(sessionId, 10));
+      if (first) sampled++;
+    }
+    assertTrue(sampled > 800 && sampled < 1200, "抽中 " + sampled);
+  }
+
+  private static FilterReply decide(SessionDebugSampler sampler, Logger logger, Level level) {
+    return sampler.decide(null, logger, level, "message", null, null);
+  }
+}
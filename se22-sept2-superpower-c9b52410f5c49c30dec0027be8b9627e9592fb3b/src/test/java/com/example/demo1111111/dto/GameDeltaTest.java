@@ -0,0 +1,68 @@
+package com.example.demo1111111.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class GameDeltaTest {
+
+  private static GameResponse.ItemDetail item(String name, int quantity) {
+    return GameResponse.ItemDetail.builder().name(name).weight(1.0).quantity(quantity).build();
+  }
+
+  private static PlayerView view(
+      int roomId,
+      List<GameResponse.ItemDetail> roomItems,
+      double weight,
+      GameResponse.ItemDetail... inventory) {
+    Map<String, GameResponse.ItemDetail> items = new LinkedHashMap<>();
+    for (GameResponse.ItemDetail detail : inventory) {
+      items.put(detail.getName(), detail);
+    }
+    return PlayerView.builder()
+        .roomId(roomId)
+        .roomName("room-" + roomId)
+        .room(GameResponse.RoomDetail.builder().description("d").items(roomItems).build())
+        .inventory(items)
+        .currentWeight(weight)
+        .maxWeight(50.0)
+        .build();
+  }
+
+  @Test
+  void takeInSameRoomSendsOnlyChangedEntries() {
+    PlayerView before = view(1, List.of(item("key", 2), item("lamp", 1)), 0.0);
+    PlayerView after = view(1, List.of(item("key", 1), item("lamp", 1)), 1.0, item("key", 1));
+
+    GameDelta delta = GameDelta.between(7L, before, after, GameResponse.logoutSuccess("获得物品: key"));
+
+    assertEquals(7L, delta.getId());
+    assertNull(delta.getRoom());
+    assertNull(delta.getRoomId());
+    assertEquals(List.of(item("key", 1)), delta.getRoomItems());
+    assertEquals(List.of(item("key", 1)), delta.getInventory());
+    assertEquals(1.0, delta.getCurrentWeight());
+    assertNull(delta.getMaxWeight());
+  }
+
+  @Test
+  void movingSendsFullRoomAndRemovedItemsAsZero() {
+    PlayerView before = view(1, List.of(), 1.0, item("key", 1));
+    PlayerView after = view(2, List.of(item("lamp", 1)), 0.0);
+
+    GameDelta delta = GameDelta.between(null, before, after, GameResponse.logoutSuccess("ok"));
+
+    assertEquals(2, delta.getRoomId());
+    assertNotNull(delta.getRoom());
+    assertNull(delta.getRoomItems());
+    assertEquals(1, delta.getInventory().size());
+    assertEquals("key", delta.getInventory().get(0).getName());
+    assertEquals(0, delta.getInventory().get(0).getQuantity());
+  }
+}
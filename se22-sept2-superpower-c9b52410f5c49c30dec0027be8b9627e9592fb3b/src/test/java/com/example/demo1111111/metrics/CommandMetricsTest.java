@@ -0,0 +1,89 @@
+package com.example.demo1111111.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+import com.example.demo1111111.dto.GameResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CommandMetricsTest {
+
+  private SimpleMeterRegistry registry;
+  private CommandMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    metrics = new CommandMetrics(registry);
+  }
+
+  @Test
+  void failuresAreBucketedByReason() {
+    metrics.record("take", () -> GameResponse.failure("房间中没有 key"));
+    metrics.record("take", () -> GameResponse.failure("房间中没有 lamp"));
+    metrics.record("TAKE", () -> GameResponse.failure("太重了！无法拾取 sword\n当前负重: 49.0kg/50.0kg"));
+    metrics.record("dance", () -> GameResponse.failure("未知命令: dance"));
+
+    assertEquals(
+        2.0,
+        registry
+            .get("game.command.failures")
+            .tags("command", "take", "reason", "not_in_room")
+            .counter()
+            .count());
+    assertEquals(
+        1.0,
+        registry
+            .get("game.command.failures")
+            .tags("command", "take", "reason", "overweight")
+            .counter()
+            .count());
+    assertNotNull(
+        registry
+            .find("game.command.failures")
+            .tags("command", "unknown", "reason", "unknown_command")
+            .counter());
+    assertEquals(
+        3,
+        registry.get("game.command").tags("command", "take", "outcome", "failure").timer().count());
+  }
+
+  @Test
+  void countsRepositoryCallsWithinCommand() {
+    RepositoryCallTracker tracker = new RepositoryCallTracker();
+    RepositoryMethodInvocation invocation = mock(RepositoryMethodInvocation.class);
+    when(invocation.getDuration(TimeUnit.NANOSECONDS)).thenReturn(1_000_000L);
+
+    // 命令之外的调用不统计
+    tracker.afterInvocation(invocation);
+    metrics.record(
+        "look",
+        () -> {
+          tracker.afterInvocation(invocation);
+          tracker.afterInvocation(invocation);
+          return GameResponse.logoutSuccess("ok");
+        });
+
+    assertEquals(
+        2.0, registry.get("game.command.queries").tag("command", "look").summary().totalAmount());
+    assertEquals(
+        2.0,
+        registry
+            .get("game.command.query.time")
+            .tag("command", "look")
+            .timer()
+            .totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(
+        1,
+        registry.get("game.command").tags("command", "look", "outcome", "success").timer().count());
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.demo1111111.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.PlayerInventory;
+
+// 使用 test 配置中的 H2（MySQL 模式），原生 upsert 语句才能执行
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PlayerInventoryRepositoryTest {
+
+  @Autowired private PlayerInventoryRepository repository;
+  @Autowired private ItemRepository itemRepository;
+  @Autowired private TestEntityManager entityManager;
+
+  private Item key;
+
+  @BeforeEach
+  void setUp() {
+    key = new Item();
+    key.setName("key");
+    key.setWeight(1.0);
+    key.setEdible(false);
+    key = itemRepository.save(key);
+  }
+
+  @Test
+  void incrementInsertsThenAddsToTheSameRow() {
+    repository.incrementQuantity(1L, key.getId());
+    repository.incrementQuantity(1L, key.getId());
+
+    assertEquals(2, quantity(1L));
+    assertEquals(1, repository.findByUserId(1L).size());
+    assertEquals(0, quantity(2L));
+  }
+
+  @Test
+  void removeDecrementsThenDeletesTheLastOne() {
+    repository.incrementQuantity(1L, key.getId());
+    repository.incrementQuantity(1L, key.getId());
+
+    assertEquals(1, repository.decrementQuantity(1L, key.getId()));
+    assertEquals(1, quantity(1L));
+
+    // 只剩最后一个时不再减一，而是删除记录
+    assertEquals(0, repository.decrementQuantity(1L, key.getId()));
+    assertEquals(1, repository.deleteLastOne(1L, key.getId()));
+    assertTrue(repository.findByUserId(1L).isEmpty());
+
+    assertEquals(0, repository.deleteLastOne(1L, key.getId()));
+  }
+
+  // 原生语句不经过持久化上下文，读取前先清空，避免读到缓存中的旧数量
+  private int quantity(Long userId) {
+    entityManager.clear();
+    return repository
+        .findByUserIdAndItemId(userId, Long.valueOf(key.getId()))
+        .map(PlayerInventory::getQuantity)
+        .orElse(0);
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo1111111.command.CommandHandler;
+import com.example.demo1111111.command.CommandRegistry;
+import com.example.demo1111111.command.GoCommandHandler;
+import com.example.demo1111111.command.LookCommandHandler;
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.entity.User;
+
+class CommandDispatcherTest {
+
+  private final GameService gameService = mock(GameService.class);
+
+  @Test
+  void testReadOnlyCommandUsesDatabaseOnlyForColdSession() {
+    CommandDispatcher dispatcher =
+        new CommandDispatcher(
+            gameService,
+            new CommandRegistry(
+                List.of(new GoCommandHandler(gameService), new LookCommandHandler(gameService))),
+            mock(PlatformTransactionManager.class));
+    when(gameService.isSessionLoaded("loaded")).thenReturn(true);
+
+    assertFalse(dispatcher.usesDatabase("loaded", "look"));
+    assertTrue(dispatcher.usesDatabase("loaded", "go"));
+    // 会话不在内存中：look 也要先从数据库冷加载会话
+    assertTrue(dispatcher.usesDatabase("cold", "l"));
+    assertFalse(dispatcher.usesDatabase("cold", "dance"));
+  }
+
+  @Test
+  void testScriptStopsAtFailedStepAndKeepsEarlierSteps() {
+    // 模拟内存状态：每一步追加参数，事务回滚时撤销
+    List<String> state = new ArrayList<>();
+    RecordingTransactionManager transactions = new RecordingTransactionManager();
+    CommandDispatcher dispatcher =
+        new CommandDispatcher(
+            gameService,
+            new CommandRegistry(List.of(step("add", state, true), step("fail", state, false))),
+            transactions);
+    User user = new User();
+    user.setId(1L);
+    SessionRegistry.SessionEntry session =
+        new SessionRegistry().register("s1", user, mock(GameState.class));
+    when(gameService.resolveSession("s1")).thenReturn(session);
+
+    GameResponse response = dispatcher.processScript("s1", "add a; fail b; add c", true);
+
+    assertFalse(response.isSuccess());
+    assertEquals("第 2 步失败: 不能执行 b", response.getMessage());
+    // 第 1 步已提交；第 2 步的修改随事务回滚撤销；第 3 步没有执行
+    assertEquals(List.of("a"), state);
+    assertEquals(1, transactions.commits);
+    assertEquals(1, transactions.rollbacks);
+    verify(gameService, times(1)).commandApplied(session, false);
+
+    assertEquals(2, response.getSteps().size());
+    GameResponse.StepResult first = response.getSteps().get(0);
+    assertEquals("add", first.getCommand());
+    assertEquals("a", first.getParameter());
+    assertTrue(first.isSuccess());
+    GameResponse.StepResult failed = response.getSteps().get(1);
+    assertEquals("fail", failed.getCommand());
+    assertFalse(failed.isSuccess());
+    assertEquals("不能执行 b", failed.getMessage());
+  }
+
+  // 修改内存状态并登记回滚撤销的命令，与 GameService.undoOnRollback 相同
+  private static CommandHandler step(String name, List<String> state, boolean succeeds) {
+    return new CommandHandler() {
+      @Override
+      public String getCommandName() {
+        return name;
+      }
+
+      @Override
+      public GameResponse handleCommand(String sessionId, String parameter) {
+        state.add(parameter);
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+              @Override
+              public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) state.remove(parameter);
+              }
+            });
+        return succeeds
+            ? GameResponse.builder().success(true).message("ok").build()
+            : GameResponse.failure("不能执行 " + parameter);
+      }
+    };
+  }
+
+  // 不连接数据库、只驱动事务同步回调的事务管理器
+  private static final class RecordingTransactionManager
+      extends AbstractPlatformTransactionManager {
+    int commits;
+    int rollbacks;
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {}
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+      commits++;
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+      rollbacks++;
+    }
+  }
+}
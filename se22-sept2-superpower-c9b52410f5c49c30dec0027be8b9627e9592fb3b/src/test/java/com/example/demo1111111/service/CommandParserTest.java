@@ -0,0 +1,40 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CommandParserTest {
+
+  @Test
+  void parseScriptSplitsOnSemicolonsAndNewlines() {
+    List<CommandParser.ParsedCommand> commands =
+        CommandParser.parseScript("go north; Take magic cake;\n\n  look  \r\nitems;");
+
+    assertEquals(4, commands.size());
+    assertEquals(new CommandParser.ParsedCommand("go", "north"), commands.get(0));
+    assertEquals(new CommandParser.ParsedCommand("take", "magic cake"), commands.get(1));
+    assertEquals("look", commands.get(2).command());
+    assertNull(commands.get(2).parameter());
+    assertEquals("items", commands.get(3).command());
+  }
+
+  @Test
+  void parseSplitsCommandFromParameter() {
+    assertEquals(
+        new CommandParser.ParsedCommand("drop", "rusty key"),
+        CommandParser.parse("  DROP \t rusty key  "));
+    assertEquals(new CommandParser.ParsedCommand("look", null), CommandParser.parse("look"));
+    assertEquals(new CommandParser.ParsedCommand("", null), CommandParser.parse("   "));
+  }
+
+  @Test
+  void parseScriptIgnoresBlankScript() {
+    assertTrue(CommandParser.parseScript(" ; \n ").isEmpty());
+    assertTrue(CommandParser.parseScript(null).isEmpty());
+  }
+}
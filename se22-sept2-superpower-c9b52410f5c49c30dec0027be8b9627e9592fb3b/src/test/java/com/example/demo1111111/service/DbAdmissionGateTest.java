@@ -0,0 +1,66 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class DbAdmissionGateTest {
+
+  @Test
+  void permitIsReleasedWhenTaskThrows() {
+    DbAdmissionGate gate = new DbAdmissionGate(1, 100);
+
+    RuntimeException error =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                gate.call(
+                    () -> {
+                      throw new IllegalStateException("查询失败");
+                    }));
+    assertEquals("查询失败", error.getMessage());
+    assertEquals(0, gate.getInUse());
+
+    // 唯一的许可已归还，下一个任务可以立即执行
+    assertEquals("ok", gate.call(() -> "ok"));
+  }
+
+  @Test
+  void waitingLongerThanTimeoutFails() throws Exception {
+    DbAdmissionGate gate = new DbAdmissionGate(1, 50);
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> holder =
+        CompletableFuture.runAsync(
+            () ->
+                gate.call(
+                    () -> {
+                      holding.countDown();
+                      await(release);
+                      return null;
+                    }));
+    assertTrue(holding.await(5, TimeUnit.SECONDS));
+    assertEquals(1, gate.getInUse());
+
+    RuntimeException error = assertThrows(RuntimeException.class, () -> gate.call(() -> "late"));
+    assertEquals("服务器繁忙，请稍后重试", error.getMessage());
+
+    release.countDown();
+    holder.get(5, TimeUnit.SECONDS);
+    assertEquals(0, gate.getInUse());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
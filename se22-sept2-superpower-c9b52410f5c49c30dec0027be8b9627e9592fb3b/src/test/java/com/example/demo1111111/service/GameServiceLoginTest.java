@@ -13,12 +13,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
 import com.example.demo1111111.dto.GameResponse;
+import com.example.demo1111111.dto.PlayerView;
 import com.example.demo1111111.entity.*;
 import com.example.demo1111111.repository.*;
+import com.example.demo1111111.world.ItemCatalog;
+import com.example.demo1111111.world.PathFinder;
+import com.example.demo1111111.world.RoomDescriptionCache;
+import com.example.demo1111111.world.RoomItemLedger;
+import com.example.demo1111111.world.WorldGraph;
 
 @ActiveProfiles("test") // 新增注解
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +43,15 @@ class GameServiceLoginTest {
   @Mock private RoomItemRepository roomItemRepo;
   @Mock private ItemRepository itemRepo;
   @Mock private TeleportDestinationRepository teleportRepo;
+  @Mock private WorldGraph worldGraph;
+  @Mock private UserWriteBehindQueue userWriteBehind;
+  @Mock private RoomItemLedger roomItemLedger;
+  @Mock private RoomDescriptionCache roomDescriptions;
+  @Spy private ItemCatalog itemCatalog = new ItemCatalog(null, false);
+  @Mock private GameStateStore gameStateStore;
+  @Mock private PathFinder pathFinder;
+  @Mock private PlatformTransactionManager transactionManager;
+  @Spy private SessionRegistry sessionRegistry = new SessionRegistry();
 
   @InjectMocks private GameService gameService;
 
@@ -222,4 +244,332 @@ class GameServiceLoginTest {
     // 修改：比较房间描述而不是整个对象
     assertEquals(testRoom.getDescription(), response.getCurrentRoom().getDescription());
   }
+
+  @Test
+  void testLookAndItems_ServedFromMemory() {
+    Item testItem = new Item();
+    testItem.setId(1);
+    testItem.setName("测试物品");
+    testItem.setWeight(5.0);
+    PlayerInventory inventory = new PlayerInventory();
+    inventory.setItem(testItem);
+    inventory.setQuantity(2);
+
+    WorldGraph.Room room = mock(WorldGraph.Room.class);
+    when(room.getId()).thenReturn(1);
+
+    when(userRepo.findByUsername(validUsername)).thenReturn(Optional.of(validUser));
+    when(roomRepo.findByIdWithFullData(anyInt())).thenReturn(Optional.of(testRoom));
+    when(playerInventoryRepo.findByUserId(anyLong()))
+        .thenReturn(Collections.singletonList(inventory));
+    when(worldGraph.getRoom(1)).thenReturn(room);
+    RoomItemLedger.RoomStock stock = mock(RoomItemLedger.RoomStock.class);
+    when(stock.getEntries()).thenReturn(Collections.emptyList());
+    when(roomItemLedger.getStock(1)).thenReturn(stock);
+    when(roomItemLedger.getItems(1)).thenReturn(Collections.emptyList());
+    String sessionId = gameService.loginUser(validUsername, validPassword).getSessionId();
+
+    GameResponse look = gameService.processLookCommand(sessionId);
+    assertTrue(look.isSuccess());
+    assertEquals(2, look.getInventory().get(0).getQuantity());
+    assertEquals(10.0, look.getCurrentWeight());
+
+    GameResponse items = gameService.processItemsCommand(sessionId);
+    assertEquals(2, items.getPlayerItems().get(0).getQuantity());
+    assertEquals(10.0, items.getPlayerTotalWeight());
+
+    // 背包只在登录时读取一次，look / items 不再查询数据库，也不开启事务
+    verify(playerInventoryRepo, times(1)).findByUserId(anyLong());
+    verifyNoInteractions(transactionManager);
+  }
+
+  @Test
+  void testResolveSession_ColdLoadRunsInReadOnlyTransaction() {
+    validUser.setSessionId(validSessionId);
+    when(userRepo.findBySessionId(validSessionId)).thenReturn(Optional.of(validUser));
+    when(roomRepo.findByIdWithFullData(1)).thenReturn(Optional.of(testRoom));
+    when(playerInventoryRepo.findByUserId(1L)).thenReturn(Collections.emptyList());
+
+    SessionRegistry.SessionEntry session = gameService.resolveSession(validSessionId);
+
+    assertNotNull(session);
+    assertEquals(1, session.getState().getCurrentRoomId());
+    verify(transactionManager)
+        .getTransaction(argThat(definition -> definition != null && definition.isReadOnly()));
+    verify(transactionManager).commit(any());
+
+    // 之后命中内存会话表，不再开启事务
+    clearInvocations(transactionManager);
+    assertSame(session, gameService.resolveSession(validSessionId));
+    verifyNoInteractions(transactionManager);
+  }
+
+  @Test
+  void testDrop_RolledBackTransactionRestoresMemory() {
+    String sessionId = loginWithOneKey();
+    when(playerInventoryRepo.decrementQuantity(1L, 1)).thenReturn(0);
+    when(playerInventoryRepo.deleteLastOne(1L, 1)).thenReturn(1);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      GameResponse response = gameService.processDropCommand(sessionId, "key");
+      assertTrue(response.isSuccess(), response.getMessage());
+      assertFalse(sessionRegistry.get(sessionId).getState().getInventory().contains(1));
+
+      // 提交失败：物品回到背包，并从房间取走
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertEquals(1, sessionRegistry.get(sessionId).getState().getInventory().quantityOf(1));
+    verify(roomItemLedger).take(1, 1);
+  }
+
+  @Test
+  void testDrop_MissingInDatabaseLeavesMemoryUntouched() {
+    String sessionId = loginWithOneKey();
+    when(playerInventoryRepo.decrementQuantity(1L, 1)).thenReturn(0);
+    when(playerInventoryRepo.deleteLastOne(1L, 1)).thenReturn(0);
+
+    GameResponse response = gameService.processDropCommand(sessionId, "key");
+
+    assertFalse(response.isSuccess());
+    assertEquals(1, sessionRegistry.get(sessionId).getState().getInventory().quantityOf(1));
+    verify(roomItemLedger, never()).drop(anyInt(), any());
+  }
+
+  @Test
+  void testTake_OverweightLeavesInventoryAndRoomUntouched() {
+    String sessionId = loginWithOneKey();
+    Item anvil = new Item();
+    anvil.setId(2);
+    anvil.setName("anvil");
+    anvil.setWeight(49.5);
+    itemCatalog.register(anvil);
+    when(roomItemLedger.getQuantity(1, 2)).thenReturn(1);
+
+    // 已携带 1kg，上限 50kg：再拿 49.5kg 超重
+    GameResponse response = gameService.processTakeCommand(sessionId, "anvil");
+
+    assertFalse(response.isSuccess());
+    assertTrue(response.getMessage().startsWith("太重了！"), response.getMessage());
+    Inventory inventory = sessionRegistry.get(sessionId).getState().getInventory();
+    assertFalse(inventory.contains(2));
+    assertEquals(1.0, inventory.getTotalWeight());
+    verify(roomItemLedger, never()).take(anyInt(), anyInt());
+    verify(playerInventoryRepo, never()).incrementQuantity(anyLong(), anyInt());
+  }
+
+  @Test
+  void testEatMagicCake_UpdatesOnlyMaxCarryWeight() {
+    String sessionId = loginWithOneKey();
+    Item cake = new Item();
+    cake.setId(3);
+    cake.setName("Magic Cake");
+    cake.setWeight(0.5);
+    cake.setEdible(true);
+    itemCatalog.register(cake);
+    sessionRegistry.get(sessionId).getState().getInventory().add(cake);
+    when(playerInventoryRepo.decrementQuantity(1L, 3)).thenReturn(1);
+    clearInvocations(userRepo);
+
+    GameResponse response = gameService.processEatCommand(sessionId, "magic cake");
+
+    assertTrue(response.isSuccess(), response.getMessage());
+    assertEquals(60.0, response.getMaxWeight());
+    assertEquals(60.0, sessionRegistry.get(sessionId).getUser().getMaxCarryWeight());
+    // 不把会话中的 User 快照整行写回
+    verify(userRepo).increaseMaxCarryWeight(1L, 10.0);
+    verify(userRepo, never()).save(any());
+  }
+
+  @Test
+  void testResolveSession_ExtendsStoredStateWhileInUse() {
+    String sessionId = loginWithOneKey();
+    ReflectionTestUtils.setField(gameService, "stateStoreTouchInterval", 0L);
+
+    // 只读命令不保存状态，访问会话时延长状态存储的有效期
+    gameService.resolveSession(sessionId);
+    verify(gameStateStore).touch(sessionId);
+  }
+
+  @Test
+  void testEvictExpiredSessions_DeletesStoredState() {
+    String sessionId = loginWithOneKey();
+    ReflectionTestUtils.setField(sessionRegistry.get(sessionId), "lastTouch", 0L);
+
+    gameService.evictExpiredSessions();
+
+    assertNull(sessionRegistry.get(sessionId));
+    verify(gameStateStore).delete(sessionId);
+  }
+
+  @Test
+  void testPlayerView_BuiltFromMemory() {
+    String sessionId = loginWithOneKey();
+
+    PlayerView view = gameService.buildPlayerView(sessionId, null);
+
+    assertEquals(1, view.getInventory().get("key").getQuantity());
+    assertEquals(1.0, view.getCurrentWeight());
+    // 背包只在登录时读取一次
+    verify(playerInventoryRepo, times(1)).findByUserId(anyLong());
+  }
+
+  @Test
+  void testCommandApplied_SavesStateAfterCommit() {
+    String sessionId = loginWithOneKey();
+    SessionRegistry.SessionEntry session = sessionRegistry.get(sessionId);
+    clearInvocations(gameStateStore);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      gameService.commandApplied(session, false);
+      verify(gameStateStore, never()).save(any());
+
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCommit();
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    verify(gameStateStore).save(session.getState());
+  }
+
+  @Test
+  void testTake_ItemMissingFromCatalogIsRegistered() {
+    String sessionId = loginWithOneKey();
+    Item rope = new Item();
+    rope.setId(5);
+    rope.setName("rope");
+    rope.setWeight(2.0);
+    RoomItemLedger.Entry entry = mock(RoomItemLedger.Entry.class);
+    when(entry.getItem()).thenReturn(rope);
+    when(roomItemLedger.getItems(1)).thenReturn(Collections.singletonList(entry));
+    when(roomItemLedger.take(1, 5)).thenReturn(true);
+    assertNull(itemCatalog.resolve("rope"));
+
+    GameResponse response = gameService.processTakeCommand(sessionId, "rope");
+
+    // 目录加载后新增的物品在房间中找到时补登记，之后 drop / eat 能按名称找到它
+    assertTrue(response.isSuccess(), response.getMessage());
+    assertEquals(5, itemCatalog.resolve("rope").getId());
+  }
+
+  @Test
+  void testTakeAndDrop_NameSharedBySeveralItems() {
+    String sessionId = loginWithOneKey();
+    Item spareKey = new Item();
+    spareKey.setId(2);
+    spareKey.setName("Key");
+    spareKey.setWeight(1.0);
+    itemCatalog.register(spareKey);
+    when(roomItemLedger.getQuantity(1, 1)).thenReturn(0);
+    when(roomItemLedger.getQuantity(1, 2)).thenReturn(1);
+    when(roomItemLedger.take(1, 2)).thenReturn(true);
+
+    // 目录中 1 "key" 和 2 "Key" 同名，房间里只有 2 号
+    GameResponse take = gameService.processTakeCommand(sessionId, "key");
+    assertTrue(take.isSuccess(), take.getMessage());
+    Inventory inventory = sessionRegistry.get(sessionId).getState().getInventory();
+    assertEquals(1, inventory.quantityOf(2));
+
+    // 背包里有 1 号和 2 号，丢掉 1 号后再丢 "key" 应丢 2 号
+    when(playerInventoryRepo.decrementQuantity(eq(1L), anyInt())).thenReturn(1);
+    assertTrue(gameService.processDropCommand(sessionId, "key").isSuccess());
+    assertFalse(inventory.contains(1));
+    GameResponse drop = gameService.processDropCommand(sessionId, "KEY");
+    assertTrue(drop.isSuccess(), drop.getMessage());
+    assertTrue(inventory.isEmpty());
+    verify(playerInventoryRepo).decrementQuantity(1L, 2);
+  }
+
+  @Test
+  void testBack_MoreStepsThanHistoryDepth() {
+    ReflectionTestUtils.setField(gameService, "historyDepth", 3);
+    String sessionId = loginWithOneKey();
+    GameState state = sessionRegistry.get(sessionId).getState();
+    for (int roomId : new int[] {9, 8, 7, 1, 6, 5}) {
+      state.pushRoomToHistory(roomId);
+    }
+
+    GameResponse tooFar = gameService.processBackCommand(sessionId, "4");
+    assertFalse(tooFar.isSuccess());
+    assertEquals("没有可返回的路径：最多只能返回 3 步", tooFar.getMessage());
+    assertEquals(3, state.getRoomHistorySize());
+
+    // 历史只保留最近 3 步，back 3 回到其中最早的房间
+    GameResponse back = gameService.processBackCommand(sessionId, "3");
+    assertTrue(back.isSuccess(), back.getMessage());
+    assertEquals(1, state.getCurrentRoomId());
+    assertEquals(0, state.getRoomHistorySize());
+  }
+
+  @Test
+  void testTravel_ReplansFromUnexpectedTeleportLanding() {
+    String sessionId = loginWithOneKey();
+    WorldGraph.Room start = worldGraph.getRoom(1);
+    WorldGraph.Room portal = mock(WorldGraph.Room.class);
+    WorldGraph.Room planned = mock(WorldGraph.Room.class);
+    WorldGraph.Room landed = mock(WorldGraph.Room.class);
+    WorldGraph.Room target = mock(WorldGraph.Room.class);
+    when(start.getName()).thenReturn("start");
+    when(landed.getId()).thenReturn(3);
+    when(target.getId()).thenReturn(4);
+    when(worldGraph.findByNameIgnoreCase("t")).thenReturn(target);
+
+    // 计划：向北进入传送门，落在 planned，再向东到达；实际落在 landed
+    when(start.getExitForDirection("north")).thenReturn(portal);
+    when(portal.isTeleportRoom()).thenReturn(true);
+    when(portal.getRandomDestination()).thenReturn(landed);
+    PathFinder.Route viaPortal = mock(PathFinder.Route.class);
+    when(viaPortal.length()).thenReturn(2);
+    when(viaPortal.getDirection(0)).thenReturn("north");
+    when(viaPortal.getRoom(0)).thenReturn(planned);
+    when(pathFinder.find(start, target, false)).thenReturn(null);
+    when(pathFinder.find(start, target, true)).thenReturn(viaPortal);
+
+    // 从实际落点重新规划：向西一步到达
+    when(landed.getExitForDirection("west")).thenReturn(target);
+    PathFinder.Route fromLanding = mock(PathFinder.Route.class);
+    when(fromLanding.length()).thenReturn(1);
+    when(fromLanding.getDirection(0)).thenReturn("west");
+    when(fromLanding.getRoom(0)).thenReturn(target);
+    when(pathFinder.find(landed, target, false)).thenReturn(fromLanding);
+
+    GameResponse response = gameService.processTravelCommand(sessionId, "t");
+
+    assertTrue(response.isSuccess(), response.getMessage());
+    assertTrue(response.getMessage().startsWith("经过 2 步到达"), response.getMessage());
+    GameState state = sessionRegistry.get(sessionId).getState();
+    assertEquals(4, state.getCurrentRoomId());
+    assertArrayEquals(new int[] {1, 3}, state.getRoomHistoryIds());
+    verify(userWriteBehind).recordPosition(1L, 4);
+  }
+
+  // 登录一个背包中有一把钥匙、位于 1 号房间的玩家
+  private String loginWithOneKey() {
+    Item key = new Item();
+    key.setId(1);
+    key.setName("key");
+    key.setWeight(1.0);
+    PlayerInventory inventory = new PlayerInventory();
+    inventory.setItem(key);
+    inventory.setQuantity(1);
+
+    WorldGraph.Room room = mock(WorldGraph.Room.class);
+    lenient().when(room.getId()).thenReturn(1);
+    when(userRepo.findByUsername(validUsername)).thenReturn(Optional.of(validUser));
+    when(roomRepo.findByIdWithFullData(anyInt())).thenReturn(Optional.of(testRoom));
+    when(playerInventoryRepo.findByUserId(anyLong()))
+        .thenReturn(Collections.singletonList(inventory));
+    when(worldGraph.getRoom(1)).thenReturn(room);
+    lenient().when(roomItemLedger.getItems(1)).thenReturn(Collections.emptyList());
+    return gameService.loginUser(validUsername, validPassword).getSessionId();
+  }
 }
@@ -0,0 +1,124 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.repository.ItemRepository;
+import com.example.demo1111111.world.ItemCatalog;
+
+class GameStateCodecTest {
+
+  private ItemCatalog itemCatalog;
+  private Item key;
+  private Item cake;
+
+  private static Item item(int id, String name, double weight) {
+    Item item = new Item();
+    item.setId(id);
+    item.setName(name);
+    item.setWeight(weight);
+    return item;
+  }
+
+  @BeforeEach
+  void setUp() {
+    key = item(7, "key", 1.0);
+    cake = item(300, "magic cake", 0.5);
+    ItemRepository itemRepo = mock(ItemRepository.class);
+    when(itemRepo.findAll()).thenReturn(List.of(key, cake));
+    itemCatalog = new ItemCatalog(itemRepo, false);
+    itemCatalog.load();
+  }
+
+  private GameState sample() {
+    Inventory inventory = new Inventory();
+    inventory.add(key, 3);
+    inventory.add(cake);
+    GameState state = new GameState("s-1", null, inventory, true);
+    state.setCurrentRoomId(1042);
+    for (int roomId : new int[] {1000, 1001, 1041, 7, 1042}) {
+      state.pushRoomToHistory(roomId);
+    }
+    return state;
+  }
+
+  @Test
+  void testRoundTripIsCompact() {
+    byte[] data = GameStateCodec.encode(sample());
+    assertTrue(data.length < 32, "快照应只有几十字节，实际 " + data.length);
+
+    GameState restored = GameStateCodec.decode("s-1", data, itemCatalog);
+    assertNotNull(restored);
+    assertEquals(1042, restored.getCurrentRoomId());
+    assertTrue(restored.isGameOver());
+    assertArrayEquals(new int[] {1000, 1001, 1041, 7, 1042}, restored.getRoomHistoryIds());
+    assertEquals(3, restored.getInventory().quantityOf(7));
+    assertEquals(1, restored.getInventory().quantityOf(300));
+    assertEquals(300, restored.getInventory().itemIdAt(1));
+    assertEquals(3.5, restored.getInventory().getTotalWeight(), 1e-9);
+
+    // 没有房间、空背包、空历史
+    GameState empty = new GameState("s-2", null, new Inventory(), false);
+    GameState restoredEmpty =
+        GameStateCodec.decode("s-2", GameStateCodec.encode(empty), itemCatalog);
+    assertNull(restoredEmpty.getCurrentRoomId());
+    assertTrue(restoredEmpty.getInventory().isEmpty());
+    assertEquals(0, restoredEmpty.getRoomHistorySize());
+  }
+
+  @Test
+  void testRejectsDamagedOrUnknownSnapshots() {
+    byte[] data = GameStateCodec.encode(sample());
+    assertNull(GameStateCodec.decode("s-1", Arrays.copyOf(data, data.length - 1), itemCatalog));
+    assertNull(GameStateCodec.decode("s-1", Arrays.copyOf(data, data.length + 1), itemCatalog));
+    assertNull(GameStateCodec.decode("s-1", new byte[] {99}, itemCatalog));
+    assertNull(GameStateCodec.decode("s-1", new byte[0], itemCatalog));
+
+    // 目录里没有的物品：交给调用方从数据库重建
+    Inventory inventory = new Inventory();
+    inventory.add(item(55, "unknown", 1.0));
+    byte[] unknownItem = GameStateCodec.encode(new GameState("s-3", null, inventory, false));
+    assertNull(GameStateCodec.decode("s-3", unknownItem, itemCatalog));
+
+    // 只认识当前格式号，其余一律拒绝
+    byte[] otherFormat = data.clone();
+    otherFormat[0] = 1;
+    assertNull(GameStateCodec.decode("s-4", otherFormat, itemCatalog));
+  }
+
+  @Test
+  void testRejectsEveryTruncationAndMalformedFields() {
+    byte[] data = GameStateCodec.encode(sample());
+    for (int length = 1; length < data.length; length++) {
+      assertNull(
+          GameStateCodec.decode("s-1", Arrays.copyOf(data, length), itemCatalog),
+          "截断到 " + length + " 字节");
+    }
+    // 末尾多出的任意内容
+    byte[] trailing = Arrays.copyOf(data, data.length + 3);
+    trailing[data.length] = 1;
+    assertNull(GameStateCodec.decode("s-1", trailing, itemCatalog));
+
+    // 变长整数超过 5 个字节
+    byte[] overlong = {
+      GameStateCodec.FORMAT, 2, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1
+    };
+    assertNull(GameStateCodec.decode("s-1", overlong, itemCatalog));
+    // 数量为 0 的物品
+    assertNull(
+        GameStateCodec.decode(
+            "s-1", new byte[] {GameStateCodec.FORMAT, 0, 1, 7, 0, 0}, itemCatalog));
+    // 历史长度超过剩余字节
+    assertNull(
+        GameStateCodec.decode("s-1", new byte[] {GameStateCodec.FORMAT, 0, 0, 5, 2}, itemCatalog));
+  }
+}
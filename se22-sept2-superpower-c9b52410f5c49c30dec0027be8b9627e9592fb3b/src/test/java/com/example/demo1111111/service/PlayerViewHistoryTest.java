@@ -0,0 +1,46 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.dto.PlayerView;
+
+class PlayerViewHistoryTest {
+
+  private static PlayerView view(int roomId) {
+    return PlayerView.builder().roomId(roomId).build();
+  }
+
+  @Test
+  void recordsIncreasingVersions() {
+    PlayerViewHistory history = new PlayerViewHistory();
+    assertNull(history.latest());
+
+    PlayerView first = view(1);
+    PlayerView second = view(2);
+    assertEquals(1, history.record(first));
+    assertEquals(2, history.record(second));
+
+    assertSame(first, history.get(1));
+    assertSame(second, history.get(2));
+    assertSame(second, history.latest());
+    assertNull(history.get(0));
+    assertNull(history.get(3));
+  }
+
+  @Test
+  void oldVersionsFallOutOfHistory() {
+    PlayerViewHistory history = new PlayerViewHistory();
+    for (int i = 1; i <= PlayerViewHistory.CAPACITY + 2; i++) {
+      history.record(view(i));
+    }
+
+    assertNull(history.get(1));
+    assertNull(history.get(2));
+    assertEquals(3, history.get(3).getRoomId());
+    assertEquals(PlayerViewHistory.CAPACITY + 2, history.latest().getRoomId());
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.config.Inventory;
+import com.example.demo1111111.config.RedisConfig;
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.repository.ItemRepository;
+import com.example.demo1111111.world.ItemCatalog;
+
+class RedisGameStateStoreTest {
+
+  private RedisStandIn redis;
+  private final List<LettuceConnectionFactory> connections = new ArrayList<>();
+  private ItemCatalog itemCatalog;
+  private Item key;
+  private Item lamp;
+
+  private static Item item(int id, String name, double weight) {
+    Item item = new Item();
+    item.setId(id);
+    item.setName(name);
+    item.setWeight(weight);
+    return item;
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    redis = new RedisStandIn();
+    key = item(7, "key", 1.0);
+    lamp = item(9, "lamp", 2.5);
+    ItemRepository itemRepo = mock(ItemRepository.class);
+    when(itemRepo.findAll()).thenReturn(List.of(key, lamp));
+    itemCatalog = new ItemCatalog(itemRepo, false);
+    itemCatalog.load();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    for (LettuceConnectionFactory connection : connections) connection.destroy();
+    redis.close();
+  }
+
+  // 模拟一个节点：各自的连接和存储实例
+  private RedisGameStateStore node(int port) {
+    return node(port, 60_000);
+  }
+
+  private RedisGameStateStore node(int port, long ttlMillis) {
+    LettuceConnectionFactory connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration("localhost", port),
+            LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(2)).build());
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    connections.add(connectionFactory);
+    RedisTemplate<String, byte[]> template =
+        new RedisConfig().gameStateRedisTemplate(connectionFactory);
+    template.afterPropertiesSet();
+    return new RedisGameStateStore(template, itemCatalog, ttlMillis);
+  }
+
+  @Test
+  void testStateSurvivesAcrossStoreInstances() {
+    Inventory inventory = new Inventory();
+    inventory.add(key, 2);
+    inventory.add(lamp);
+    GameState state = new GameState("s-1", null, inventory, false);
+    state.setCurrentRoomId(12);
+    state.pushRoomToHistory(3);
+    state.pushRoomToHistory(5);
+
+    node(redis.getPort()).save(state);
+    assertTrue(redis.pttl(RedisGameStateStore.KEY_PREFIX + "s-1") > 0);
+
+    GameState restored = node(redis.getPort()).load("s-1");
+    assertNotNull(restored);
+    assertEquals("s-1", restored.getSessionId());
+    assertEquals(12, restored.getCurrentRoomId());
+    assertArrayEquals(new int[] {3, 5}, restored.getRoomHistoryIds());
+    assertEquals(2, restored.getInventory().quantityOf(7));
+    assertEquals(1, restored.getInventory().quantityOf(9));
+    assertEquals(4.5, restored.getInventory().getTotalWeight(), 1e-9);
+
+    node(redis.getPort()).delete("s-1");
+    assertEquals(0, redis.size());
+    assertNull(node(redis.getPort()).load("s-1"));
+  }
+
+  @Test
+  void testTouchExtendsExistingStateOnly() {
+    String key = RedisGameStateStore.KEY_PREFIX + "s-1";
+    node(redis.getPort(), 1_000).save(new GameState("s-1", null, new Inventory(), false));
+    assertTrue(redis.pttl(key) <= 1_000);
+
+    // 会话只执行只读命令：没有保存，但访问时延长有效期
+    RedisGameStateStore store = node(redis.getPort());
+    store.touch("s-1");
+    assertTrue(redis.pttl(key) > 1_000);
+
+    // 不存在的会话不会被创建
+    store.touch("s-missing");
+    assertEquals(1, redis.size());
+  }
+
+  @Test
+  void testUnavailableRedisFallsBackQuietly() throws Exception {
+    int port = redis.getPort();
+    redis.close();
+    RedisGameStateStore store = node(port);
+
+    GameState state = new GameState("s-2", null, new Inventory(), false);
+    assertDoesNotThrow(() -> store.save(state));
+    assertDoesNotThrow(() -> store.touch("s-2"));
+    assertNull(store.load("s-2"));
+  }
+}
@@ -0,0 +1,201 @@
+package com.example.demo1111111.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 测试用的 Redis 协议替身：只实现 RESP2 下游戏状态存储用到的命令（GET / SET [EX|PX] / DEL / PING），数据保存在内存中。
+ *
+ * <p>HELLO 返回未知命令错误，客户端据此回退到 RESP2。
+ */
+class RedisStandIn implements AutoCloseable {
+
+  private final ServerSocket server;
+  private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+  private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+  private final List<Socket> clients = new ArrayList<>();
+
+  RedisStandIn() throws IOException {
+    server = new ServerSocket(0);
+    Thread acceptor = new Thread(this::acceptLoop, "redis-stand-in");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  int getPort() {
+    return server.getLocalPort();
+  }
+
+  /** 键的剩余存活时间（毫秒），没有过期时间返回 -1，不存在返回 -2 */
+  long pttl(String key) {
+    if (get(key) == null) return -2;
+    Long deadline = expiresAt.get(key);
+    return deadline == null ? -1 : deadline - System.currentTimeMillis();
+  }
+
+  int size() {
+    return values.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    synchronized (clients) {
+      for (Socket client : clients) client.close();
+    }
+  }
+
+  private void acceptLoop() {
+    while (!server.isClosed()) {
+      try {
+        Socket client = server.accept();
+        synchronized (clients) {
+          clients.add(client);
+        }
+        Thread handler = new Thread(() -> serve(client), "redis-stand-in-client");
+        handler.setDaemon(true);
+        handler.start();
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket client) {
+    try (client;
+        InputStream in = new BufferedInputStream(client.getInputStream());
+        OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+      List<byte[]> command;
+      while ((command = readCommand(in)) != null) {
+        execute(command, out);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // 连接关闭
+    }
+  }
+
+  private void execute(List<byte[]> args, OutputStream out) throws IOException {
+    String name = text(args.get(0)).toUpperCase(Locale.ROOT);
+    switch (name) {
+      case "PING":
+        simple(out, "+PONG");
+        break;
+      case "GET":
+        bulk(out, get(text(args.get(1))));
+        break;
+      case "SET":
+        set(args);
+        simple(out, "+OK");
+        break;
+      case "DEL":
+        int removed = 0;
+        for (int i = 1; i < args.size(); i++) {
+          String key = text(args.get(i));
+          expiresAt.remove(key);
+          if (values.remove(key) != null) removed++;
+        }
+        simple(out, ":" + removed);
+        break;
+      case "PEXPIRE":
+        {
+          String key = text(args.get(1));
+          boolean exists = get(key) != null;
+          if (exists) {
+            expiresAt.put(key, System.currentTimeMillis() + Long.parseLong(text(args.get(2))));
+          }
+          simple(out, exists ? ":1" : ":0");
+          break;
+        }
+      case "CLIENT":
+      case "SELECT":
+        simple(out, "+OK");
+        break;
+      default:
+        simple(out, "-ERR unknown command '" + name + "'");
+    }
+  }
+
+  private void set(List<byte[]> args) {
+    String key = text(args.get(1));
+    values.put(key, args.get(2));
+    expiresAt.remove(key);
+    for (int i = 3; i + 1 < args.size(); i += 2) {
+      String option = text(args.get(i)).toUpperCase(Locale.ROOT);
+      long amount = Long.parseLong(text(args.get(i + 1)));
+      if (option.equals("PX")) expiresAt.put(key, System.currentTimeMillis() + amount);
+      if (option.equals("EX")) expiresAt.put(key, System.currentTimeMillis() + amount * 1000);
+    }
+  }
+
+  private byte[] get(String key) {
+    Long deadline = expiresAt.get(key);
+    if (deadline != null && deadline <= System.currentTimeMillis()) {
+      values.remove(key);
+      expiresAt.remove(key);
+    }
+    return values.get(key);
+  }
+
+  // 读取一条 RESP 数组命令，连接关闭时返回 null
+  private static List<byte[]> readCommand(InputStream in) throws IOException {
+    String header = readLine(in);
+    if (header == null) return null;
+    if (header.charAt(0) != '*') {
+      throw new IOException("不支持的请求: " + header);
+    }
+    int count = Integer.parseInt(header.substring(1));
+    List<byte[]> args = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String lengthLine = readLine(in);
+      int length = Integer.parseInt(lengthLine.substring(1));
+      byte[] arg = in.readNBytes(length);
+      in.readNBytes(2);
+      args.add(arg);
+    }
+    return args;
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    int c;
+    while ((c = in.read()) != -1) {
+      if (c == '\r') {
+        in.read();
+        return sb.toString();
+      }
+      sb.append((char) c);
+    }
+    return null;
+  }
+
+  private static void simple(OutputStream out, String line) throws IOException {
+    out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void bulk(OutputStream out, byte[] value) throws IOException {
+    if (value == null) {
+      simple(out, "$-1");
+      return;
+    }
+    simple(out, "$" + value.length);
+    out.write(value);
+    out.write('\r');
+    out.write('\n');
+  }
+
+  private static String text(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SessionCommandExecutorTest {
+
+  private final SessionCommandExecutor executor =
+      new SessionCommandExecutor(new DbAdmissionGate(10, 5000), 4, false);
+
+  @AfterEach
+  void shutdown() throws InterruptedException {
+    executor.shutdown();
+  }
+
+  @Test
+  void commandsOfOneSessionRunInOrderWithoutOverlap() throws Exception {
+    AtomicBoolean running = new AtomicBoolean();
+    AtomicBoolean overlapped = new AtomicBoolean();
+    List<Integer> order = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      int index = i;
+      results.add(
+          executor.submit(
+              "session-1",
+              () -> {
+                if (!running.compareAndSet(false, true)) overlapped.set(true);
+                order.add(index);
+                Thread.yield();
+                running.set(false);
+                return index;
+              }));
+    }
+    for (CompletableFuture<Integer> result : results) {
+      result.get(10, TimeUnit.SECONDS);
+    }
+
+    assertFalse(overlapped.get(), "同一会话的命令不应同时执行");
+    for (int i = 0; i < 200; i++) {
+      assertEquals(i, order.get(i));
+    }
+  }
+
+  @Test
+  void differentSessionsRunInParallel() throws Exception {
+    // 会话 a 的命令等待会话 b 的命令开始，只有两个会话并行执行时才能完成
+    CountDownLatch bStarted = new CountDownLatch(1);
+    CompletableFuture<Boolean> a = executor.submit("session-a", () -> await(bStarted), false);
+    CompletableFuture<Boolean> b =
+        executor.submit(
+            "session-b",
+            () -> {
+              bStarted.countDown();
+              return true;
+            },
+            false);
+
+    assertTrue(a.get(10, TimeUnit.SECONDS));
+    assertTrue(b.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void failedCommandDoesNotBlockTheSession() throws Exception {
+    CompletableFuture<Object> failed =
+        executor.submit(
+            "session-1",
+            () -> {
+              throw new IllegalStateException("命令失败");
+            });
+    CompletableFuture<String> next = executor.submit("session-1", () -> "ok");
+
+    assertTrue(failed.handle((value, error) -> error != null).get(10, TimeUnit.SECONDS));
+    assertEquals("ok", next.get(10, TimeUnit.SECONDS));
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.config.GameState;
+import com.example.demo1111111.entity.User;
+
+class SessionRegistryTest {
+
+  private static final long TIMEOUT = 1000;
+
+  private static User user(long id) {
+    User user = new User();
+    user.setId(id);
+    return user;
+  }
+
+  @Test
+  void touchedSessionIsNotEvicted() {
+    SessionRegistry registry = new SessionRegistry();
+    SessionRegistry.SessionEntry entry = registry.register("s1", user(1), mock(GameState.class));
+    long later = entry.getLastTouch() + TIMEOUT * 2;
+
+    // 清理线程读到超时之前，命令线程先访问了会话
+    assertTrue(entry.touch(later));
+    assertEquals(0, registry.evictExpired(later, TIMEOUT));
+    assertSame(entry, registry.get("s1"));
+  }
+
+  @Test
+  void evictedSessionCannotBeTouched() {
+    SessionRegistry registry = new SessionRegistry();
+    SessionRegistry.SessionEntry entry = registry.register("s1", user(1), mock(GameState.class));
+    long later = entry.getLastTouch() + TIMEOUT * 2;
+
+    assertEquals(1, registry.evictExpired(later, TIMEOUT));
+    assertNull(registry.get("s1"));
+    // 命令线程在清理前拿到了条目：访问失败，按会话已过期处理
+    assertFalse(entry.touch(later));
+  }
+
+  @Test
+  void evictionLeavesReRegisteredSessionAlone() {
+    SessionRegistry registry = new SessionRegistry();
+    SessionRegistry.SessionEntry stale = registry.register("s1", user(1), mock(GameState.class));
+    long later = stale.getLastTouch() + TIMEOUT * 2;
+    assertTrue(stale.evictIfExpired(later, TIMEOUT));
+
+    // 同一 sessionId 从数据库恢复后重新注册：旧条目的清理标记不影响新条目
+    SessionRegistry.SessionEntry fresh = registry.register("s1", user(1), mock(GameState.class));
+    fresh.touch(later);
+    registry.evictExpired(later, TIMEOUT);
+
+    assertSame(fresh, registry.get("s1"));
+  }
+
+  @Test
+  void evictionReportsEachRemovedSession() {
+    SessionRegistry registry = new SessionRegistry();
+    SessionRegistry.SessionEntry stale = registry.register("s1", user(1), mock(GameState.class));
+    SessionRegistry.SessionEntry live = registry.register("s2", user(2), mock(GameState.class));
+    long later = stale.getLastTouch() + TIMEOUT * 2;
+    live.touch(later);
+
+    List<String> evicted = new ArrayList<>();
+    assertEquals(
+        1, registry.evictExpired(later, TIMEOUT, entry -> evicted.add(entry.getSessionId())));
+    assertEquals(List.of("s1"), evicted);
+  }
+
+  @Test
+  void storeTouchIsThrottled() {
+    SessionRegistry.SessionEntry entry =
+        new SessionRegistry().register("s1", user(1), mock(GameState.class));
+    long start = entry.getLastTouch();
+
+    // 注册时刚保存过状态
+    assertFalse(entry.needsStoreTouch(start + 10, 100));
+    assertTrue(entry.needsStoreTouch(start + 100, 100));
+    assertFalse(entry.needsStoreTouch(start + 150, 100));
+    assertTrue(entry.needsStoreTouch(start + 200, 100));
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.demo1111111.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo1111111.entity.User;
+
+class UserWriteBehindQueueTest {
+
+  @Test
+  void positionBeingWrittenIsStillApplied() throws Exception {
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              writing.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return new int[] {1};
+            })
+        .when(jdbcTemplate)
+        .batchUpdate(anyString(), anyList());
+    UserWriteBehindQueue queue =
+        new UserWriteBehindQueue(
+            jdbcTemplate, mock(PlatformTransactionManager.class), new SessionRegistry(), 500);
+
+    queue.recordPosition(1L, 5);
+    CompletableFuture<Void> flush = CompletableFuture.runAsync(queue::flush);
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+    // 更新已从队列取出但尚未写入数据库：此时登录读到的旧位置仍要被覆盖
+    User user = new User();
+    user.setId(1L);
+    user.setCurrentRoomId(1);
+    queue.applyPending(user);
+    assertEquals(5, user.getCurrentRoomId());
+
+    release.countDown();
+    flush.get(5, TimeUnit.SECONDS);
+    assertEquals(0, queue.pendingCount());
+  }
+
+  @Test
+  void failedWriteKeepsPositionPending() {
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    doAnswer(
+            invocation -> {
+              throw new IllegalStateException("数据库不可用");
+            })
+        .when(jdbcTemplate)
+        .batchUpdate(anyString(), anyList());
+    UserWriteBehindQueue queue =
+        new UserWriteBehindQueue(
+            jdbcTemplate, mock(PlatformTransactionManager.class), new SessionRegistry(), 500);
+
+    queue.recordPosition(1L, 5);
+    queue.flush();
+
+    User user = new User();
+    user.setId(1L);
+    user.setCurrentRoomId(1);
+    queue.applyPending(user);
+    assertEquals(5, user.getCurrentRoomId());
+    assertEquals(1, queue.pendingCount());
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.demo1111111.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.repository.ItemRepository;
+
+class ItemCatalogTest {
+
+  private ItemRepository itemRepo;
+
+  private static Item item(Integer id, String name) {
+    Item item = new Item();
+    item.setId(id);
+    item.setName(name);
+    item.setWeight(1.0);
+    return item;
+  }
+
+  @BeforeEach
+  void setUp() {
+    itemRepo = mock(ItemRepository.class);
+    when(itemRepo.findAll())
+        .thenReturn(
+            List.of(item(1, "Magic Cake"), item(2, "key"), item(3, "kettle"), item(4, "lamp")));
+  }
+
+  @Test
+  void testExactLookupIgnoresCaseAndSpaces() {
+    ItemCatalog catalog = new ItemCatalog(itemRepo, false);
+    catalog.load();
+
+    assertEquals(4, catalog.size());
+    assertEquals(1, catalog.findByName("  magic CAKE ").getId());
+    assertEquals(2, catalog.get(2).getId());
+    assertNull(catalog.findByName("cake"));
+    assertNull(catalog.resolve("la"));
+
+    // 目录加载后新增的物品补登记
+    catalog.register(item(5, "Rope"));
+    assertEquals(5, catalog.findByName("rope").getId());
+  }
+
+  @Test
+  void testUniquePrefixWhenEnabled() {
+    ItemCatalog catalog = new ItemCatalog(itemRepo, true);
+    catalog.load();
+
+    assertEquals(4, catalog.resolve("la").getId());
+    assertEquals(2, catalog.resolve("KEY").getId());
+    assertNull(catalog.resolve("ke"), "key 和 kettle 都匹配时不猜测");
+    assertNull(catalog.resolve("rope"));
+
+    when(itemRepo.findAll()).thenReturn(List.of(item(6, "rope")));
+    assertEquals(1, catalog.refresh());
+    assertNull(catalog.findByName("lamp"));
+    assertEquals(6, catalog.resolve("ro").getId());
+  }
+
+  @Test
+  void testDuplicatesAndMissingNames() {
+    Item unnamed = item(8, null);
+    when(itemRepo.findAll())
+        .thenReturn(List.of(item(9, "Key"), item(2, "key"), unnamed, item(null, "ghost")));
+    ItemCatalog catalog = new ItemCatalog(itemRepo, true);
+
+    // 未加载的空目录
+    assertNull(catalog.resolve("key"));
+    assertEquals(0, catalog.size());
+
+    catalog.load();
+    assertEquals(3, catalog.size());
+    assertEquals(2, catalog.findByName("KEY").getId(), "同名物品以 ID 较小的为准");
+    assertEquals(List.of(2, 9), catalog.resolveAll(" key").stream().map(Item::getId).toList());
+    assertEquals(2, catalog.resolveAll("k").size(), "前缀唯一匹配一个名称时返回该名称下的全部物品");
+    assertTrue(catalog.resolveAll("rope").isEmpty());
+    assertSame(unnamed, catalog.get(8));
+    assertNull(catalog.findByName("ghost"));
+    assertNull(catalog.resolve(null));
+    assertNull(catalog.resolve("   "));
+
+    // 已有同ID的物品时补登记不生效
+    catalog.register(item(2, "spare key"));
+    assertNull(catalog.findByName("spare key"));
+    assertEquals("key", catalog.get(2).getName());
+    catalog.register(item(null, "ghost"));
+    catalog.register(null);
+    assertEquals(3, catalog.size());
+  }
+}
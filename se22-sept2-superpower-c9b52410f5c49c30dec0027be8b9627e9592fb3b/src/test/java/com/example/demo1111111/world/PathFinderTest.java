@@ -0,0 +1,94 @@
+package com.example.demo1111111.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PathFinderTest {
+
+  private static final int NONE = WorldGraph.NO_ROOM;
+  private static final int SIZE = 4;
+
+  // 4x4 网格（下标 = 行 * 4 + 列），去掉第 1 行中间的两条东西向通道；下标 16 是传送门，从 0 向北进入，传送到 15
+  private static WorldGraph.Room[] world() {
+    WorldGraph.Room[] graph = new WorldGraph.Room[SIZE * SIZE + 1];
+    for (int i = 0; i < SIZE * SIZE; i++) {
+      int row = i / SIZE;
+      int col = i % SIZE;
+      boolean wall = row == 1 && col >= 1 && col <= 2;
+      int east = col + 1 < SIZE && !(wall && col == 1) ? i + 1 : NONE;
+      int west = col > 0 && !(wall && col == 2) ? i - 1 : NONE;
+      int north = row > 0 ? i - SIZE : i == 0 ? SIZE * SIZE : NONE;
+      int south = row + 1 < SIZE ? i + SIZE : NONE;
+      graph[i] =
+          new WorldGraph.Room(
+              graph,
+              i,
+              i + 1,
+              "r" + i,
+              "",
+              false,
+              new int[] {east, west, north, south},
+              new int[0]);
+    }
+    graph[SIZE * SIZE] =
+        new WorldGraph.Room(
+            graph,
+            SIZE * SIZE,
+            100,
+            "portal",
+            "",
+            true,
+            new int[] {NONE, NONE, NONE, NONE},
+            new int[] {SIZE * SIZE - 1});
+    return graph;
+  }
+
+  @Test
+  void testTableAndBidirectionalSearchAgreeOnShortestRoutes() {
+    WorldGraph.Room[] graph = world();
+    PathFinder.Index table = PathFinder.Index.build(graph, 1000);
+    PathFinder.Index search = PathFinder.Index.build(graph, 0);
+    assertNotNull(table.nextSlot);
+    assertNull(search.nextSlot);
+
+    for (int from = 0; from < SIZE * SIZE; from++) {
+      for (int to = 0; to < SIZE * SIZE; to++) {
+        PathFinder.Route a = table.find(from, to, false);
+        PathFinder.Route b = search.find(from, to, false);
+        int manhattan = Math.abs(from / SIZE - to / SIZE) + Math.abs(from % SIZE - to % SIZE);
+        assertEquals(a.length(), b.length(), from + " -> " + to);
+        assertTrue(a.length() >= manhattan);
+        assertFollows(graph, from, to, a);
+        assertFollows(graph, from, to, b);
+      }
+    }
+    assertNull(table.find(0, SIZE * SIZE, false));
+  }
+
+  @Test
+  void testTeleportsAreOptionalProbabilisticEdges() {
+    PathFinder.Index index = PathFinder.Index.build(world(), 1000);
+
+    PathFinder.Route walking = index.find(0, SIZE * SIZE - 1, false);
+    assertEquals(6, walking.length());
+    assertFalse(walking.isProbabilistic());
+
+    PathFinder.Route viaPortal = index.find(0, SIZE * SIZE - 1, true);
+    assertEquals(1, viaPortal.length());
+    assertEquals("north", viaPortal.getDirection(0));
+    assertEquals("r15", viaPortal.getRoom(0).getName());
+    assertTrue(viaPortal.isProbabilistic());
+  }
+
+  // 按出口逐步走一遍，确认路线有效且终点正确
+  private static void assertFollows(
+      WorldGraph.Room[] graph, int from, int to, PathFinder.Route route) {
+    WorldGraph.Room current = graph[from];
+    for (int i = 0; i < route.length(); i++) {
+      current = current.getExitForDirection(route.getDirection(i));
+      assertSame(route.getRoom(i), current);
+    }
+    assertSame(graph[to], current);
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.demo1111111.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.entity.RoomItem;
+import com.example.demo1111111.repository.RoomItemRepository;
+
+class RoomDescriptionCacheTest {
+
+  private final RoomDescriptionCache cache = new RoomDescriptionCache();
+  private RoomItemLedger ledger;
+  private WorldGraph.Room hall;
+  private Item key;
+
+  @BeforeEach
+  void setUp() {
+    ledger =
+        new RoomItemLedger(
+            mock(RoomItemRepository.class),
+            mock(JdbcTemplate.class),
+            mock(PlatformTransactionManager.class));
+
+    key = new Item();
+    key.setId(7);
+    key.setName("key");
+    key.setDescription("A key");
+    key.setWeight(1.0);
+
+    RoomEntity room = new RoomEntity();
+    room.setId(1);
+    ledger.load(List.of(new RoomItem(room, key, 2)));
+
+    WorldGraph.Room[] graph = new WorldGraph.Room[2];
+    int none = WorldGraph.NO_ROOM;
+    hall =
+        new WorldGraph.Room(
+            graph, 0, 1, "hall", "A hall", false, new int[] {1, none, none, none}, new int[0]);
+    graph[0] = hall;
+    graph[1] =
+        new WorldGraph.Room(
+            graph, 1, 2, "portal", "A portal", true, new int[] {none, 0, none, none}, new int[0]);
+  }
+
+  @Test
+  void testCachedTextMatchesRenderAndIsReused() {
+    String first = cache.describe(hall, ledger.getStock(1));
+    assertEquals(RoomDescriptionCache.render(hall, ledger.getItems(1)), first);
+    assertTrue(first.contains("- key (数量: 2"));
+    assertSame(first, cache.describe(hall, ledger.getStock(1)));
+
+    WorldGraph.Room portal = hall.getExitForDirection("east");
+    assertEquals(
+        RoomDescriptionCache.render(portal, ledger.getItems(2)),
+        cache.describe(portal, ledger.getStock(2)));
+  }
+
+  @Test
+  void testTakeAndDropInvalidateItemSection() {
+    String before = cache.describe(hall, ledger.getStock(1));
+
+    assertTrue(ledger.take(1, 7));
+    String afterTake = cache.describe(hall, ledger.getStock(1));
+    assertNotEquals(before, afterTake);
+    assertEquals(RoomDescriptionCache.render(hall, ledger.getItems(1)), afterTake);
+
+    ledger.drop(1, key);
+    assertEquals(before, cache.describe(hall, ledger.getStock(1)));
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.demo1111111.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo1111111.entity.Item;
+import com.example.demo1111111.entity.RoomEntity;
+import com.example.demo1111111.entity.RoomItem;
+import com.example.demo1111111.repository.RoomItemRepository;
+
+class RoomItemLedgerTest {
+
+  private RoomItemLedger ledger;
+  private Item key;
+
+  @BeforeEach
+  void setUp() {
+    ledger =
+        new RoomItemLedger(
+            mock(RoomItemRepository.class),
+            mock(JdbcTemplate.class),
+            mock(PlatformTransactionManager.class));
+
+    key = new Item();
+    key.setId(7);
+    key.setName("key");
+    key.setWeight(1.0);
+
+    RoomEntity room = new RoomEntity();
+    room.setId(1);
+    ledger.load(List.of(new RoomItem(room, key, 3)));
+  }
+
+  @Test
+  void testTakeAndDrop() {
+    assertTrue(ledger.take(1, 7));
+    assertEquals(2, ledger.getQuantity(1, 7));
+
+    ledger.drop(2, key);
+    assertEquals(1, ledger.getQuantity(2, 7));
+    assertEquals(Integer.valueOf(1), ledger.findRoomContaining(7));
+    assertEquals(2, ledger.dirtyCount());
+  }
+
+  @Test
+  void testLastItemRemovedFromRoom() {
+    assertTrue(ledger.take(1, 7));
+    assertTrue(ledger.take(1, 7));
+    assertTrue(ledger.take(1, 7));
+    assertFalse(ledger.take(1, 7));
+    assertTrue(ledger.getItems(1).isEmpty());
+  }
+
+  @Test
+  void testConcurrentTakeNeverDuplicatesItems() throws Exception {
+    int players = 32;
+    ExecutorService pool = Executors.newFixedThreadPool(players);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < players; i++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  return ledger.take(1, 7);
+                }));
+      }
+      start.countDown();
+
+      int taken = 0;
+      for (Future<Boolean> result : results) {
+        if (result.get(10, TimeUnit.SECONDS)) taken++;
+      }
+      // 房间里只有 3 个，只能有 3 个玩家拿到
+      assertEquals(3, taken);
+      assertEquals(0, ledger.getQuantity(1, 7));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.demo1111111.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.demo1111111.controller.WorldController;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class WorldMapExportTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private static WorldGraph.Room[] world(String labName) {
+    int none = WorldGraph.NO_ROOM;
+    WorldGraph.Room[] graph = new WorldGraph.Room[3];
+    graph[0] =
+        new WorldGraph.Room(
+            graph, 0, 10, "outside", "", false, new int[] {1, none, none, none}, new int[0]);
+    graph[1] =
+        new WorldGraph.Room(
+            graph, 1, 20, labName, "", false, new int[] {none, 0, 2, none}, new int[0]);
+    graph[2] =
+        new WorldGraph.Room(
+            graph, 2, 30, "portal", "", true, new int[] {none, none, none, 1}, new int[] {0});
+    return graph;
+  }
+
+  @Test
+  void testPayloadIsCompressedAndVersionedByContent() throws IOException {
+    WorldGraph worldGraph = mock(WorldGraph.class);
+    when(worldGraph.rooms()).thenReturn(world("lab"));
+    WorldMapExport export = new WorldMapExport(worldGraph, objectMapper);
+
+    WorldMapExport.Payload first = export.current();
+    assertSame(first, export.current());
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+      assertArrayEquals(first.getJson(), in.readAllBytes());
+    }
+
+    JsonNode map = objectMapper.readTree(first.getJson());
+    assertEquals(first.getVersion(), map.get("version").asText());
+    JsonNode lab = map.get("rooms").get(1);
+    assertEquals(30, lab.get("exits").get("north").asInt());
+    JsonNode portal = map.get("rooms").get(2);
+    assertTrue(portal.get("teleport").asBoolean());
+    assertEquals(10, portal.get("teleportTargets").get(0).asInt());
+    assertNull(lab.get("teleportTargets"));
+
+    // 重新加载后内容相同则版本不变，内容变化则版本变化
+    when(worldGraph.rooms()).thenReturn(world("lab"));
+    assertEquals(first.getEtag(), export.current().getEtag());
+    when(worldGraph.rooms()).thenReturn(world("laboratory"));
+    assertNotEquals(first.getEtag(), export.current().getEtag());
+  }
+
+  @Test
+  void testIfNoneMatch() {
+    WorldGraph worldGraph = mock(WorldGraph.class);
+    when(worldGraph.rooms()).thenReturn(world("lab"));
+    WorldMapExport.Payload payload = new WorldMapExport(worldGraph, objectMapper).current();
+    String etag = payload.getEtag();
+
+    assertTrue(payload.matches(etag));
+    assertTrue(payload.matches("\"old\", W/" + etag));
+    assertTrue(payload.matches("*"));
+    assertFalse(payload.matches("\"old\""));
+    assertFalse(payload.matches(null));
+  }
+
+  @Test
+  void testControllerRevalidatesWithEtag() {
+    WorldGraph worldGraph = mock(WorldGraph.class);
+    when(worldGraph.rooms()).thenReturn(world("lab"));
+    WorldMapExport export = new WorldMapExport(worldGraph, objectMapper);
+    WorldController controller = new WorldController(export);
+    WorldMapExport.Payload payload = export.current();
+
+    ResponseEntity<byte[]> gzip = controller.getWorldMap(null, "gzip, deflate");
+    assertEquals(HttpStatus.OK, gzip.getStatusCode());
+    assertEquals(payload.getEtag(), gzip.getHeaders().getETag());
+    assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(payload.getGzip(), gzip.getBody());
+
+    ResponseEntity<byte[]> plain = controller.getWorldMap("\"old\"", null);
+    assertEquals(HttpStatus.OK, plain.getStatusCode());
+    assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(payload.getJson(), plain.getBody());
+
+    // 地图未变：304 不带正文，但仍返回 ETag 供下次校验
+    ResponseEntity<byte[]> notModified = controller.getWorldMap(payload.getEtag(), "gzip");
+    assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+    assertEquals(payload.getEtag(), notModified.getHeaders().getETag());
+    assertNull(notModified.getBody());
+  }
+}